@@ -0,0 +1,80 @@
+package com.chess.engine.benchmark;
+
+import com.chess.engine.classic.board.Board;
+import com.chess.engine.perft.PerftPosition;
+import com.chess.pgn.FenUtilities;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// the positions and games every benchmark runs over, so results stay comparable between runs
+public final class BenchmarkCorpus {
+
+    private static final List<String> MIDDLE_GAME_FENS = ImmutableList.of(
+            "r1bqk2r/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R1BQK2R w KQkq - 0 8",
+            "2rq1rk1/pp1bppbp/2np1np1/8/3NP3/1BN1BP2/PPPQ2PP/2KR3R b - - 0 11",
+            "r2q1rk1/1p2bppp/p1n1pn2/3p4/3P4/P1N1PN2/1P2BPPP/R2Q1RK1 w - - 0 12",
+            "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1");
+
+    private static final List<String> GAMES = ImmutableList.of(
+            "1. e4 e5 2. Nf3 d6 3. d4 Bg4 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6 7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5 " +
+            "10. Nxb5 cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8#",
+            "1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. b4 Bxb4 5. c3 Ba5 6. d4 exd4 7. O-O d3 8. Qb3 Qf6 9. e5 Qg6 " +
+            "10. Re1 Nge7 11. Ba3 b5 12. Qxb5 Rb8 13. Qa4 Bb6 14. Nbd2 Bb7 15. Ne4 Qf5 16. Bxd3 Qh5 " +
+            "17. Nf6+ gxf6 18. exf6 Rg8 19. Rad1 Qxf3 20. Rxe7+ Nxe7 21. Qxd7+ Kxd7 22. Bf5+ Ke8 23. Bd7+ Kf8 24. Bxe7#",
+            "1. d4 Nf6 2. c4 e6 3. Nc3 Bb4 4. e3 O-O 5. Bd3 d5 6. Nf3 c5 7. O-O Nc6 8. a3 Bxc3 9. bxc3 dxc4 " +
+            "10. Bxc4 Qc7 11. Bd3 e5 12. Qc2 Re8 13. e4 exd4 14. cxd4 Bg4 15. e5 Bxf3 16. exf6 Nxd4 17. Bxh7+ Kh8");
+
+    private final List<String> fens;
+    private final List<Board> boards;
+    private final List<String> games;
+
+    private BenchmarkCorpus(final List<String> fens,
+                            final List<String> games) {
+        this.fens = fens;
+        this.games = games;
+        final ImmutableList.Builder<Board> boards = ImmutableList.builder();
+        for (final String fen : fens) {
+            boards.add(FenUtilities.createGameFromFEN(fen));
+        }
+        this.boards = boards.build();
+    }
+
+    // the perft reference positions plus a few quiet middle game and endgame positions
+    public static BenchmarkCorpus standardCorpus() {
+        final ImmutableList.Builder<String> fens = ImmutableList.builder();
+        for (final PerftPosition position : PerftPosition.values()) {
+            fens.add(position.getFen());
+        }
+        return new BenchmarkCorpus(fens.addAll(MIDDLE_GAME_FENS).build(), GAMES);
+    }
+
+    // one FEN per line, blank lines and lines starting with # are skipped
+    public static BenchmarkCorpus fromFenFile(final Path fenFile) throws IOException {
+        final ImmutableList.Builder<String> fens = ImmutableList.builder();
+        for (final String line : Files.readAllLines(fenFile, StandardCharsets.UTF_8)) {
+            final String fen = line.trim();
+            if (!fen.isEmpty() && !fen.startsWith("#")) {
+                fens.add(fen);
+            }
+        }
+        return new BenchmarkCorpus(fens.build(), GAMES);
+    }
+
+    public List<String> getFens() {
+        return this.fens;
+    }
+
+    public List<Board> getBoards() {
+        return this.boards;
+    }
+
+    public List<String> getGames() {
+        return this.games;
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.chess.engine.benchmark;
+
+import java.util.Locale;
+
+// the per iteration scores of one benchmark, in microseconds per operation
+final class BenchmarkResult {
+
+    // two sided 99.9% normal quantile, used for the confidence interval around the mean
+    private static final double CONFIDENCE_QUANTILE = 3.291;
+
+    private final EngineBenchmark benchmark;
+    private final int searchDepth;
+    private final int positions;
+    private final int warmupIterations;
+    private final double[] scores;
+
+    BenchmarkResult(final EngineBenchmark benchmark,
+                    final int searchDepth,
+                    final int positions,
+                    final int warmupIterations,
+                    final double[] scores) {
+        this.benchmark = benchmark;
+        this.searchDepth = searchDepth;
+        this.positions = positions;
+        this.warmupIterations = warmupIterations;
+        this.scores = scores;
+    }
+
+    double getScore() {
+        double sum = 0;
+        for (final double score : this.scores) {
+            sum += score;
+        }
+        return sum / this.scores.length;
+    }
+
+    double getScoreError() {
+        if (this.scores.length < 2) {
+            return Double.NaN;
+        }
+        final double mean = getScore();
+        double squares = 0;
+        for (final double score : this.scores) {
+            squares += (score - mean) * (score - mean);
+        }
+        final double deviation = Math.sqrt(squares / (this.scores.length - 1));
+        return CONFIDENCE_QUANTILE * deviation / Math.sqrt(this.scores.length);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-30s depth %d %14.3f +- %10.3f us/op", this.benchmark.name(),
+                this.searchDepth, getScore(), getScoreError());
+    }
+
+    // laid out like the JMH json result format so the same tooling can track both
+    String toJson() {
+        final double score = getScore();
+        final double error = getScoreError();
+        final StringBuilder rawData = new StringBuilder();
+        for (final double iterationScore : this.scores) {
+            rawData.append(rawData.length() == 0 ? "" : ", ").append(number(iterationScore));
+        }
+        return "    {\n" +
+               "        \"benchmark\" : \"" + EngineBenchmark.class.getName() + "." + this.benchmark.name() + "\",\n" +
+               "        \"mode\" : \"avgt\",\n" +
+               "        \"threads\" : 1,\n" +
+               "        \"forks\" : 0,\n" +
+               "        \"jdkVersion\" : \"" + System.getProperty("java.version") + "\",\n" +
+               "        \"vmName\" : \"" + System.getProperty("java.vm.name") + "\",\n" +
+               "        \"warmupIterations\" : " + this.warmupIterations + ",\n" +
+               "        \"measurementIterations\" : " + this.scores.length + ",\n" +
+               "        \"params\" : {\n" +
+               "            \"searchDepth\" : \"" + this.searchDepth + "\",\n" +
+               "            \"positions\" : \"" + this.positions + "\"\n" +
+               "        },\n" +
+               "        \"primaryMetric\" : {\n" +
+               "            \"score\" : " + number(score) + ",\n" +
+               "            \"scoreError\" : " + number(error) + ",\n" +
+               "            \"scoreConfidence\" : [" + number(score - error) + ", " + number(score + error) + "],\n" +
+               "            \"scoreUnit\" : \"us/op\",\n" +
+               "            \"rawData\" : [[" + rawData + "]]\n" +
+               "        }\n" +
+               "    }";
+    }
+
+    private static String number(final double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%.6f", value);
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.chess.engine.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+// runs the engine benchmarks with warmup and measurement iterations and optionally writes the results as json.
+//
+//   BenchmarkRunner [--json <file>] [--fens <file>] [--depth <n>] [--warmup <n>] [--iterations <n>]
+//                   [--time <ms>] [BENCHMARK ...]
+public final class BenchmarkRunner {
+
+    private static final PrintStream NULL_STREAM = new PrintStream(new OutputStream() {
+        @Override
+        public void write(final int b) {
+        }
+    });
+
+    private final BenchmarkCorpus corpus;
+    private final int searchDepth;
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long minIterationNanos;
+    private long sink;
+
+    public BenchmarkRunner(final BenchmarkCorpus corpus,
+                           final int searchDepth,
+                           final int warmupIterations,
+                           final int measurementIterations,
+                           final long minIterationMillis) {
+        this.corpus = corpus;
+        this.searchDepth = searchDepth;
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.minIterationNanos = minIterationMillis * 1000000L;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        Path jsonFile = null;
+        BenchmarkCorpus corpus = null;
+        int searchDepth = 2;
+        int warmupIterations = 3;
+        int measurementIterations = 5;
+        long minIterationMillis = 1000;
+        final Set<EngineBenchmark> benchmarks = EnumSet.noneOf(EngineBenchmark.class);
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--json":
+                    jsonFile = Paths.get(args[++i]);
+                    break;
+                case "--fens":
+                    corpus = BenchmarkCorpus.fromFenFile(Paths.get(args[++i]));
+                    break;
+                case "--depth":
+                    searchDepth = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmupIterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    measurementIterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--time":
+                    minIterationMillis = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    benchmarks.add(EngineBenchmark.valueOf(args[i]));
+            }
+        }
+        final BenchmarkRunner runner = new BenchmarkRunner(corpus != null ? corpus : BenchmarkCorpus.standardCorpus(),
+                searchDepth, warmupIterations, measurementIterations, minIterationMillis);
+        final List<BenchmarkResult> results = new ArrayList<>();
+        for (final EngineBenchmark benchmark : benchmarks.isEmpty() ? EnumSet.allOf(EngineBenchmark.class) : benchmarks) {
+            final BenchmarkResult result = runner.run(benchmark);
+            System.out.println(result);
+            results.add(result);
+        }
+        if (jsonFile != null) {
+            writeJson(jsonFile, results);
+            System.out.println("results written to " + jsonFile);
+        }
+    }
+
+    // each iteration keeps invoking the benchmark until the minimum iteration time has passed, the engine's
+    // own console logging is silenced while the benchmark runs
+    public BenchmarkResult run(final EngineBenchmark benchmark) {
+        final PrintStream console = System.out;
+        System.setOut(NULL_STREAM);
+        try {
+            for (int i = 0; i < this.warmupIterations; i++) {
+                runIteration(benchmark);
+            }
+            final double[] scores = new double[this.measurementIterations];
+            for (int i = 0; i < this.measurementIterations; i++) {
+                scores[i] = runIteration(benchmark);
+            }
+            return new BenchmarkResult(benchmark, this.searchDepth, this.corpus.getFens().size(),
+                    this.warmupIterations, scores);
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    public long getSink() {
+        return this.sink;
+    }
+
+    private double runIteration(final EngineBenchmark benchmark) {
+        final int operations = benchmark.operationsPerInvocation(this.corpus);
+        long elapsed = 0;
+        long invocations = 0;
+        while (elapsed < this.minIterationNanos || invocations == 0) {
+            final LongSupplier invocation = benchmark.prepare(this.corpus, this.searchDepth);
+            final long startTime = System.nanoTime();
+            this.sink += invocation.getAsLong();
+            elapsed += System.nanoTime() - startTime;
+            invocations++;
+        }
+        return elapsed / 1000.0 / (invocations * operations);
+    }
+
+    private static void writeJson(final Path jsonFile,
+                                  final List<BenchmarkResult> results) throws IOException {
+        final StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            json.append(results.get(i).toJson()).append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("]\n");
+        Files.write(jsonFile, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.chess.engine.benchmark;
+
+import com.chess.engine.classic.board.Board;
+import com.chess.engine.classic.board.Move;
+import com.chess.engine.classic.board.MoveTransition;
+import com.chess.engine.classic.player.ai.AlphaBetaWithMoveOrdering;
+import com.chess.engine.classic.player.ai.IterativeDeepening;
+import com.chess.engine.classic.player.ai.LazySMP;
+import com.chess.engine.classic.player.ai.MiniMax;
+import com.chess.engine.classic.player.ai.MoveStrategy;
+import com.chess.engine.classic.player.ai.StandardBoardEvaluator;
+import com.chess.engine.classic.player.ai.StockAlphaBeta;
+import com.chess.engine.classic.player.ai.TranspositionTable;
+import com.chess.pgn.FenUtilities;
+import com.chess.pgn.PGNUtilities;
+import com.chess.pgn.ParsePGNException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+// the measured operations. prepare() does the untimed setup of one invocation and returns the timed part,
+// which folds its results into a checksum so the JIT cannot discard the work
+public enum EngineBenchmark {
+
+    BOARD_CONSTRUCTION {
+        @Override
+        LongSupplier prepare(final BenchmarkCorpus corpus,
+                             final int searchDepth) {
+            return () -> {
+                long checksum = 0;
+                for (final String fen : corpus.getFens()) {
+                    checksum += FenUtilities.createGameFromFEN(fen).getZobristHash();
+                }
+                return checksum;
+            };
+        }
+
+        @Override
+        int operationsPerInvocation(final BenchmarkCorpus corpus) {
+            return corpus.getFens().size();
+        }
+    },
+    MAKE_MOVE {
+        @Override
+        LongSupplier prepare(final BenchmarkCorpus corpus,
+                             final int searchDepth) {
+            return () -> {
+                long checksum = 0;
+                for (final Board board : corpus.getBoards()) {
+                    for (final Move move : board.currentPlayer().getLegalMoves()) {
+                        final MoveTransition transition = board.currentPlayer().makeMove(move);
+                        checksum += transition.getMoveStatus().isDone() ? transition.getToBoard().getZobristHash() : 1;
+                    }
+                }
+                return checksum;
+            };
+        }
+
+        @Override
+        int operationsPerInvocation(final BenchmarkCorpus corpus) {
+            int moves = 0;
+            for (final Board board : corpus.getBoards()) {
+                moves += board.currentPlayer().getLegalMoves().size();
+            }
+            return moves;
+        }
+    },
+    EVALUATE {
+        @Override
+        LongSupplier prepare(final BenchmarkCorpus corpus,
+                             final int searchDepth) {
+            return () -> {
+                long checksum = 0;
+                for (final Board board : corpus.getBoards()) {
+                    checksum += StandardBoardEvaluator.get().evaluate(board, searchDepth);
+                }
+                return checksum;
+            };
+        }
+
+        @Override
+        int operationsPerInvocation(final BenchmarkCorpus corpus) {
+            return corpus.getBoards().size();
+        }
+    },
+    MINI_MAX {
+        @Override
+        MoveStrategy createStrategy(final int searchDepth) {
+            return new MiniMax(searchDepth);
+        }
+    },
+    STOCK_ALPHA_BETA {
+        @Override
+        MoveStrategy createStrategy(final int searchDepth) {
+            return new StockAlphaBeta(searchDepth);
+        }
+    },
+    PARALLEL_STOCK_ALPHA_BETA {
+        @Override
+        MoveStrategy createStrategy(final int searchDepth) {
+            return new StockAlphaBeta(searchDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE),
+                    Runtime.getRuntime().availableProcessors());
+        }
+    },
+    LAZY_SMP {
+        @Override
+        MoveStrategy createStrategy(final int searchDepth) {
+            return new LazySMP(searchDepth, Runtime.getRuntime().availableProcessors());
+        }
+    },
+    ALPHA_BETA_WITH_MOVE_ORDERING {
+        @Override
+        MoveStrategy createStrategy(final int searchDepth) {
+            return new AlphaBetaWithMoveOrdering(searchDepth, 0);
+        }
+    },
+    ITERATIVE_DEEPENING {
+        @Override
+        MoveStrategy createStrategy(final int searchDepth) {
+            return new IterativeDeepening(searchDepth);
+        }
+    },
+    PGN_PARSING {
+        @Override
+        LongSupplier prepare(final BenchmarkCorpus corpus,
+                             final int searchDepth) {
+            return () -> {
+                long checksum = 0;
+                for (final String game : corpus.getGames()) {
+                    checksum += replay(game).getZobristHash();
+                }
+                return checksum;
+            };
+        }
+
+        @Override
+        int operationsPerInvocation(final BenchmarkCorpus corpus) {
+            return corpus.getGames().size();
+        }
+    };
+
+    // search benchmarks run one fresh strategy per corpus position and time its execute() call
+    LongSupplier prepare(final BenchmarkCorpus corpus,
+                         final int searchDepth) {
+        final List<MoveStrategy> strategies = new ArrayList<>();
+        for (int i = 0; i < corpus.getBoards().size(); i++) {
+            strategies.add(createStrategy(searchDepth));
+        }
+        return () -> {
+            long checksum = 0;
+            for (int i = 0; i < strategies.size(); i++) {
+                final MoveStrategy strategy = strategies.get(i);
+                checksum += strategy.execute(corpus.getBoards().get(i)).hashCode() + strategy.getNumBoardsEvaluated();
+            }
+            return checksum;
+        };
+    }
+
+    int operationsPerInvocation(final BenchmarkCorpus corpus) {
+        return corpus.getBoards().size();
+    }
+
+    MoveStrategy createStrategy(final int searchDepth) {
+        throw new UnsupportedOperationException(name() + " is not a search benchmark");
+    }
+
+    // parses the move text of a game and plays it out on the classic board
+    static Board replay(final String game) {
+        try {
+            Board board = Board.createStandardBoard();
+            for (final String moveText : PGNUtilities.processMoveText(game)) {
+                final Move move = PGNUtilities.createMove(board, moveText);
+                final MoveTransition transition = board.currentPlayer().makeMove(move);
+                if (!transition.getMoveStatus().isDone()) {
+                    throw new RuntimeException("could not replay " + moveText + " in " + game);
+                }
+                board = transition.getToBoard();
+            }
+            return board;
+        } catch (final ParsePGNException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
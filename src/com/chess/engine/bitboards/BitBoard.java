@@ -508,6 +508,10 @@ public class  BitBoard {
 		ALL_FILES = Collections.unmodifiableMap(ALL_FILES);
 	}
 
+	public List<Move> getLegalMoves() {
+		return Collections.unmodifiableList(this.boardLegalMoves);
+	}
+
 	public void generateStandardLegalMoves() {
 
 		boardLegalMoves.clear();
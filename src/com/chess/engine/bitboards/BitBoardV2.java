@@ -1,28 +1,43 @@
 package com.chess.engine.bitboards;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.primitives.Longs;
-
-import java.util.List;
-
-public class BitBoardV2 {
-
-    private final long whitePawns;
-    private final long whiteKnights;
-    private final long whiteBishops;
-    private final long whiteRooks;
-    private final long whiteQueen;
-    private final long whiteKing;
-
-    private final long blackPawns;
-    private final long blackKnights;
-    private final long blackBishops;
-    private final long blackRooks;
-    private final long blackQueen;
-    private final long blackKing;
-
-    private final long whitePieces;
-    private final long blackPieces;
+import com.chess.engine.classic.Alliance;
+import com.chess.engine.classic.board.Board;
+import com.chess.engine.classic.board.BoardUtils;
+import com.chess.engine.classic.board.Zobrist;
+import com.chess.engine.classic.pieces.Bishop;
+import com.chess.engine.classic.pieces.King;
+import com.chess.engine.classic.pieces.Knight;
+import com.chess.engine.classic.pieces.Pawn;
+import com.chess.engine.classic.pieces.Piece;
+import com.chess.engine.classic.pieces.Queen;
+import com.chess.engine.classic.pieces.Rook;
+
+import static com.chess.engine.bitboards.MagicBitBoards.*;
+
+// immutable bitboard position, one long per piece type and color with bit 0 on h1 and bit 63 on a8.
+// moves are packed into ints as to | from << 6 | flags << 12, using bit indexes for the squares
+public final class BitBoardV2 {
+
+    public static final int MAX_MOVES = 256;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+
+    private static final int PAWN = 0;
+    private static final int KNIGHT = 1;
+    private static final int BISHOP = 2;
+    private static final int ROOK = 3;
+    private static final int QUEEN = 4;
+    private static final int KING = 5;
+    private static final int WHITE = 0;
+    private static final int BLACK = 6;
+    private static final int NO_SQUARE = -1;
+    private static final String PIECE_NAMES = "PNBRQK";
 
     private static final long WHITE_PAWNS_INITIAL_POSITIONS = 0x000000000000FF00L;
     private static final long WHITE_KNIGHTS_INITIAL_POSITIONS = 0x0000000000000042L;
@@ -37,38 +52,32 @@ public class BitBoardV2 {
     private static final long BLACK_QUEEN_INITIAL_POSITION = 0x1000000000000000L;
     private static final long BLACK_KING_INITIAL_POSITION = 0x0800000000000000L;
 
-    @SuppressWarnings("unused")
-    private static final long ALL_TILES = 0xFFFFFFFFFFFFFFFFL;
-    private static final List<Long> KNIGHT_LOOKUP_TABLE = calculateKnightLookupTable();
-    private final static byte[] BISHOP_DIAGONALS = { -9, -7, 7, 9 };
-
-    private BitBoardV2(final long whitePawns,
-                       final long whiteKnights,
-                       final long whiteBishops,
-                       final long whiteRooks,
-                       final long whiteQueen,
-                       final long whiteKing,
-                       final long blackPawns,
-                       final long blackKnights,
-                       final long blackBishops,
-                       final long blackRooks,
-                       final long blackQueen,
-                       final long blackKing) {
-        this.whitePawns = whitePawns;
-        this.whiteKnights = whiteKnights;
-        this.whiteBishops = whiteBishops;
-        this.whiteRooks = whiteRooks;
-        this.whiteQueen = whiteQueen;
-        this.whiteKing = whiteKing;
-        this.blackPawns = blackPawns;
-        this.blackKnights = blackKnights;
-        this.blackBishops = blackBishops;
-        this.blackRooks = blackRooks;
-        this.blackQueen = blackQueen;
-        this.blackKing = blackKing;
+    private static final long PROMOTION_RANKS = 0xFF000000000000FFL;
+    private static final long WHITE_KING_SIDE_PATH = 0x0000000000000006L;
+    private static final long WHITE_QUEEN_SIDE_PATH = 0x0000000000000070L;
+    private static final long BLACK_KING_SIDE_PATH = 0x0600000000000000L;
+    private static final long BLACK_QUEEN_SIDE_PATH = 0x7000000000000000L;
+    private static final int[] CASTLE_MASKS = computeCastleMasks();
 
+    private final long[] pieces;
+    private final long whitePieces;
+    private final long blackPieces;
+    private final long allPieces;
+    private final boolean whiteToMove;
+    private final int castlingRights;
+    private final int enPassantSquare;
+
+    private BitBoardV2(final long[] pieces,
+                       final boolean whiteToMove,
+                       final int castlingRights,
+                       final int enPassantSquare) {
+        this.pieces = pieces;
+        this.whiteToMove = whiteToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
         this.whitePieces = calculateWhitePieces();
         this.blackPieces = calculateBlackPieces();
+        this.allPieces = this.whitePieces | this.blackPieces;
     }
 
     public static BitBoardV2 standardBoard() {
@@ -76,297 +85,461 @@ public class BitBoardV2 {
     }
 
     private static BitBoardV2 createStandardBoard() {
+        return new BitBoardV2(new long[] {
+                WHITE_PAWNS_INITIAL_POSITIONS,
+                WHITE_KNIGHTS_INITIAL_POSITIONS,
+                WHITE_BISHOPS_INITIAL_POSITIONS,
+                WHITE_ROOKS_INITIAL_POSITIONS,
+                WHITE_QUEEN_INITIAL_POSITION,
+                WHITE_KING_INITIAL_POSITION,
+                BLACK_PAWNS_INITIAL_POSITIONS,
+                BLACK_KNIGHTS_INITIAL_POSITIONS,
+                BLACK_BISHOPS_INITIAL_POSITIONS,
+                BLACK_ROOKS_INITIAL_POSITIONS,
+                BLACK_QUEEN_INITIAL_POSITION,
+                BLACK_KING_INITIAL_POSITION
+        }, true, Zobrist.WHITE_KING_SIDE | Zobrist.WHITE_QUEEN_SIDE | Zobrist.BLACK_KING_SIDE | Zobrist.BLACK_QUEEN_SIDE, NO_SQUARE);
+    }
+
+    ////////// classic board adapter //////////
 
-        return new BitBoardV2(WHITE_PAWNS_INITIAL_POSITIONS,
-                              WHITE_KNIGHTS_INITIAL_POSITIONS,
-                              WHITE_BISHOPS_INITIAL_POSITIONS,
-                              WHITE_ROOKS_INITIAL_POSITIONS,
-                              WHITE_QUEEN_INITIAL_POSITION,
-                              WHITE_KING_INITIAL_POSITION,
-                              BLACK_PAWNS_INITIAL_POSITIONS,
-                              BLACK_KNIGHTS_INITIAL_POSITIONS,
-                              BLACK_BISHOPS_INITIAL_POSITIONS,
-                              BLACK_ROOKS_INITIAL_POSITIONS,
-                              BLACK_QUEEN_INITIAL_POSITION,
-                              BLACK_KING_INITIAL_POSITION);
-    }
-
-    public BitBoardV2 calculateLegalMoves() {
-        return new BitBoardV2(calculateWhitePawnLegals(),
-                              calculateWhiteKnightLegals(),
-                              calculateWhiteBishopLegals(),
-                              calculateWhiteRookLegals(),
-                              calculateWhiteQueenLegals(),
-                              calculateWhiteKingLegals(),
-                              calculateBlackPawnLegals(),
-                              calculateBlackKnightLegals(),
-                              calculateBlackBishopLegals(),
-                              calculateBlackRookLegals(),
-                              calculateBlackQueenLegals(),
-                              calculateBlackKingLegals());
-    }
-
-    ////////// ////////// HELPER METHODS BELOW ////////// //////////
-    private long calculateWhitePawnLegals() {
-        final long allPieces = this.whitePieces & this.blackPieces;
-        return (this.whitePawns << 8L & ~(allPieces)) | ((this.whitePawns & WHITE_PAWNS_INITIAL_POSITIONS) << 16L & ~(allPieces));
-    }
-
-    private long calculateBlackPawnLegals() {
-        final long allPieces = this.whitePieces & this.blackPieces;
-        return (this.whitePawns >> 8L & ~(allPieces)) | ((this.whitePawns & BLACK_PAWNS_INITIAL_POSITIONS) >> 16L & ~(allPieces));
-    }
-
-    private long calculateWhiteKnightLegals() {
-        long legals = 0L;
-        for(final byte position : bitPositions(this.whiteKnights)) {
-            legals |= KNIGHT_LOOKUP_TABLE.get(position) & ~(this.whitePieces);
+    public static BitBoardV2 fromBoard(final Board board) {
+        final long[] pieces = new long[12];
+        for (final Piece piece : board.getAllPieces()) {
+            final int index = piece.getPieceType().ordinal() + (piece.getPieceAlliance().isWhite() ? WHITE : BLACK);
+            pieces[index] |= 1L << toBitSquare(piece.getPiecePosition());
         }
-        return legals;
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        final int enPassantSquare = enPassantPawn == null ? NO_SQUARE :
+                toBitSquare(enPassantPawn.getPiecePosition() +
+                        BoardUtils.NUM_TILES_PER_ROW * enPassantPawn.getPieceAlliance().getOppositeDirection());
+        return new BitBoardV2(pieces, board.currentPlayer().getAlliance().isWhite(),
+                Zobrist.castlingRights(board), enPassantSquare);
     }
 
-    private long calculateBlackKnightLegals() {
-        long legals = 0L;
-        for(final byte position : bitPositions(this.blackKnights)) {
-            legals |= KNIGHT_LOOKUP_TABLE.get(position) & ~(this.blackPieces);
+    public Board toBoard() {
+        final Board.Builder builder = new Board.Builder();
+        for (int index = 0; index < this.pieces.length; index++) {
+            final Alliance alliance = index < BLACK ? Alliance.WHITE : Alliance.BLACK;
+            long bits = this.pieces[index];
+            while (bits != 0L) {
+                final int square = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                builder.setPiece(createPiece(index % BLACK, alliance, toClassicCoordinate(square)));
+            }
         }
-        return legals;
-    }
-
-    private long calculateWhiteBishopLegals() {
-
-        long legals = 0L;
-        for(final byte position : bitPositions(this.whiteBishops)) {
-            byte candidate = position;
-            for(final byte diagonal : BISHOP_DIAGONALS) {
-                candidate += diagonal;
-                while(candidate >= 0 && candidate < 64 && (candidate | this.whitePawns) == 0L) {
-                    legals |= candidate;
-                    if((candidate | this.blackPieces) != 0L) {
-                        break;
-                    }
-                    candidate += diagonal;
-                }
+        builder.setMoveMaker(this.whiteToMove ? Alliance.WHITE : Alliance.BLACK);
+        if (this.enPassantSquare != NO_SQUARE) {
+            final int pawnSquare = this.whiteToMove ? this.enPassantSquare - 8 : this.enPassantSquare + 8;
+            builder.setEnPassantPawn(new Pawn(this.whiteToMove ? Alliance.BLACK : Alliance.WHITE,
+                    toClassicCoordinate(pawnSquare), false));
+        }
+        return builder.build();
+    }
+
+    // classic boards count from a8 = 0 to h1 = 63, bitboards from h1 = 0 to a8 = 63
+    public static int toBitSquare(final int classicCoordinate) {
+        return 63 - classicCoordinate;
+    }
+
+    public static int toClassicCoordinate(final int bitSquare) {
+        return 63 - bitSquare;
+    }
+
+    private Piece createPiece(final int type,
+                              final Alliance alliance,
+                              final int coordinate) {
+        final boolean white = alliance.isWhite();
+        switch (type) {
+            case PAWN:
+                return new Pawn(alliance, coordinate, white ? BoardUtils.INSTANCE.SECOND_ROW[coordinate] : BoardUtils.INSTANCE.SEVENTH_ROW[coordinate]);
+            case KNIGHT:
+                return new Knight(alliance, coordinate);
+            case BISHOP:
+                return new Bishop(alliance, coordinate);
+            case ROOK:
+                return new Rook(alliance, coordinate, hasRookCastlingRight(toBitSquare(coordinate)));
+            case QUEEN:
+                return new Queen(alliance, coordinate);
+            case KING:
+                final boolean kingSide = (this.castlingRights & (white ? Zobrist.WHITE_KING_SIDE : Zobrist.BLACK_KING_SIDE)) != 0;
+                final boolean queenSide = (this.castlingRights & (white ? Zobrist.WHITE_QUEEN_SIDE : Zobrist.BLACK_QUEEN_SIDE)) != 0;
+                return new King(alliance, coordinate, kingSide || queenSide, false, kingSide, queenSide);
+            default:
+                throw new RuntimeException("no piece type " + type);
+        }
+    }
+
+    private boolean hasRookCastlingRight(final int square) {
+        switch (square) {
+            case 0:
+                return (this.castlingRights & Zobrist.WHITE_KING_SIDE) != 0;
+            case 7:
+                return (this.castlingRights & Zobrist.WHITE_QUEEN_SIDE) != 0;
+            case 56:
+                return (this.castlingRights & Zobrist.BLACK_KING_SIDE) != 0;
+            case 63:
+                return (this.castlingRights & Zobrist.BLACK_QUEEN_SIDE) != 0;
+            default:
+                return false;
+        }
+    }
+
+    ////////// move encoding //////////
+
+    public static int createMove(final int from,
+                                 final int to,
+                                 final int flags) {
+        return to | (from << 6) | (flags << 12);
+    }
+
+    public static int from(final int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int to(final int move) {
+        return move & 0x3F;
+    }
+
+    public static int flags(final int move) {
+        return move >>> 12;
+    }
+
+    public static boolean isCapture(final int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(final int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static String toString(final int move) {
+        final String text = squareName(from(move)) + squareName(to(move));
+        return isPromotion(move) ? text + PIECE_NAMES.charAt((flags(move) & 3) + KNIGHT) : text;
+    }
+
+    private static String squareName(final int square) {
+        return "" + (char) ('h' - (square & 7)) + ((square >>> 3) + 1);
+    }
+
+    ////////// queries //////////
+
+    public boolean isWhiteToMove() {
+        return this.whiteToMove;
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    public long getAllPieces() {
+        return this.allPieces;
+    }
+
+    public boolean isInCheck() {
+        final int us = this.whiteToMove ? WHITE : BLACK;
+        return attackersOf(Long.numberOfTrailingZeros(this.pieces[us + KING]), BLACK - us, this.allPieces) != 0L;
+    }
+
+    ////////// move generation //////////
+
+    // fills the buffer with the legal moves of the side to move and returns how many were written.
+    // pinned pieces are kept on the line to their king and check evasions are masked up front,
+    // so apart from en passant no move has to be played to be tested
+    public int generateLegalMoves(final int[] moves) {
+        final int us = this.whiteToMove ? WHITE : BLACK;
+        final int them = BLACK - us;
+        final long ownPieces = this.whiteToMove ? this.whitePieces : this.blackPieces;
+        final long enemyPieces = this.allPieces ^ ownPieces;
+        final int kingSquare = Long.numberOfTrailingZeros(this.pieces[us + KING]);
+        final long checkers = attackersOf(kingSquare, them, this.allPieces);
+        int count = 0;
+
+        long kingTargets = kingAttacks(kingSquare) & ~ownPieces;
+        final long occupancyWithoutKing = this.allPieces ^ (1L << kingSquare);
+        while (kingTargets != 0L) {
+            final int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (attackersOf(to, them, occupancyWithoutKing) == 0L) {
+                moves[count++] = createMove(kingSquare, to, (enemyPieces >>> to & 1L) != 0L ? CAPTURE : QUIET);
             }
         }
-        return legals;
-    }
-
-    private long calculateBlackBishopLegals() {
-        long legals = 0L;
-        for(final byte position : bitPositions(this.blackBishops)) {
-            byte candidate = position;
-            for(final byte diagonal : BISHOP_DIAGONALS) {
-                candidate += diagonal;
-                while(candidate >= 0 && candidate < 64 && (candidate | this.blackPieces) == 0L) {
-                    legals |= candidate;
-                    if((candidate | this.whitePieces) != 0L) {
-                        break;
-                    }
-                    candidate += diagonal;
+        if (Long.bitCount(checkers) > 1) {
+            return count;
+        }
+
+        final long checkMask = checkers == 0L ? ~0L : between(kingSquare, Long.numberOfTrailingZeros(checkers)) | checkers;
+        final long pinned = pinnedPieces(kingSquare, ownPieces, them);
+        final long targets = ~ownPieces & checkMask;
+
+        long knights = this.pieces[us + KNIGHT] & ~pinned;
+        while (knights != 0L) {
+            final int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(moves, count, from, knightAttacks(from) & targets, enemyPieces);
+        }
+        long diagonalSliders = this.pieces[us + BISHOP] | this.pieces[us + QUEEN];
+        while (diagonalSliders != 0L) {
+            final int from = Long.numberOfTrailingZeros(diagonalSliders);
+            diagonalSliders &= diagonalSliders - 1;
+            count = addMoves(moves, count, from,
+                    bishopAttacks(from, this.allPieces) & targets & pinMask(pinned, kingSquare, from), enemyPieces);
+        }
+        long straightSliders = this.pieces[us + ROOK] | this.pieces[us + QUEEN];
+        while (straightSliders != 0L) {
+            final int from = Long.numberOfTrailingZeros(straightSliders);
+            straightSliders &= straightSliders - 1;
+            count = addMoves(moves, count, from,
+                    rookAttacks(from, this.allPieces) & targets & pinMask(pinned, kingSquare, from), enemyPieces);
+        }
+        count = addPawnMoves(moves, count, kingSquare, checkMask, pinned, enemyPieces);
+        if (checkers == 0L) {
+            count = addCastleMoves(moves, count, kingSquare, them);
+        }
+        return count;
+    }
+
+    public BitBoardV2 makeMove(final int move) {
+        final int from = from(move);
+        final int to = to(move);
+        final int flags = flags(move);
+        final int us = this.whiteToMove ? WHITE : BLACK;
+        final int them = BLACK - us;
+        final long fromBit = 1L << from;
+        final long toBit = 1L << to;
+        final long[] newPieces = this.pieces.clone();
+        final int moved = pieceIndexAt(from, us);
+        newPieces[moved] ^= fromBit | toBit;
+        if (flags == EN_PASSANT) {
+            newPieces[them + PAWN] ^= 1L << (this.whiteToMove ? to - 8 : to + 8);
+        } else if ((flags & CAPTURE) != 0) {
+            newPieces[pieceIndexAt(to, them)] ^= toBit;
+        }
+        if ((flags & PROMOTION) != 0) {
+            newPieces[us + PAWN] ^= toBit;
+            newPieces[us + (flags & 3) + KNIGHT] |= toBit;
+        } else if (flags == KING_CASTLE) {
+            newPieces[us + ROOK] ^= (1L << (to - 1)) | (1L << (to + 1));
+        } else if (flags == QUEEN_CASTLE) {
+            newPieces[us + ROOK] ^= (1L << (to + 2)) | (1L << (to - 1));
+        }
+        return new BitBoardV2(newPieces,
+                              !this.whiteToMove,
+                              this.castlingRights & CASTLE_MASKS[from] & CASTLE_MASKS[to],
+                              flags == DOUBLE_PAWN_PUSH ? (from + to) >>> 1 : NO_SQUARE);
+    }
+
+    ////////// HELPER METHODS BELOW //////////
+
+    private int addPawnMoves(final int[] moves,
+                             int count,
+                             final int kingSquare,
+                             final long checkMask,
+                             final long pinned,
+                             final long enemyPieces) {
+        final int us = this.whiteToMove ? WHITE : BLACK;
+        final int side = this.whiteToMove ? 0 : 1;
+        final int push = this.whiteToMove ? 8 : -8;
+        final long startRank = this.whiteToMove ? WHITE_PAWNS_INITIAL_POSITIONS : BLACK_PAWNS_INITIAL_POSITIONS;
+        long pawns = this.pieces[us + PAWN];
+        while (pawns != 0L) {
+            final int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            final long allowed = checkMask & pinMask(pinned, kingSquare, from);
+            final int forward = from + push;
+            if ((this.allPieces >>> forward & 1L) == 0L) {
+                if ((allowed >>> forward & 1L) != 0L) {
+                    count = addPawnMove(moves, count, from, forward, QUIET);
+                }
+                final int jump = forward + push;
+                if ((startRank >>> from & 1L) != 0L && (this.allPieces >>> jump & 1L) == 0L && (allowed >>> jump & 1L) != 0L) {
+                    moves[count++] = createMove(from, jump, DOUBLE_PAWN_PUSH);
                 }
             }
+            long captures = pawnAttacks(side, from) & enemyPieces & allowed;
+            while (captures != 0L) {
+                final int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                count = addPawnMove(moves, count, from, to, CAPTURE);
+            }
+            if (this.enPassantSquare != NO_SQUARE && (pawnAttacks(side, from) >>> this.enPassantSquare & 1L) != 0L &&
+                isLegalEnPassant(from, kingSquare)) {
+                moves[count++] = createMove(from, this.enPassantSquare, EN_PASSANT);
+            }
         }
-        return legals;
+        return count;
     }
 
-    private long calculateWhiteRookLegals() {
-        long legals = 0L;
-        for(final byte position : bitPositions(this.whiteRooks)) {
-            legals |= position;
+    private static int addPawnMove(final int[] moves,
+                                   int count,
+                                   final int from,
+                                   final int to,
+                                   final int flags) {
+        if ((PROMOTION_RANKS >>> to & 1L) != 0L) {
+            for (int promotion = 3; promotion >= 0; promotion--) {
+                moves[count++] = createMove(from, to, PROMOTION | flags | promotion);
+            }
+        } else {
+            moves[count++] = createMove(from, to, flags);
         }
-        return legals;
+        return count;
     }
 
-    private long calculateBlackRookLegals() {
-        long legals = 0L;
-        for(final byte position : bitPositions(this.blackRooks)) {
-            legals |= position;
-        }
-        return legals;
+    // en passant removes two pawns from a rank at once, so it is tested on the resulting occupancy
+    private boolean isLegalEnPassant(final int from,
+                                     final int kingSquare) {
+        final int them = this.whiteToMove ? BLACK : WHITE;
+        final int capturedSquare = this.whiteToMove ? this.enPassantSquare - 8 : this.enPassantSquare + 8;
+        final long occupancy = (this.allPieces ^ (1L << from) ^ (1L << capturedSquare)) | (1L << this.enPassantSquare);
+        final long diagonalAttackers = this.pieces[them + BISHOP] | this.pieces[them + QUEEN];
+        final long straightAttackers = this.pieces[them + ROOK] | this.pieces[them + QUEEN];
+        return (bishopAttacks(kingSquare, occupancy) & diagonalAttackers) == 0L &&
+               (rookAttacks(kingSquare, occupancy) & straightAttackers) == 0L &&
+               (knightAttacks(kingSquare) & this.pieces[them + KNIGHT]) == 0L &&
+               (pawnAttacks(this.whiteToMove ? 0 : 1, kingSquare) & this.pieces[them + PAWN] & ~(1L << capturedSquare)) == 0L;
     }
 
-    private long calculateWhiteQueenLegals() {
-        long legals = 0L;
-        for(final byte position : bitPositions(this.whiteQueen)) {
-            legals |= position;
+    private int addCastleMoves(final int[] moves,
+                               int count,
+                               final int kingSquare,
+                               final int them) {
+        final int kingSideRight = this.whiteToMove ? Zobrist.WHITE_KING_SIDE : Zobrist.BLACK_KING_SIDE;
+        final int queenSideRight = this.whiteToMove ? Zobrist.WHITE_QUEEN_SIDE : Zobrist.BLACK_QUEEN_SIDE;
+        final long kingSidePath = this.whiteToMove ? WHITE_KING_SIDE_PATH : BLACK_KING_SIDE_PATH;
+        final long queenSidePath = this.whiteToMove ? WHITE_QUEEN_SIDE_PATH : BLACK_QUEEN_SIDE_PATH;
+        if ((this.castlingRights & kingSideRight) != 0 && (this.allPieces & kingSidePath) == 0L &&
+            attackersOf(kingSquare - 1, them, this.allPieces) == 0L &&
+            attackersOf(kingSquare - 2, them, this.allPieces) == 0L) {
+            moves[count++] = createMove(kingSquare, kingSquare - 2, KING_CASTLE);
         }
-        return legals;
+        if ((this.castlingRights & queenSideRight) != 0 && (this.allPieces & queenSidePath) == 0L &&
+            attackersOf(kingSquare + 1, them, this.allPieces) == 0L &&
+            attackersOf(kingSquare + 2, them, this.allPieces) == 0L) {
+            moves[count++] = createMove(kingSquare, kingSquare + 2, QUEEN_CASTLE);
+        }
+        return count;
     }
 
-    private long calculateBlackQueenLegals() {
-        long legals = 0L;
-        for(final byte position : bitPositions(this.blackQueen)) {
-            legals |= position;
+    private static int addMoves(final int[] moves,
+                                int count,
+                                final int from,
+                                long targets,
+                                final long enemyPieces) {
+        while (targets != 0L) {
+            final int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[count++] = createMove(from, to, (enemyPieces >>> to & 1L) != 0L ? CAPTURE : QUIET);
         }
-        return legals;
+        return count;
+    }
+
+    private static long pinMask(final long pinned,
+                                final int kingSquare,
+                                final int from) {
+        return (pinned >>> from & 1L) != 0L ? line(kingSquare, from) : ~0L;
     }
 
-    private long calculateWhiteKingLegals() {
-        long legals = 0L;
-        for(final byte position : bitPositions(this.whiteKing)) {
-            legals |= position;
+    private long pinnedPieces(final int kingSquare,
+                              final long ownPieces,
+                              final int them) {
+        long pinned = 0L;
+        long snipers = (rookAttacks(kingSquare, 0L) & (this.pieces[them + ROOK] | this.pieces[them + QUEEN])) |
+                       (bishopAttacks(kingSquare, 0L) & (this.pieces[them + BISHOP] | this.pieces[them + QUEEN]));
+        while (snipers != 0L) {
+            final int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            final long blockers = between(kingSquare, sniper) & this.allPieces;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & ownPieces;
+            }
         }
-        return legals;    }
+        return pinned;
+    }
 
-    private long calculateBlackKingLegals() {
-        long legals = 0L;
-        for(final byte position : bitPositions(this.blackKing)) {
-            legals |= position;
+    private long attackersOf(final int square,
+                             final int them,
+                             final long occupancy) {
+        return (pawnAttacks(them == BLACK ? 0 : 1, square) & this.pieces[them + PAWN]) |
+               (knightAttacks(square) & this.pieces[them + KNIGHT]) |
+               (kingAttacks(square) & this.pieces[them + KING]) |
+               (bishopAttacks(square, occupancy) & (this.pieces[them + BISHOP] | this.pieces[them + QUEEN])) |
+               (rookAttacks(square, occupancy) & (this.pieces[them + ROOK] | this.pieces[them + QUEEN]));
+    }
+
+    private int pieceIndexAt(final int square,
+                             final int side) {
+        for (int index = side; index < side + BLACK; index++) {
+            if ((this.pieces[index] >>> square & 1L) != 0L) {
+                return index;
+            }
         }
-        return legals;
+        throw new RuntimeException("no piece on square " + squareName(square));
     }
 
     private long calculateWhitePieces() {
-        return this.whitePawns | this.whiteKnights | this.whiteBishops | this.whiteRooks | this.whiteQueen | this.whiteKing;
+        long whitePieces = 0L;
+        for (int index = WHITE; index < BLACK; index++) {
+            whitePieces |= this.pieces[index];
+        }
+        return whitePieces;
     }
 
     private long calculateBlackPieces() {
-        return this.blackPawns | this.blackKnights | this.blackBishops | this.blackRooks | this.blackQueen | this.blackKing;
+        long blackPieces = 0L;
+        for (int index = BLACK; index < this.pieces.length; index++) {
+            blackPieces |= this.pieces[index];
+        }
+        return blackPieces;
+    }
+
+    private static int[] computeCastleMasks() {
+        final int[] masks = new int[64];
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = 0xF;
+        }
+        masks[3] &= ~(Zobrist.WHITE_KING_SIDE | Zobrist.WHITE_QUEEN_SIDE);
+        masks[0] &= ~Zobrist.WHITE_KING_SIDE;
+        masks[7] &= ~Zobrist.WHITE_QUEEN_SIDE;
+        masks[59] &= ~(Zobrist.BLACK_KING_SIDE | Zobrist.BLACK_QUEEN_SIDE);
+        masks[56] &= ~Zobrist.BLACK_KING_SIDE;
+        masks[63] &= ~Zobrist.BLACK_QUEEN_SIDE;
+        return masks;
     }
 
     @Override
     public String toString() {
-        return toBinaryString("BLACK KING", this.blackKing) +
-               toBinaryString("BLACK QUEEN", this.blackQueen) +
-               toBinaryString("BLACK ROOKS", this.blackRooks) +
-               toBinaryString("BLACK BISHOPS", this.blackBishops) +
-               toBinaryString("BLACK KNIGHTS", this.blackKnights) +
-               toBinaryString("BLACK PAWNS", this.blackPawns) +
-               toBinaryString("WHITE KING", this.whiteKing) +
-               toBinaryString("WHITE QUEEN", this.whiteQueen) +
-               toBinaryString("WHITE ROOKS", this.whiteRooks) +
-               toBinaryString("WHITE BISHOPS", this.whiteBishops) +
-               toBinaryString("WHITE KNIGHTS", this.whiteKnights) +
-               toBinaryString("WHITE PAWNS", this.whitePawns);
-    }
-
-    private static String toBinaryString(final String title,
-                                         final long bits) {
-        final String s = String.format("%64s", Long.toBinaryString(bits)).replace(' ', '0');
-        final StringBuilder builder = new StringBuilder(title + "\n");
-        int i = 1;
-        for(final char c : s.toCharArray()) {
-            builder.append(c);
-            if(i % 8 == 0) {
+        final StringBuilder builder = new StringBuilder();
+        for (int square = 63; square >= 0; square--) {
+            builder.append(String.format("%3s", pieceText(square)));
+            if (square % 8 == 0) {
                 builder.append("\n");
             }
-            i++;
-        }
-        return builder.toString() + "\n";
-    }
-
-    @SuppressWarnings("unused")
-    private static byte[] findBitPositions(long lTest)
-    {
-        final byte[] result = new byte[Long.bitCount(lTest)];
-        byte iBit = 0;
-        int iDelta, index;
-        index = 0;
-        while (lTest != 0L) {
-            iDelta = Long.numberOfTrailingZeros(lTest);
-            iBit += iDelta;
-            result[index] = iBit;
-            iBit++; // skip the 1 bit we just reported
-            iDelta++; // shift off the 1 bit we just reported
-            index++;
-            lTest >>= iDelta;
         }
-        return result;
+        return builder.toString();
     }
 
-    private static byte[] bitPositions(long n) {
-        final byte[] result = new byte[Long.bitCount(n)];
-        int i = 0;
-        for (byte bit = 0; n != 0L; bit++) {
-            if ((n & 1L) != 0) result[i++] = bit;
-            n >>>= 1;
+    private String pieceText(final int square) {
+        for (int index = 0; index < this.pieces.length; index++) {
+            if ((this.pieces[index] >>> square & 1L) != 0L) {
+                final String name = String.valueOf(PIECE_NAMES.charAt(index % BLACK));
+                return index < BLACK ? name : name.toLowerCase();
+            }
         }
-        return result;
-    }
-
-    @SuppressWarnings("NumericOverflow")
-    private static List<Long> calculateKnightLookupTable() {
-
-        final long[] knightLookupTable = new long[64];
-
-        knightLookupTable[0] = 1L << 10L | 1L << 17L;
-        knightLookupTable[1] = 1L << 11L | 1L << 16L | 1L << 18L;
-        knightLookupTable[2] = 1L << 8L | 1L << 12L | 1L << 17L | 1L << 19L;
-        knightLookupTable[3] = 1L << 9L | 1L << 13L | 1L << 18L | 1L << 20L;
-        knightLookupTable[4] = 1L << 10L | 1L << 14L | 1L << 19L | 1L << 21L;
-        knightLookupTable[5] = 1L << 11L | 1L << 15L | 1L << 20L | 1L << 22L;
-        knightLookupTable[6] = 1L << 12L | 1L << 21L | 1L << 23L;
-        knightLookupTable[7] = 1L << 13L | 1L << 22L;
-
-        knightLookupTable[8] = 1L << 2L | 1L << 18L | 1L << 25L;
-        knightLookupTable[9] = 1L << 3L | 1L << 19L | 1L << 24L | 1L << 26L;
-        knightLookupTable[10] = 1L | 1L << 4L | 1L << 16L | 1L << 20L | 1L << 25L | 1L << 27L;
-        knightLookupTable[11] = 1L << 1L | 1L << 5L | 1L << 17L | 1L << 21L | 1L << 26L | 1L << 28L;
-        knightLookupTable[12] = 1L << 2L | 1L << 6L | 1L << 18L | 1L << 22L | 1L << 27L | 1L << 29L;
-        knightLookupTable[13] = 1L << 3L | 1L << 7L | 1L << 19L | 1L << 23L | 1L << 28L | 1L << 30L;
-        knightLookupTable[14] = 1L << 4L | 1L << 20L | 1L << 29L | 1L << 31L;
-        knightLookupTable[15] = 1L << 5L | 1L << 21L | 1L << 30L;
-
-        knightLookupTable[16] = 1L << 1L | 1L << 10L | 1L << 26L | 1L << 33L;
-        knightLookupTable[17] = 1L | 1L << 2L | 1L << 11L | 1L << 27L | 1L << 32L | 1L << 34L;
-        knightLookupTable[18] = 1L << 1L | 1L << 3L | 1L << 8L | 1L << 12L | 1L << 24L | 1L << 28L | 1L << 33L | 1L << 35L;
-        knightLookupTable[19] = 1L << 2L | 1L << 4L | 1L << 9L | 1L << 13L | 1L << 25L | 1L << 29L | 1L << 34L | 1L << 36L;
-        knightLookupTable[20] = 1L << 3L | 1L << 5L | 1L << 10L | 1L << 14L | 1L << 26L | 1L << 30L | 1L << 35L | 1L << 37L;
-        knightLookupTable[21] = 1L << 4L | 1L << 6L | 1L << 11L | 1L << 15L | 1L << 27L | 1L << 31L | 1L << 36L | 1L << 38L;
-        knightLookupTable[22] = 1L << 5L | 1L << 7L | 1L << 12L | 1L << 28L | 1L << 37L | 1L << 39L;
-        knightLookupTable[23] = 1L << 6L | 1L << 13L | 1L << 29L | 1L << 38L;
-
-        knightLookupTable[24] = 1L << 9L | 1L << 18L | 1L << 34L | 1L << 41L;
-        knightLookupTable[25] = 1L << 8L | 1L << 10L | 1L << 19L | 1L << 35L | 1L << 40L | 1L << 42L;
-        knightLookupTable[26] = 1L << 9L | 1L << 11L | 1L << 16L | 1L << 20L | 1L << 32L | 1L << 36 | 1L << 41L | 1L << 43L;
-        knightLookupTable[27] = 1L << 10L | 1L << 12L | 1L << 17L | 1L << 21L | 1L << 33L | 1L << 37L | 1L << 42L | 1L << 44L;
-        knightLookupTable[28] = 1L << 11L | 1L << 13L | 1L << 18L | 1L << 22L | 1L << 34L | 1L << 38L | 1L << 43L | 1L << 45L;
-        knightLookupTable[29] = 1L << 12L | 1L << 14L | 1L << 19L | 1L << 23L | 1L << 35L | 1L << 39L | 1L << 44L | 1L << 46L;
-        knightLookupTable[30] = 1L << 13L | 1L << 15L | 1L << 20L | 1L << 36L | 1L << 45L | 1L << 47L;
-        knightLookupTable[31] = 1L << 14L | 1L << 21L | 1L << 37L | 1L << 46L;
-
-        knightLookupTable[32] = 1L << 17L | 1L << 26L | 1L << 42L | 1L << 49L;
-        knightLookupTable[33] = 1L << 16L | 1L << 18L | 1L << 27L | 1L << 43L | 1L << 48L | 1L << 50L;
-        knightLookupTable[34] = 1L << 17L | 1L << 19L | 1L << 24L | 1L << 28L | 1L << 40L | 1L << 44L | 1L << 49L | 1L << 51L;
-        knightLookupTable[35] = 1L << 18L | 1L << 20L | 1L << 25L | 1L << 29L | 1L << 41L | 1L << 45L | 1L << 50L | 1L << 52L;
-        knightLookupTable[36] = 1L << 19L | 1L << 21L | 1L << 26L | 1L << 30L | 1L << 42L | 1L << 46L | 1L << 51L | 1L << 53L;
-        knightLookupTable[37] = 1L << 20L | 1L << 22L | 1L << 27L | 1L << 31L | 1L << 43L | 1L << 47L | 1L << 52L | 1L << 54L;
-        knightLookupTable[38] = 1L << 21L | 1L << 23L | 1L << 28L | 1L << 44L | 1L << 53L | 1L << 55L;
-        knightLookupTable[39] = 1L << 22L | 1L << 29L | 1L << 45L | 1L << 54L;
-
-        knightLookupTable[40] = 1L << 25L | 1L << 34L | 1L << 50L | 1L << 57L;
-        knightLookupTable[41] = 1L << 24L | 1L << 26L | 1L << 35L | 1L << 51L | 1L << 56L | 1L << 58L;
-        knightLookupTable[42] = 1L << 25L | 1L << 27L | 1L << 32L | 1L << 36L | 1L << 48L | 1L << 52L | 1L << 57L | 1L << 59L;
-        knightLookupTable[43] = 1L << 26L | 1L << 28L | 1L << 33L | 1L << 37L | 1L << 49L | 1L << 53L | 1L << 58L | 1L << 60L;
-        knightLookupTable[44] = 1L << 27L | 1L << 29L | 1L << 34L | 1L << 38L | 1L << 50L | 1L << 54L | 1L << 59L | 1L << 61L;
-        knightLookupTable[45] = 1L << 28L | 1L << 30L | 1L << 35L | 1L << 39L | 1L << 51L | 1L << 55L | 1L << 60L | 1L << 62L;
-        knightLookupTable[46] = 1L << 29L | 1L << 31L | 1L << 36L | 1L << 52L | 1L << 61L | 1L << 63L;
-        knightLookupTable[47] = 1L << 30L | 1L << 37L | 1L << 53L | 1L << 62L;
-
-        knightLookupTable[48] = 1L << 33L | 1L << 42L | 1L << 58L;
-        knightLookupTable[49] = 1L << 32L | 1L << 34L | 1L << 43L | 1L << 59L;
-        knightLookupTable[50] = 1L << 33L | 1L << 35L | 1L << 40L | 1L << 44L | 1L << 56L | 1L << 60L;
-        knightLookupTable[51] = 1L << 34L | 1L << 36L | 1L << 41L | 1L << 45L | 1L << 57L | 1L << 61L;
-        knightLookupTable[52] = 1L << 35L | 1L << 37L | 1L << 42L | 1L << 46L | 1L << 58L | 1L << 62L;
-        knightLookupTable[53] = 1L << 36L | 1L << 38L | 1L << 43L | 1L << 47L | 1L << 59L | 1L << 63L;
-        knightLookupTable[54] = 1L << 37L | 1L << 39L | 1L << 44L | 1L << 60L;
-        knightLookupTable[55] = 1L << 38L | 1L << 45L | 1L << 61L;
-
-        knightLookupTable[56] = 1L << 41L | 1L << 51L;
-        knightLookupTable[57] = 1L << 40L | 1L << 42L | 1L << 52L;
-        knightLookupTable[58] = 1L << 41L | 1L << 43L | 1L << 53L;
-        knightLookupTable[59] = 1L << 42L | 1L << 44L | 1L << 47L | 1L << 54L;
-        knightLookupTable[60] = 1L << 43L | 1L << 45L | 1L << 49L | 1L << 55L;
-        knightLookupTable[61] = 1L << 44L | 1L << 46L | 1L << 50L | 1L << 55L;
-        knightLookupTable[62] = 1L << 45L | 1L << 47L | 1L << 51L;
-        knightLookupTable[63] = 1L << 46L | 1L << 53L;
-
-        return ImmutableList.copyOf(Longs.asList(knightLookupTable));
+        return "-";
     }
 
     public static void main(String[] args) {
-        BitBoardV2 v2 = standardBoard().calculateLegalMoves();
-        System.out.println(v2);
+        final BitBoardV2 board = standardBoard();
+        final int[] moves = new int[MAX_MOVES];
+        final int numMoves = board.generateLegalMoves(moves);
+        System.out.println(board);
+        for (int i = 0; i < numMoves; i++) {
+            System.out.print(toString(moves[i]) + " ");
+        }
+        System.out.println();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+package com.chess.engine.bitboards;
+
+// precomputed attack tables for BitBoardV2, bit 0 is h1 and bit 63 is a8.
+// sliding attacks are looked up by multiplying the relevant occupancy with a magic number,
+// which maps every occupancy of a square onto a slot of the table holding its attacks
+final class MagicBitBoards {
+
+    private static final int[][] ROOK_DELTAS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DELTAS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_DELTAS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int[][] KING_DELTAS = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] ROOK_MAGICS = {
+            0x0080102080004000L, 0x4140200190004003L, 0x0200108200200840L, 0x2480080010000481L,
+            0x0480040048008002L, 0x0200020090211418L, 0x4400081044210082L, 0x0100008056012700L,
+            0x08A0800090204000L, 0x008A4000A0100340L, 0x8010802000100080L, 0x0002004012000822L,
+            0xA105000800041100L, 0x0002000200080410L, 0x0104000842501C49L, 0x150A0005008E0044L,
+            0x0101828000400020L, 0x0011010020400080L, 0x0010008020008018L, 0x0C00808008001000L,
+            0x0000110008010004L, 0x4082008004000280L, 0x0080040010080102L, 0x0080020000910044L,
+            0x4002208180004000L, 0x8000400080200088L, 0x0890080020040020L, 0x0000090100201000L,
+            0x8008080100100500L, 0x4080020080800400L, 0xA004014400A20810L, 0x40A0110200004084L,
+            0x4100400181800020L, 0x0030004000402008L, 0x0C80104101002000L, 0x1A30100081800800L,
+            0x0100800400800802L, 0xC184010040400200L, 0x0219011004000208L, 0x10808002C1800100L,
+            0x2060400020828000L, 0x8010402010004009L, 0x0802004028820010L, 0x8010028008028010L,
+            0x000A0104A0120008L, 0x0100040002008080L, 0x0022000401820008L, 0x2A0000410286000CL,
+            0x4000401080002080L, 0x22510022028C4200L, 0x0000801000200080L, 0x0002002240081200L,
+            0x0040040008008280L, 0x0020800400020080L, 0x0240596810020400L, 0x0304140041008200L,
+            0x0000401200208102L, 0x8004804009205301L, 0x0606400900200011L, 0x0040642101100089L,
+            0x0D42002034881112L, 0x0001000804000201L, 0x0400081000820104L, 0x000000D400810822L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0040244102002100L, 0x0121910400808601L, 0x880408008110001CL, 0x8804041080000010L,
+            0x6002121000004014L, 0x0200822020001850L, 0x0000A08820100001L, 0x8002004044442080L,
+            0x04A8040410020224L, 0x4400212810811040L, 0x051009160C010104L, 0x0010082040502000L,
+            0x3000440308240004L, 0x40802A0110090400L, 0x00E004013C122000L, 0x5000402082082100L,
+            0x0091204004011400L, 0x2002000450020200L, 0x0808000422240210L, 0x001C040804101400L,
+            0x0208809404A00008L, 0x0022000088042210L, 0x0000800518011000L, 0x0015030E00820118L,
+            0x0602A21008481010L, 0x1A100821328A0424L, 0x0088010018840100L, 0xA008080004820042L,
+            0x0A01001101004000L, 0x0810021101010880L, 0x4004010010B8010DL, 0x5D00421210808400L,
+            0x0441282800C01040L, 0x0041084200081000L, 0x2009125001180080L, 0x0000020082180081L,
+            0x0440008208030100L, 0x8020082180410882L, 0x0008820090240083L, 0x4609040110808048L,
+            0x2004442008000516L, 0x2184841168942002L, 0x0000101808086400L, 0x00001040104A0200L,
+            0x0131811122028400L, 0x20400A0041005212L, 0x0204013401040400L, 0x1494240C00408030L,
+            0x028200B004104018L, 0x0402090101110009L, 0x0013008048082001L, 0x0000021042020009L,
+            0x9060041042020000L, 0x0341082128122002L, 0x0411109020A08200L, 0x0802140106021029L,
+            0x0CE2410810900408L, 0x0850682101101008L, 0x0201080100880400L, 0x8000001824840408L,
+            0x0000840012020202L, 0x0A400222129A2200L, 0x0200102088808880L, 0x4440300141010010L
+    };
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    private static final long[] KNIGHT_ATTACKS = computeLeaperAttacks(KNIGHT_DELTAS);
+    private static final long[] KING_ATTACKS = computeLeaperAttacks(KING_DELTAS);
+    private static final long[][] PAWN_ATTACKS = {
+            computeLeaperAttacks(new int[][] {{1, 1}, {-1, 1}}),
+            computeLeaperAttacks(new int[][] {{1, -1}, {-1, -1}})
+    };
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        ROOK_TABLE = computeSliderTable(ROOK_DELTAS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = computeSliderTable(BISHOP_DELTAS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+        computeLines(ROOK_DELTAS);
+        computeLines(BISHOP_DELTAS);
+    }
+
+    private MagicBitBoards() {
+        throw new RuntimeException("Not instantiatable!");
+    }
+
+    static long rookAttacks(final int square,
+                            final long occupancy) {
+        return ROOK_TABLE[ROOK_OFFSETS[square] +
+                (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    static long bishopAttacks(final int square,
+                              final long occupancy) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] +
+                (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    static long queenAttacks(final int square,
+                             final long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    static long knightAttacks(final int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    static long kingAttacks(final int square) {
+        return KING_ATTACKS[square];
+    }
+
+    // squares attacked by a pawn of the given side, 0 for white and 1 for black
+    static long pawnAttacks(final int side,
+                            final int square) {
+        return PAWN_ATTACKS[side][square];
+    }
+
+    // squares strictly between two squares sharing a rank, file or diagonal
+    static long between(final int from,
+                        final int to) {
+        return BETWEEN[from][to];
+    }
+
+    // the whole rank, file or diagonal running through two aligned squares
+    static long line(final int from,
+                     final int to) {
+        return LINE[from][to];
+    }
+
+    private static long[] computeSliderTable(final int[][] deltas,
+                                             final long[] masks,
+                                             final long[] magics,
+                                             final int[] shifts,
+                                             final int[] offsets) {
+        int tableSize = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantOccupancy(square, deltas);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = tableSize;
+            tableSize += 1 << Long.bitCount(masks[square]);
+        }
+        final long[] table = new long[tableSize];
+        for (int square = 0; square < 64; square++) {
+            final long mask = masks[square];
+            long occupancy = 0L;
+            do {
+                final long attacks = slidingAttacks(square, occupancy, deltas);
+                final int index = offsets[square] + (int) ((occupancy * magics[square]) >>> shifts[square]);
+                if (table[index] != 0L && table[index] != attacks) {
+                    throw new RuntimeException("bad magic for square " + square);
+                }
+                table[index] = attacks;
+                occupancy = (occupancy - mask) & mask;
+            } while (occupancy != 0L);
+        }
+        return table;
+    }
+
+    // the squares whose occupancy can change a slider's attacks, which leaves out the board edge of every ray
+    private static long relevantOccupancy(final int square,
+                                          final int[][] deltas) {
+        long mask = 0L;
+        for (final int[] delta : deltas) {
+            int file = (square & 7) + delta[0];
+            int rank = (square >>> 3) + delta[1];
+            while (isOnBoard(file + delta[0], rank + delta[1])) {
+                mask |= 1L << (rank * 8 + file);
+                file += delta[0];
+                rank += delta[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slidingAttacks(final int square,
+                                       final long occupancy,
+                                       final int[][] deltas) {
+        long attacks = 0L;
+        for (final int[] delta : deltas) {
+            attacks |= ray(square, occupancy, delta);
+        }
+        return attacks;
+    }
+
+    private static long ray(final int square,
+                            final long occupancy,
+                            final int[] delta) {
+        long attacks = 0L;
+        int file = (square & 7) + delta[0];
+        int rank = (square >>> 3) + delta[1];
+        while (isOnBoard(file, rank)) {
+            final long bit = 1L << (rank * 8 + file);
+            attacks |= bit;
+            if ((occupancy & bit) != 0L) {
+                break;
+            }
+            file += delta[0];
+            rank += delta[1];
+        }
+        return attacks;
+    }
+
+    private static void computeLines(final int[][] deltas) {
+        for (int from = 0; from < 64; from++) {
+            for (final int[] delta : deltas) {
+                final long line = ray(from, 0L, delta) | ray(from, 0L, new int[] {-delta[0], -delta[1]}) | 1L << from;
+                long between = 0L;
+                int file = (from & 7) + delta[0];
+                int rank = (from >>> 3) + delta[1];
+                while (isOnBoard(file, rank)) {
+                    final int to = rank * 8 + file;
+                    BETWEEN[from][to] = between;
+                    LINE[from][to] = line;
+                    between |= 1L << to;
+                    file += delta[0];
+                    rank += delta[1];
+                }
+            }
+        }
+    }
+
+    private static long[] computeLeaperAttacks(final int[][] deltas) {
+        final long[] attacks = new long[64];
+        for (int square = 0; square < 64; square++) {
+            for (final int[] delta : deltas) {
+                final int file = (square & 7) + delta[0];
+                final int rank = (square >>> 3) + delta[1];
+                if (isOnBoard(file, rank)) {
+                    attacks[square] |= 1L << (rank * 8 + file);
+                }
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isOnBoard(final int file,
+                                     final int rank) {
+        return file >= 0 && file < 8 && rank >= 0 && rank < 8;
+    }
+
+}
@@ -26,7 +26,7 @@ public enum Alliance {
         }
         @Override
         public boolean isPawnPromotionSquare(final int position) {
-            return BoardUtils.INSTANCE.FIRST_ROW.get(position);
+            return BoardUtils.INSTANCE.FIRST_ROW[position];
         }
         @Override
         public Player choosePlayerByAlliance(final WhitePlayer whitePlayer,
@@ -83,7 +83,7 @@ public enum Alliance {
         }
         @Override
         public boolean isPawnPromotionSquare(final int position) {
-            return BoardUtils.INSTANCE.EIGHTH_ROW.get(position);
+            return BoardUtils.INSTANCE.EIGHTH_ROW[position];
         }
         @Override
         public Player choosePlayerByAlliance(final WhitePlayer whitePlayer,
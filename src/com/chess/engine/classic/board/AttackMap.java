@@ -0,0 +1,176 @@
+package com.chess.engine.classic.board;
+
+import java.util.Arrays;
+
+import static com.chess.engine.classic.board.SearchBoard.*;
+
+// the squares one side attacks and how many of its pieces attack each, filled in a single walk over the
+// side's pieces. the same walk counts the pseudo-legal moves and the captures of a piece worth no more than
+// its victim, so the evaluator never has to generate the moves themselves. both boards fill it through
+// fill(), the classic board after copying its mailbox into the piece codes of a search board
+public final class AttackMap {
+
+    final int[] attackerCounts;
+    final int[] pieceCodes;
+    long attackedSquares;
+    int mobility;
+    int favourableCaptures;
+
+    public AttackMap() {
+        this.attackerCounts = new int[BoardUtils.NUM_TILES];
+        this.pieceCodes = new int[BoardUtils.NUM_TILES];
+    }
+
+    public boolean isAttacked(final int square) {
+        return (this.attackedSquares & (1L << square)) != 0;
+    }
+
+    public int getAttackerCount(final int square) {
+        return this.attackerCounts[square];
+    }
+
+    public long getAttackedSquares() {
+        return this.attackedSquares;
+    }
+
+    // pseudo-legal moves with underpromotions left out, as the classic board only promotes to a queen
+    public int getMobility() {
+        return this.mobility;
+    }
+
+    public int getFavourableCaptures() {
+        return this.favourableCaptures;
+    }
+
+    void clear() {
+        Arrays.fill(this.attackerCounts, 0);
+        this.attackedSquares = 0;
+        this.mobility = 0;
+        this.favourableCaptures = 0;
+    }
+
+    void addAttack(final int square) {
+        this.attackedSquares |= 1L << square;
+        this.attackerCounts[square]++;
+    }
+
+    // fills the map with everything side attacks on a mailbox of search board piece codes. pawns attack both
+    // diagonals whether or not something stands there, the other pieces attack every square they reach,
+    // their own pieces included. the en passant square counts only when side may capture onto it, and the
+    // castles side may play are counted by the board, which knows the castling rights
+    void fill(final int[] squares,
+              final int side,
+              final int enPassantSquare,
+              final int castleMoves) {
+        clear();
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            final int piece = squares[square];
+            if (piece == EMPTY || colorOf(piece) != side) {
+                continue;
+            }
+            switch (typeOf(piece)) {
+                case PAWN:
+                    addPawnAttacks(squares, side, square, enPassantSquare);
+                    break;
+                case KNIGHT:
+                    addLeaperAttacks(squares, side, square, BoardUtils.KNIGHT_TARGETS[square]);
+                    break;
+                case BISHOP:
+                    addSliderAttacks(squares, side, square, BoardUtils.BISHOP_DIRECTIONS);
+                    break;
+                case ROOK:
+                    addSliderAttacks(squares, side, square, BoardUtils.ROOK_DIRECTIONS);
+                    break;
+                case QUEEN:
+                    addSliderAttacks(squares, side, square, BoardUtils.ROOK_DIRECTIONS);
+                    addSliderAttacks(squares, side, square, BoardUtils.BISHOP_DIRECTIONS);
+                    break;
+                case KING:
+                    addLeaperAttacks(squares, side, square, BoardUtils.KING_TARGETS[square]);
+                    this.mobility += castleMoves;
+                    break;
+                default:
+                    throw new RuntimeException("bad piece code " + piece);
+            }
+        }
+    }
+
+    // pushes and promotions add to the mobility only, queen promotions counting once like on the classic board
+    private void addPawnAttacks(final int[] squares,
+                                final int side,
+                                final int square,
+                                final int enPassantSquare) {
+        final int forward = side == WHITE ? -8 : 8;
+        final int startRow = side == WHITE ? 6 : 1;
+        final int oneStep = square + forward;
+        if (squares[oneStep] == EMPTY) {
+            this.mobility++;
+            if (square >> 3 == startRow && squares[oneStep + forward] == EMPTY) {
+                this.mobility++;
+            }
+        }
+        final int file = square & 7;
+        for (int fileDelta = -1; fileDelta <= 1; fileDelta += 2) {
+            if (file + fileDelta < 0 || file + fileDelta > 7) {
+                continue;
+            }
+            final int target = oneStep + fileDelta;
+            final int victim = squares[target];
+            addAttack(target);
+            if ((victim != EMPTY && colorOf(victim) != side) || (victim == EMPTY && target == enPassantSquare)) {
+                this.mobility++;
+                this.favourableCaptures++;
+            }
+        }
+    }
+
+    private void addLeaperAttacks(final int[] squares,
+                                  final int side,
+                                  final int square,
+                                  final int[] targets) {
+        final int value = pieceValue(typeOf(squares[square]));
+        for (final int target : targets) {
+            addAttack(target);
+            addMobility(side, value, squares[target]);
+        }
+    }
+
+    private void addSliderAttacks(final int[] squares,
+                                  final int side,
+                                  final int square,
+                                  final int[] directions) {
+        final int value = pieceValue(typeOf(squares[square]));
+        for (final int direction : directions) {
+            for (final int target : BoardUtils.RAYS[square][direction]) {
+                final int victim = squares[target];
+                addAttack(target);
+                addMobility(side, value, victim);
+                if (victim != EMPTY) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void addMobility(final int side,
+                             final int attackerValue,
+                             final int victim) {
+        if (victim == EMPTY) {
+            this.mobility++;
+        } else if (colorOf(victim) != side) {
+            this.mobility++;
+            if (attackerValue <= pieceValue(typeOf(victim))) {
+                this.favourableCaptures++;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            builder.append(this.attackerCounts[square]).append((square & 7) == 7 ? "\n" : " ");
+        }
+        return builder.toString();
+    }
+}
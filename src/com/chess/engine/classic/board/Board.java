@@ -7,16 +7,17 @@ import com.chess.engine.classic.player.BlackPlayer;
 import com.chess.engine.classic.player.Player;
 import com.chess.engine.classic.player.WhitePlayer;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+// the pieces are kept both in a mailbox indexed by tile, so getPiece() is a plain array read, and in
+// one list per side for the code that walks over a player's pieces
 public final class Board {
 
-    private final Map<Integer, Piece> boardConfig;
+    private final Piece[] boardConfig;
     private final Collection<Piece> whitePieces;
     private final Collection<Piece> blackPieces;
     private final WhitePlayer whitePlayer;
@@ -24,27 +25,30 @@ public final class Board {
     private final Player currentPlayer;
     private final Pawn enPassantPawn;
     private final Move transitionMove;
+    private final long piecesHash;
+    private final long zobristHash;
 
     private static final Board STANDARD_BOARD = createStandardBoardImpl();
 
     private Board(final Builder builder) {
-        this.boardConfig = Collections.unmodifiableMap(builder.boardConfig);
-        this.whitePieces = calculateActivePieces(builder, Alliance.WHITE);
-        this.blackPieces = calculateActivePieces(builder, Alliance.BLACK);
+        this.boardConfig = builder.boardConfig.clone();
+        this.whitePieces = calculateActivePieces(this.boardConfig, Alliance.WHITE);
+        this.blackPieces = calculateActivePieces(this.boardConfig, Alliance.BLACK);
         this.enPassantPawn = builder.enPassantPawn;
-        final Collection<Move> whiteStandardMoves = calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackStandardMoves = calculateLegalMoves(this.blackPieces);
-        this.whitePlayer = new WhitePlayer(this, whiteStandardMoves, blackStandardMoves);
-        this.blackPlayer = new BlackPlayer(this, whiteStandardMoves, blackStandardMoves);
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
         this.currentPlayer = builder.nextMoveMaker.choosePlayerByAlliance(this.whitePlayer, this.blackPlayer);
         this.transitionMove = builder.transitionMove != null ? builder.transitionMove : MoveFactory.getNullMove();
+        this.piecesHash = builder.transitionMove != null ? builder.transitionMove.calculatePiecesHash() :
+                          Zobrist.piecesHash(this.whitePieces) ^ Zobrist.piecesHash(this.blackPieces);
+        this.zobristHash = this.piecesHash ^ Zobrist.stateHash(this);
     }
 
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
         for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
-            final String tileText = prettyPrint(this.boardConfig.get(i));
+            final String tileText = prettyPrint(this.boardConfig[i]);
             builder.append(String.format("%3s", tileText));
             if ((i + 1) % 8 == 0) {
                 builder.append("\n");
@@ -92,7 +96,7 @@ public final class Board {
     }
 
     public Piece getPiece(final int coordinate) {
-        return this.boardConfig.get(coordinate);
+        return this.boardConfig[coordinate];
     }
 
     public Pawn getEnPassantPawn() {
@@ -103,6 +107,39 @@ public final class Board {
         return this.transitionMove;
     }
 
+    public long getZobristHash() {
+        return this.zobristHash;
+    }
+
+    long getPiecesHash() {
+        return this.piecesHash;
+    }
+
+    // fills each side's map with everything it attacks, by the same walk SearchBoard.fillAttackMap() makes, so
+    // the evaluator reads mobility, captures and king zone attacks off the board without generating moves. the
+    // mailbox is copied into piece codes once and walked for both sides
+    public void fillAttackMaps(final AttackMap whiteAttacks,
+                               final AttackMap blackAttacks) {
+        final int[] pieceCodes = whiteAttacks.pieceCodes;
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            final Piece piece = this.boardConfig[tile];
+            pieceCodes[tile] = piece == null ? SearchBoard.EMPTY : SearchBoard.pieceCode(piece);
+        }
+        whiteAttacks.fill(pieceCodes, SearchBoard.WHITE, enPassantSquare(Alliance.WHITE),
+                this.whitePlayer.getCastleMoves().size());
+        blackAttacks.fill(pieceCodes, SearchBoard.BLACK, enPassantSquare(Alliance.BLACK),
+                this.blackPlayer.getCastleMoves().size());
+    }
+
+    // the square behind a pawn that has just jumped, when the given side may capture onto it
+    private int enPassantSquare(final Alliance alliance) {
+        if (this.enPassantPawn == null || this.enPassantPawn.getPieceAlliance() == alliance) {
+            return SearchBoard.NO_SQUARE;
+        }
+        return this.enPassantPawn.getPiecePosition() -
+               this.enPassantPawn.getPieceAlliance().getDirection() * BoardUtils.NUM_TILES_PER_ROW;
+    }
+
     public static Board createStandardBoard() {
         return STANDARD_BOARD;
     }
@@ -149,31 +186,30 @@ public final class Board {
         return builder.build();
     }
 
-    private Collection<Move> calculateLegalMoves(final Collection<Piece> pieces) {
-        return pieces.stream().flatMap(piece -> piece.calculateLegalMoves(this).stream())
-                      .collect(Collectors.toList());
-    }
-
-    private static Collection<Piece> calculateActivePieces(final Builder builder,
+    private static Collection<Piece> calculateActivePieces(final Piece[] boardConfig,
                                                            final Alliance alliance) {
-        return builder.boardConfig.values().stream()
-               .filter(piece -> piece.getPieceAlliance() == alliance)
-               .collect(Collectors.toList());
+        final List<Piece> activePieces = new ArrayList<>(16);
+        for (final Piece piece : boardConfig) {
+            if (piece != null && piece.getPieceAlliance() == alliance) {
+                activePieces.add(piece);
+            }
+        }
+        return activePieces;
     }
 
     public static class Builder {
 
-        Map<Integer, Piece> boardConfig;
+        Piece[] boardConfig;
         Alliance nextMoveMaker;
         Pawn enPassantPawn;
         Move transitionMove;
 
         public Builder() {
-            this.boardConfig = new HashMap<>(32, 1.0f);
+            this.boardConfig = new Piece[BoardUtils.NUM_TILES];
         }
 
         public Builder setPiece(final Piece piece) {
-            this.boardConfig.put(piece.getPiecePosition(), piece);
+            this.boardConfig[piece.getPiecePosition()] = piece;
             return this;
         }
 
@@ -1,5 +1,6 @@
 package com.chess.engine.classic.board;
 
+import com.chess.engine.classic.Alliance;
 import com.chess.engine.classic.pieces.King;
 import com.chess.engine.classic.pieces.Piece;
 
@@ -11,46 +12,130 @@ public enum  BoardUtils {
 
     INSTANCE;
 
-    public final List<Boolean> FIRST_COLUMN = initColumn(0);
-    public final List<Boolean> SECOND_COLUMN = initColumn(1);
-    public final List<Boolean> THIRD_COLUMN = initColumn(2);
-    public final List<Boolean> FOURTH_COLUMN = initColumn(3);
-    public final List<Boolean> FIFTH_COLUMN = initColumn(4);
-    public final List<Boolean> SIXTH_COLUMN = initColumn(5);
-    public final List<Boolean> SEVENTH_COLUMN = initColumn(6);
-    public final List<Boolean> EIGHTH_COLUMN = initColumn(7);
-    public final List<Boolean> FIRST_ROW = initRow(0);
-    public final List<Boolean> SECOND_ROW = initRow(8);
-    public final List<Boolean> THIRD_ROW = initRow(16);
-    public final List<Boolean> FOURTH_ROW = initRow(24);
-    public final List<Boolean> FIFTH_ROW = initRow(32);
-    public final List<Boolean> SIXTH_ROW = initRow(40);
-    public final List<Boolean> SEVENTH_ROW = initRow(48);
-    public final List<Boolean> EIGHTH_ROW = initRow(56);
+    public final boolean[] FIRST_COLUMN = initColumn(0);
+    public final boolean[] SECOND_COLUMN = initColumn(1);
+    public final boolean[] THIRD_COLUMN = initColumn(2);
+    public final boolean[] FOURTH_COLUMN = initColumn(3);
+    public final boolean[] FIFTH_COLUMN = initColumn(4);
+    public final boolean[] SIXTH_COLUMN = initColumn(5);
+    public final boolean[] SEVENTH_COLUMN = initColumn(6);
+    public final boolean[] EIGHTH_COLUMN = initColumn(7);
+    public final boolean[] FIRST_ROW = initRow(0);
+    public final boolean[] SECOND_ROW = initRow(8);
+    public final boolean[] THIRD_ROW = initRow(16);
+    public final boolean[] FOURTH_ROW = initRow(24);
+    public final boolean[] FIFTH_ROW = initRow(32);
+    public final boolean[] SIXTH_ROW = initRow(40);
+    public final boolean[] SEVENTH_ROW = initRow(48);
+    public final boolean[] EIGHTH_ROW = initRow(56);
     public final List<String> ALGEBRAIC_NOTATION = initializeAlgebraicNotation();
     public final Map<String, Integer> POSITION_TO_COORDINATE = initializePositionToCoordinateMap();
     public static final int START_TILE_INDEX = 0;
     public static final int NUM_TILES_PER_ROW = 8;
     public static final int NUM_TILES = 64;
 
-    private static List<Boolean> initColumn(int columnNumber) {
-        final Boolean[] column = new Boolean[NUM_TILES];
-        Arrays.fill(column, false);
+    // precomputed geometry indexed by tile, read by the piece move generators, the attack tests and SearchBoard.
+    // the eight slider directions are tile offsets with the rook ones first, and RAYS holds the tiles passed in
+    // each direction from a tile, nearest first and empty where the direction runs straight off the board
+    public static final int NO_DIRECTION = -1;
+    public static final int[] DIRECTION_OFFSETS = {-8, 8, 1, -1, -7, -9, 9, 7};
+    public static final int[] ROOK_DIRECTIONS = {0, 1, 2, 3};
+    public static final int[] BISHOP_DIRECTIONS = {4, 5, 6, 7};
+    public static final int[][][] RAYS = computeRays();
+    // the direction of the ray leading from the first tile to the second, or NO_DIRECTION when they are not aligned
+    public static final int[][] RAY_DIRECTIONS = computeRayDirections();
+    // the rays of each slider without the empty ones, in the order its moves are generated
+    public static final int[][][] ROOK_RAYS = selectRays(new int[] {-8, -1, 1, 8});
+    public static final int[][][] BISHOP_RAYS = selectRays(new int[] {-9, -7, 7, 9});
+    public static final int[][][] QUEEN_RAYS = selectRays(new int[] {-9, -8, -7, -1, 1, 7, 8, 9});
+    public static final int[][] KNIGHT_TARGETS = computeTargets(new int[] {-17, -15, -10, -6, 6, 10, 15, 17});
+    public static final int[][] KING_TARGETS = computeTargets(new int[] {-9, -8, -7, -1, 1, 7, 8, 9});
+    // the directions leading from a tile to the pawns of each colour that attack it
+    private static final int[] WHITE_PAWN_ATTACKER_DIRECTIONS = {6, 7};
+    private static final int[] BLACK_PAWN_ATTACKER_DIRECTIONS = {4, 5};
+
+    private static boolean[] initColumn(int columnNumber) {
+        final boolean[] column = new boolean[NUM_TILES];
         do {
             column[columnNumber] = true;
             columnNumber += NUM_TILES_PER_ROW;
         } while(columnNumber < NUM_TILES);
-        return Collections.unmodifiableList(Arrays.asList((column)));
+        return column;
     }
 
-    private static List<Boolean> initRow(int rowNumber) {
-        final Boolean[] row = new Boolean[NUM_TILES];
-        Arrays.fill(row, false);
+    private static boolean[] initRow(int rowNumber) {
+        final boolean[] row = new boolean[NUM_TILES];
         do {
             row[rowNumber] = true;
             rowNumber++;
         } while(rowNumber % NUM_TILES_PER_ROW != 0);
-        return Collections.unmodifiableList(Arrays.asList(row));
+        return row;
+    }
+
+    private static int[][][] computeRays() {
+        final int[][][] rays = new int[NUM_TILES][DIRECTION_OFFSETS.length][];
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            for (int direction = 0; direction < DIRECTION_OFFSETS.length; direction++) {
+                final int offset = DIRECTION_OFFSETS[direction];
+                final int[] ray = new int[NUM_TILES_PER_ROW - 1];
+                int length = 0;
+                for (int from = tile, to = tile + offset; isStep(from, to); from = to, to += offset) {
+                    ray[length++] = to;
+                }
+                rays[tile][direction] = Arrays.copyOf(ray, length);
+            }
+        }
+        return rays;
+    }
+
+    private static int[][] computeRayDirections() {
+        final int[][] rayDirections = new int[NUM_TILES][NUM_TILES];
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            Arrays.fill(rayDirections[tile], NO_DIRECTION);
+            for (int direction = 0; direction < DIRECTION_OFFSETS.length; direction++) {
+                for (final int target : RAYS[tile][direction]) {
+                    rayDirections[tile][target] = direction;
+                }
+            }
+        }
+        return rayDirections;
+    }
+
+    private static int[][][] selectRays(final int[] offsets) {
+        final int[][][] rays = new int[NUM_TILES][][];
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            final List<int[]> tileRays = new ArrayList<>();
+            for (final int offset : offsets) {
+                for (int direction = 0; direction < DIRECTION_OFFSETS.length; direction++) {
+                    if (DIRECTION_OFFSETS[direction] == offset && RAYS[tile][direction].length > 0) {
+                        tileRays.add(RAYS[tile][direction]);
+                    }
+                }
+            }
+            rays[tile] = tileRays.toArray(new int[0][]);
+        }
+        return rays;
+    }
+
+    private static int[][] computeTargets(final int[] offsets) {
+        final int[][] targets = new int[NUM_TILES][];
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            final int[] tileTargets = new int[offsets.length];
+            int numTargets = 0;
+            for (final int offset : offsets) {
+                if (isStep(tile, tile + offset)) {
+                    tileTargets[numTargets++] = tile + offset;
+                }
+            }
+            targets[tile] = Arrays.copyOf(tileTargets, numTargets);
+        }
+        return targets;
+    }
+
+    // a one step king move or knight jump stays within two columns, anything further wrapped around an edge
+    private static boolean isStep(final int from,
+                                  final int to) {
+        return isValidTileCoordinate(to) && Math.abs(getColumn(to) - getColumn(from)) <= 2;
     }
 
     private Map<String, Integer> initializePositionToCoordinateMap() {
@@ -77,6 +162,15 @@ public enum  BoardUtils {
         return coordinate >= START_TILE_INDEX && coordinate < NUM_TILES;
     }
 
+    // the column of a tile counted from the a file and its row counted from the eighth rank, both from 0
+    public static int getColumn(final int coordinate) {
+        return coordinate % NUM_TILES_PER_ROW;
+    }
+
+    public static int getRow(final int coordinate) {
+        return coordinate / NUM_TILES_PER_ROW;
+    }
+
     public int getCoordinateAtPosition(final String position) {
         return POSITION_TO_COORDINATE.get(position);
     }
@@ -89,6 +183,59 @@ public enum  BoardUtils {
         return board.whitePlayer().isInCheck() || board.blackPlayer().isInCheck();
     }
 
+    // used to check whether any piece of the attacking alliance hits the tile, looking outwards from the tile
+    // so that a check test costs a few lookups instead of a full move generation for the attacker
+    public static boolean isTileAttacked(final Board board,
+                                         final int tile,
+                                         final Alliance attacker) {
+        for (final int direction : attacker.isWhite() ? WHITE_PAWN_ATTACKER_DIRECTIONS : BLACK_PAWN_ATTACKER_DIRECTIONS) {
+            if (RAYS[tile][direction].length > 0 &&
+                isPieceAt(board, RAYS[tile][direction][0], attacker, Piece.PieceType.PAWN)) {
+                return true;
+            }
+        }
+        for (final int target : KNIGHT_TARGETS[tile]) {
+            if (isPieceAt(board, target, attacker, Piece.PieceType.KNIGHT)) {
+                return true;
+            }
+        }
+        for (final int target : KING_TARGETS[tile]) {
+            if (isPieceAt(board, target, attacker, Piece.PieceType.KING)) {
+                return true;
+            }
+        }
+        return isAttackedAlong(board, tile, attacker, ROOK_DIRECTIONS, Piece.PieceType.ROOK) ||
+               isAttackedAlong(board, tile, attacker, BISHOP_DIRECTIONS, Piece.PieceType.BISHOP);
+    }
+
+    private static boolean isAttackedAlong(final Board board,
+                                           final int tile,
+                                           final Alliance attacker,
+                                           final int[] directions,
+                                           final Piece.PieceType sliderType) {
+        for (final int direction : directions) {
+            for (final int target : RAYS[tile][direction]) {
+                final Piece piece = board.getPiece(target);
+                if (piece != null) {
+                    if (piece.getPieceAlliance() == attacker &&
+                       (piece.getPieceType() == sliderType || piece.getPieceType() == Piece.PieceType.QUEEN)) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPieceAt(final Board board,
+                                     final int tile,
+                                     final Alliance alliance,
+                                     final Piece.PieceType pieceType) {
+        final Piece piece = board.getPiece(tile);
+        return piece != null && piece.getPieceAlliance() == alliance && piece.getPieceType() == pieceType;
+    }
+
     public static boolean kingThreat(final Move move) {
         final Board board = move.getBoard();
         final MoveTransition transition = board.currentPlayer().makeMove(move);
@@ -113,6 +260,15 @@ public enum  BoardUtils {
         return Piece.PieceType.KING.getPieceValue() - movingPiece.getPieceValue();
     }
 
+    public static int mvvlva(final int move) {
+        final int movingPieceValue = SearchBoard.pieceValue(SearchBoard.movedType(move));
+        if(SearchBoard.isCapture(move)) {
+            final int attackedPieceValue = SearchBoard.pieceValue(SearchBoard.capturedType(move));
+            return (attackedPieceValue - movingPieceValue + Piece.PieceType.KING.getPieceValue()) * 100;
+        }
+        return Piece.PieceType.KING.getPieceValue() - movingPieceValue;
+    }
+
     public static List<Move> lastNMoves(final Board board, int N) {
         final List<Move> moveHistory = new ArrayList<>();
         Move currentMove = board.getTransitionMove();
@@ -100,6 +100,16 @@ public abstract class Move {
         return builder.build();
     }
 
+    // piece placement hash of the board this move leads to, updated from the board it is made on
+    long calculatePiecesHash() {
+        long piecesHash = this.board.getPiecesHash() ^ Zobrist.pieceKey(this.movedPiece) ^
+                          Zobrist.pieceKey(this.movedPiece.getPieceAlliance(), this.movedPiece.getPieceType(), this.destinationCoordinate);
+        if (isAttack()) {
+            piecesHash ^= Zobrist.pieceKey(getAttackedPiece());
+        }
+        return piecesHash;
+    }
+
     String disambiguationFile() {
         for(final Move move : this.board.currentPlayer().getLegalMoves()) {
             if(move.getDestinationCoordinate() == this.destinationCoordinate && !this.equals(move) &&
@@ -176,6 +186,13 @@ public abstract class Move {
             return builder.build();
         }
 
+        @Override
+        long calculatePiecesHash() {
+            return super.calculatePiecesHash() ^
+                   Zobrist.pieceKey(this.promotedPawn.getPieceAlliance(), this.promotedPawn.getPieceType(), this.destinationCoordinate) ^
+                   Zobrist.pieceKey(this.promotionPiece.getPieceAlliance(), this.promotionPiece.getPieceType(), this.destinationCoordinate);
+        }
+
         @Override
         public boolean isAttack() {
             return this.decoratedMove.isAttack();
@@ -395,6 +412,11 @@ public abstract class Move {
             return builder.build();
         }
         @Override
+        long calculatePiecesHash() {
+            return super.calculatePiecesHash() ^ Zobrist.pieceKey(this.castleRook) ^
+                   Zobrist.pieceKey(this.castleRook.getPieceAlliance(), this.castleRook.getPieceType(), this.castleRookDestination);
+        }
+        @Override
         public int hashCode() {
             final int prime = 31;
             int result = super.hashCode();
@@ -0,0 +1,55 @@
+package com.chess.engine.classic.board;
+
+// the packed moves of one position in a plain int array, filled by SearchBoard without creating a Move,
+// and with it a copy of the board, for every move. a list holds as many moves as any position can have
+public final class MoveList {
+
+    final int[] moves;
+    int size;
+
+    public MoveList() {
+        this.moves = new int[SearchBoard.MAX_MOVES];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int get(final int index) {
+        if (index >= this.size) {
+            throw new IndexOutOfBoundsException("no move " + index + " in a list of " + this.size);
+        }
+        return this.moves[index];
+    }
+
+    public void add(final int move) {
+        this.moves[this.size++] = move;
+    }
+
+    public boolean contains(final int move) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < this.size; i++) {
+            builder.append(i == 0 ? "" : ", ").append(SearchBoard.toString(this.moves[i]));
+        }
+        return builder.append("]").toString();
+    }
+
+}
@@ -1,8 +1,5 @@
 package com.chess.engine.classic.board;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import static com.chess.engine.classic.board.Move.*;
 
 public enum MoveUtils {
@@ -17,19 +14,4 @@ public enum MoveUtils {
                 exchangeScore(move.getBoard().getTransitionMove());
 
     }
-    public static class Line {
-        private final List<Integer> coordinates;
-        public Line() {
-            this.coordinates = new ArrayList<>();
-        }
-        public void addCoordinate(int coordinate) {
-            this.coordinates.add(coordinate);
-        }
-        public List<Integer> getLineCoordinates() {
-            return this.coordinates;
-        }
-        public boolean isEmpty() {
-            return this.coordinates.isEmpty();
-        }
-    }
 }
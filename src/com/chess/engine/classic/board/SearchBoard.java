@@ -0,0 +1,988 @@
+package com.chess.engine.classic.board;
+
+import com.chess.engine.classic.Alliance;
+import com.chess.engine.classic.pieces.King;
+import com.chess.engine.classic.pieces.Pawn;
+import com.chess.engine.classic.pieces.Piece;
+
+import java.util.Arrays;
+
+// mutable mailbox board used by the search. moves are made and unmade in place on an
+// undo stack, so searching a position allocates nothing. the immutable Board stays the
+// representation used by the gui and the pgn code, positions are copied in with fromBoard()
+public final class SearchBoard {
+
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 8;
+
+    public static final int NO_MOVE = 0;
+    public static final int MAX_MOVES = 256;
+    public static final int MAX_PLY = 128;
+
+    // moves are packed as destination | source << 6 | flags << 12 | moved type << 16 | captured type << 19,
+    // everything making and ordering a move needs without looking at the board
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+
+    static final int NO_SQUARE = -1;
+    private static final byte UNKNOWN_CHECK = -1;
+    private static final int[] CASTLE_MASKS = computeCastleMasks();
+    private static final long[][] PIECE_KEYS = computePieceKeys();
+    private static final int[] PIECE_VALUES = computePieceValues();
+
+    private static final int[][] DEFAULT_PIECE_SQUARE_BONUSES = computePieceSquareBonuses();
+
+    private final int[] squares;
+    private final int[] kingSquares;
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int castledFlags;
+    private long zobristHash;
+    private int ply;
+
+    // kept up to date by makeMove() and unmakeMove() alongside the hash, so the evaluator reads them for free
+    private final int[] materialScores;
+    private final int[] pieceSquareScores;
+    private final int[] pieceCounts;
+    private final int[][] pieceSquareBonuses;
+    private long pawnHash;
+
+    private final int[] moveHistory;
+    private final int[] castlingHistory;
+    private final int[] enPassantHistory;
+    private final int[] castledHistory;
+    private final long[] hashHistory;
+    private final int[] scratchMoves;
+    private final byte[] checkStates;
+    private final int[] exchangeGains;
+
+    private SearchBoard(final int[][] pieceSquareBonuses) {
+        this.squares = new int[BoardUtils.NUM_TILES];
+        this.kingSquares = new int[2];
+        this.materialScores = new int[2];
+        this.pieceSquareScores = new int[2];
+        this.pieceCounts = new int[16];
+        this.pieceSquareBonuses = pieceSquareBonuses;
+        this.enPassantSquare = NO_SQUARE;
+        this.moveHistory = new int[MAX_PLY];
+        this.castlingHistory = new int[MAX_PLY];
+        this.enPassantHistory = new int[MAX_PLY];
+        this.castledHistory = new int[MAX_PLY];
+        this.hashHistory = new long[MAX_PLY];
+        this.scratchMoves = new int[MAX_MOVES];
+        this.checkStates = new byte[MAX_PLY + 1];
+        Arrays.fill(this.checkStates, UNKNOWN_CHECK);
+        this.exchangeGains = new int[BoardUtils.NUM_TILES / 2];
+    }
+
+    // keeps the piece-square score with the tables in Alliance
+    public static SearchBoard fromBoard(final Board board) {
+        return fromBoard(board, DEFAULT_PIECE_SQUARE_BONUSES);
+    }
+
+    // keeps the piece-square score with the given tables, 16 piece codes by 64 squares. each board holds on
+    // to its own tables, so the tables of other boards, or other weights, never change under a running search
+    public static SearchBoard fromBoard(final Board board,
+                                        final int[][] pieceSquareBonuses) {
+        checkPieceSquareBonuses(pieceSquareBonuses);
+        final SearchBoard searchBoard = new SearchBoard(pieceSquareBonuses);
+        for (final Piece piece : board.getAllPieces()) {
+            final int code = pieceCode(piece);
+            searchBoard.squares[piece.getPiecePosition()] = code;
+            searchBoard.addPieceState(code, piece.getPiecePosition());
+            if (piece.getPieceType() == Piece.PieceType.KING) {
+                searchBoard.kingSquares[sideIndex(colorOf(code))] = piece.getPiecePosition();
+                if (((King) piece).isCastled()) {
+                    searchBoard.castledFlags |= 1 << sideIndex(colorOf(code));
+                }
+            }
+        }
+        searchBoard.sideToMove = board.currentPlayer().getAlliance().isWhite() ? WHITE : BLACK;
+        searchBoard.castlingRights = Zobrist.castlingRights(board);
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if (enPassantPawn != null) {
+            searchBoard.enPassantSquare = enPassantPawn.getPiecePosition() +
+                    BoardUtils.NUM_TILES_PER_ROW * enPassantPawn.getPieceAlliance().getOppositeDirection();
+        }
+        searchBoard.zobristHash = searchBoard.calculateHash();
+        return searchBoard;
+    }
+
+    ////////// move encoding //////////
+
+    public static int createMove(final int from,
+                                 final int to,
+                                 final int flags,
+                                 final int movedType,
+                                 final int capturedType) {
+        return to | (from << 6) | (flags << 12) | (movedType << 16) | (capturedType << 19);
+    }
+
+    public static int from(final int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int to(final int move) {
+        return move & 0x3F;
+    }
+
+    public static int flags(final int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static int movedType(final int move) {
+        return (move >>> 16) & 7;
+    }
+
+    // the type of the piece taken, a pawn for en passant and EMPTY for a move that captures nothing
+    public static int capturedType(final int move) {
+        return (move >>> 19) & 7;
+    }
+
+    public static boolean isCapture(final int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(final int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(final int move) {
+        final int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    public static int promotionType(final int move) {
+        return (flags(move) & 3) + KNIGHT;
+    }
+
+    public static int typeOf(final int piece) {
+        return piece & 7;
+    }
+
+    public static int colorOf(final int piece) {
+        return piece & BLACK;
+    }
+
+    public static int sideIndex(final int side) {
+        return side >> 3;
+    }
+
+    public static int opposite(final int side) {
+        return side ^ BLACK;
+    }
+
+    public static int pieceValue(final int type) {
+        return PIECE_VALUES[type];
+    }
+
+    public static String toString(final int move) {
+        if (move == NO_MOVE) {
+            return "Null Move";
+        }
+        final String text = BoardUtils.INSTANCE.getPositionAtCoordinate(from(move)) + "-" +
+                            BoardUtils.INSTANCE.getPositionAtCoordinate(to(move));
+        return isPromotion(move) ? text + "=" + Piece.PieceType.values()[promotionType(move) - 1] : text;
+    }
+
+    ////////// position queries //////////
+
+    public int getPiece(final int square) {
+        return this.squares[square];
+    }
+
+    public int getSideToMove() {
+        return this.sideToMove;
+    }
+
+    public long getZobristHash() {
+        return this.zobristHash;
+    }
+
+    // the zobrist hash of the pawns alone, for caching pawn structure scores. a board without pawns hashes to 0
+    public long getPawnHash() {
+        return this.pawnHash;
+    }
+
+    public int getPly() {
+        return this.ply;
+    }
+
+    public int getKingSquare(final int side) {
+        return this.kingSquares[sideIndex(side)];
+    }
+
+    // whether the side has anything besides its king and pawns, the endings where zugzwang is common
+    public boolean hasNonPawnMaterial(final int side) {
+        return this.pieceCounts[side | KNIGHT] + this.pieceCounts[side | BISHOP] +
+               this.pieceCounts[side | ROOK] + this.pieceCounts[side | QUEEN] > 0;
+    }
+
+    // the summed piece values of the side, its king included
+    public int getMaterial(final int side) {
+        return this.materialScores[sideIndex(side)];
+    }
+
+    // the summed location bonuses of the side's pieces, from the tables the board was created with
+    public int getPieceSquareScore(final int side) {
+        return this.pieceSquareScores[sideIndex(side)];
+    }
+
+    public boolean usesPieceSquareBonuses(final int[][] pieceSquareBonuses) {
+        return this.pieceSquareBonuses == pieceSquareBonuses;
+    }
+
+    // scores the side's pieces with other tables than the ones this board keeps its score with
+    public int calculatePieceSquareScore(final int side,
+                                         final int[][] pieceSquareBonuses) {
+        int score = 0;
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            final int piece = this.squares[square];
+            if (piece != EMPTY && colorOf(piece) == side) {
+                score += pieceSquareBonuses[piece][square];
+            }
+        }
+        return score;
+    }
+
+    public int getPieceCount(final int side,
+                             final int type) {
+        return this.pieceCounts[side | type];
+    }
+
+    public boolean isCastled(final int side) {
+        return (this.castledFlags & (1 << sideIndex(side))) != 0;
+    }
+
+    // the answer is kept per ply, since legality tests and the search both ask for it at every node
+    public boolean isInCheck() {
+        if (this.checkStates[this.ply] == UNKNOWN_CHECK) {
+            this.checkStates[this.ply] = (byte) (isInCheck(this.sideToMove) ? 1 : 0);
+        }
+        return this.checkStates[this.ply] == 1;
+    }
+
+    public boolean isInCheck(final int side) {
+        return isSquareAttacked(this.kingSquares[sideIndex(side)], opposite(side));
+    }
+
+    // returns the move made the given number of plies ago, or NO_MOVE past the start of the search
+    public int lastMove(final int pliesAgo) {
+        final int index = this.ply - 1 - pliesAgo;
+        return index >= 0 ? this.moveHistory[index] : NO_MOVE;
+    }
+
+    public boolean isSquareAttacked(final int square,
+                                    final int bySide) {
+        final int file = square & 7;
+        if (bySide == WHITE) {
+            if (file < 7 && square + 9 < BoardUtils.NUM_TILES && this.squares[square + 9] == (WHITE | PAWN)) {
+                return true;
+            }
+            if (file > 0 && square + 7 < BoardUtils.NUM_TILES && this.squares[square + 7] == (WHITE | PAWN)) {
+                return true;
+            }
+        } else {
+            if (file > 0 && square - 9 >= 0 && this.squares[square - 9] == (BLACK | PAWN)) {
+                return true;
+            }
+            if (file < 7 && square - 7 >= 0 && this.squares[square - 7] == (BLACK | PAWN)) {
+                return true;
+            }
+        }
+        for (final int target : BoardUtils.KNIGHT_TARGETS[square]) {
+            if (this.squares[target] == (bySide | KNIGHT)) {
+                return true;
+            }
+        }
+        for (final int target : BoardUtils.KING_TARGETS[square]) {
+            if (this.squares[target] == (bySide | KING)) {
+                return true;
+            }
+        }
+        return isAttackedAlong(square, bySide, BoardUtils.ROOK_DIRECTIONS, ROOK) ||
+               isAttackedAlong(square, bySide, BoardUtils.BISHOP_DIRECTIONS, BISHOP);
+    }
+
+    private boolean isAttackedAlong(final int square,
+                                    final int bySide,
+                                    final int[] directions,
+                                    final int sliderType) {
+        for (final int direction : directions) {
+            for (final int target : BoardUtils.RAYS[square][direction]) {
+                final int piece = this.squares[target];
+                if (piece != EMPTY) {
+                    if (colorOf(piece) == bySide && (typeOf(piece) == sliderType || typeOf(piece) == QUEEN)) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    ////////// static exchange evaluation //////////
+
+    // the material the moving side wins on the destination square once both sides have taken turns recapturing
+    // there with their least valuable attacker, each free to stop when going on would cost it. pieces lined up
+    // behind an attacker join in after it has captured, since every square given up is dropped from the rays
+    public int staticExchange(final int move) {
+        final int from = from(move);
+        final int to = to(move);
+        final int flags = flags(move);
+        final int[] gains = this.exchangeGains;
+        long removed = 1L << from;
+        int attackerValue = pieceValue(isPromotion(move) ? promotionType(move) : typeOf(this.squares[from]));
+        if (flags == EN_PASSANT) {
+            removed |= 1L << (to + (colorOf(this.squares[from]) == WHITE ? 8 : -8));
+            gains[0] = pieceValue(PAWN);
+        } else {
+            gains[0] = pieceValue(typeOf(this.squares[to]));
+        }
+        if (isPromotion(move)) {
+            gains[0] += attackerValue - pieceValue(PAWN);
+        }
+        int side = opposite(colorOf(this.squares[from]));
+        int depth = 0;
+        while (depth < gains.length - 1) {
+            final int attacker = leastValuableAttacker(to, side, removed);
+            if (attacker == NO_SQUARE) {
+                break;
+            }
+            depth++;
+            gains[depth] = attackerValue - gains[depth - 1];
+            // the side to capture is behind whether it does or not, so the capture is left out
+            if (Math.max(-gains[depth - 1], gains[depth]) < 0) {
+                depth--;
+                break;
+            }
+            attackerValue = pieceValue(typeOf(this.squares[attacker]));
+            removed |= 1L << attacker;
+            side = opposite(side);
+        }
+        for (; depth > 0; depth--) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+        }
+        return gains[0];
+    }
+
+    // the square of the cheapest piece of the given side attacking the square, ignoring the removed squares
+    private int leastValuableAttacker(final int square,
+                                      final int bySide,
+                                      final long removed) {
+        final int file = square & 7;
+        final int pawn = bySide | PAWN;
+        final int rightPawn = bySide == WHITE ? square + 9 : square - 7;
+        final int leftPawn = bySide == WHITE ? square + 7 : square - 9;
+        if (file < 7 && rightPawn >= 0 && rightPawn < BoardUtils.NUM_TILES &&
+            this.squares[rightPawn] == pawn && (removed & (1L << rightPawn)) == 0) {
+            return rightPawn;
+        }
+        if (file > 0 && leftPawn >= 0 && leftPawn < BoardUtils.NUM_TILES &&
+            this.squares[leftPawn] == pawn && (removed & (1L << leftPawn)) == 0) {
+            return leftPawn;
+        }
+        for (final int target : BoardUtils.KNIGHT_TARGETS[square]) {
+            if (this.squares[target] == (bySide | KNIGHT) && (removed & (1L << target)) == 0) {
+                return target;
+            }
+        }
+        int attacker = NO_SQUARE;
+        int attackerType = KING;
+        for (int direction = 0; direction < BoardUtils.DIRECTION_OFFSETS.length; direction++) {
+            final int sliderType = direction < BoardUtils.BISHOP_DIRECTIONS[0] ? ROOK : BISHOP;
+            for (final int target : BoardUtils.RAYS[square][direction]) {
+                final int piece = this.squares[target];
+                if (piece == EMPTY || (removed & (1L << target)) != 0) {
+                    continue;
+                }
+                final int type = typeOf(piece);
+                if (colorOf(piece) == bySide && (type == sliderType || type == QUEEN) && type < attackerType) {
+                    attacker = target;
+                    attackerType = type;
+                }
+                break;
+            }
+        }
+        if (attacker != NO_SQUARE) {
+            return attacker;
+        }
+        for (final int target : BoardUtils.KING_TARGETS[square]) {
+            if (this.squares[target] == (bySide | KING) && (removed & (1L << target)) == 0) {
+                return target;
+            }
+        }
+        return NO_SQUARE;
+    }
+
+    ////////// move generation //////////
+
+    // generates the moves of the side to move that do not leave its own king in check
+    public int generateLegalMoves(final int[] moves) {
+        final int numPseudoLegal = generatePseudoLegalMoves(this.sideToMove, moves);
+        int numLegal = 0;
+        for (int i = 0; i < numPseudoLegal; i++) {
+            final int move = moves[i];
+            if (isLegal(move)) {
+                moves[numLegal++] = move;
+            }
+        }
+        return numLegal;
+    }
+
+    public boolean hasLegalMove() {
+        final int numPseudoLegal = generatePseudoLegalMoves(this.sideToMove, this.scratchMoves);
+        for (int i = 0; i < numPseudoLegal; i++) {
+            if (isLegal(this.scratchMoves[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // tests whether a pseudo-legal move of the side to move keeps its own king safe without making it.
+    // out of check only king moves and pinned pieces need a look, en passant and evasions are made and unmade
+    public boolean isLegal(final int move) {
+        final int side = this.sideToMove;
+        final int from = from(move);
+        final int to = to(move);
+        final int flags = flags(move);
+        final int kingSquare = this.kingSquares[sideIndex(side)];
+        if (from == kingSquare) {
+            if (flags == KING_CASTLE || flags == QUEEN_CASTLE) {
+                return true;
+            }
+            this.squares[from] = EMPTY;
+            final boolean isAttacked = isSquareAttacked(to, opposite(side));
+            this.squares[from] = side | KING;
+            return !isAttacked;
+        }
+        if (flags == EN_PASSANT || isInCheck()) {
+            makeMove(move);
+            final boolean isLegal = !isInCheck(side);
+            unmakeMove();
+            return isLegal;
+        }
+        final int direction = BoardUtils.RAY_DIRECTIONS[kingSquare][from];
+        return direction == BoardUtils.NO_DIRECTION || BoardUtils.RAY_DIRECTIONS[kingSquare][to] == direction || !isPinned(from, kingSquare, direction);
+    }
+
+    // whether the piece on from is the only thing standing between its king and an enemy slider on the given ray
+    private boolean isPinned(final int from,
+                             final int kingSquare,
+                             final int direction) {
+        final int sliderType = direction < BoardUtils.BISHOP_DIRECTIONS[0] ? ROOK : BISHOP;
+        boolean isBehindPiece = false;
+        for (final int square : BoardUtils.RAYS[kingSquare][direction]) {
+            final int piece = this.squares[square];
+            if (square == from) {
+                isBehindPiece = true;
+            } else if (piece != EMPTY) {
+                return isBehindPiece && colorOf(piece) != this.sideToMove &&
+                       (typeOf(piece) == sliderType || typeOf(piece) == QUEEN);
+            }
+        }
+        return false;
+    }
+
+    public boolean isEndGame() {
+        return !hasLegalMove();
+    }
+
+    // generates every move of the given side without checking whether its king is left in check
+    public int generatePseudoLegalMoves(final int side,
+                                        final int[] moves) {
+        return generatePseudoLegalMoves(side, moves, false);
+    }
+
+    // fills the list with the legal moves of the side to move
+    public void generateLegalMoves(final MoveList moveList) {
+        final int numMoves = generatePseudoLegalMoves(this.sideToMove, moveList.moves);
+        moveList.size = 0;
+        for (int i = 0; i < numMoves; i++) {
+            if (isLegal(moveList.moves[i])) {
+                moveList.moves[moveList.size++] = moveList.moves[i];
+            }
+        }
+    }
+
+    // generates the captures and queen promotions of the given side, the moves a quiescence search looks at.
+    // underpromotions are left out, capturing or not
+    public int generateCaptures(final int side,
+                                final int[] moves) {
+        return generatePseudoLegalMoves(side, moves, true);
+    }
+
+    private int generatePseudoLegalMoves(final int side,
+                                         final int[] moves,
+                                         final boolean capturesOnly) {
+        int count = 0;
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            final int piece = this.squares[square];
+            if (piece != EMPTY && colorOf(piece) == side) {
+                count = generatePieceMoves(side, square, capturesOnly, moves, count);
+            }
+        }
+        return count;
+    }
+
+    // whether a move taken from elsewhere, such as a hash or killer move, could be played here by the side to
+    // move, leaving only the king safety test of isLegal() to do
+    public boolean isPseudoLegal(final int move) {
+        final int from = from(move);
+        final int piece = this.squares[from];
+        if (move == NO_MOVE || piece == EMPTY || colorOf(piece) != this.sideToMove) {
+            return false;
+        }
+        final int numMoves = generatePieceMoves(this.sideToMove, from, false, this.scratchMoves, 0);
+        for (int i = 0; i < numMoves; i++) {
+            if (this.scratchMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int generatePieceMoves(final int side,
+                                   final int square,
+                                   final boolean capturesOnly,
+                                   final int[] moves,
+                                   int count) {
+        final int piece = this.squares[square];
+        switch (typeOf(piece)) {
+            case PAWN:
+                return generatePawnMoves(side, square, capturesOnly, moves, count);
+            case KNIGHT:
+                return generateLeaperMoves(side, square, BoardUtils.KNIGHT_TARGETS[square], capturesOnly, moves, count);
+            case BISHOP:
+                return generateSliderMoves(side, square, BoardUtils.BISHOP_DIRECTIONS, capturesOnly, moves, count);
+            case ROOK:
+                return generateSliderMoves(side, square, BoardUtils.ROOK_DIRECTIONS, capturesOnly, moves, count);
+            case QUEEN:
+                count = generateSliderMoves(side, square, BoardUtils.ROOK_DIRECTIONS, capturesOnly, moves, count);
+                return generateSliderMoves(side, square, BoardUtils.BISHOP_DIRECTIONS, capturesOnly, moves, count);
+            case KING:
+                count = generateLeaperMoves(side, square, BoardUtils.KING_TARGETS[square], capturesOnly, moves, count);
+                return capturesOnly ? count : generateCastleMoves(side, square, moves, count);
+            default:
+                throw new RuntimeException("bad piece code " + piece);
+        }
+    }
+
+    private int generatePawnMoves(final int side,
+                                  final int square,
+                                  final boolean capturesOnly,
+                                  final int[] moves,
+                                  int count) {
+        final int forward = side == WHITE ? -8 : 8;
+        final int startRow = side == WHITE ? 6 : 1;
+        final int promotionRow = side == WHITE ? 0 : 7;
+        final int oneStep = square + forward;
+        if (this.squares[oneStep] == EMPTY) {
+            if (oneStep >> 3 == promotionRow) {
+                count = addPromotions(square, oneStep, 0, EMPTY, capturesOnly, moves, count);
+            } else if (!capturesOnly) {
+                moves[count++] = createMove(square, oneStep, QUIET, PAWN, EMPTY);
+                final int twoSteps = oneStep + forward;
+                if (square >> 3 == startRow && this.squares[twoSteps] == EMPTY) {
+                    moves[count++] = createMove(square, twoSteps, DOUBLE_PAWN_PUSH, PAWN, EMPTY);
+                }
+            }
+        }
+        final int file = square & 7;
+        for (int fileDelta = -1; fileDelta <= 1; fileDelta += 2) {
+            if (file + fileDelta < 0 || file + fileDelta > 7) {
+                continue;
+            }
+            final int target = oneStep + fileDelta;
+            final int victim = this.squares[target];
+            if (victim != EMPTY && colorOf(victim) != side) {
+                if (target >> 3 == promotionRow) {
+                    count = addPromotions(square, target, CAPTURE, typeOf(victim), capturesOnly, moves, count);
+                } else {
+                    moves[count++] = createMove(square, target, CAPTURE, PAWN, typeOf(victim));
+                }
+            } else if (target == this.enPassantSquare && side == this.sideToMove) {
+                moves[count++] = createMove(square, target, EN_PASSANT, PAWN, PAWN);
+            }
+        }
+        return count;
+    }
+
+    private static int addPromotions(final int from,
+                                     final int to,
+                                     final int captureFlag,
+                                     final int capturedType,
+                                     final boolean queenOnly,
+                                     final int[] moves,
+                                     int count) {
+        for (int promotion = 3; promotion >= (queenOnly ? 3 : 0); promotion--) {
+            moves[count++] = createMove(from, to, PROMOTION | captureFlag | promotion, PAWN, capturedType);
+        }
+        return count;
+    }
+
+    private int generateLeaperMoves(final int side,
+                                    final int square,
+                                    final int[] targets,
+                                    final boolean capturesOnly,
+                                    final int[] moves,
+                                    int count) {
+        final int movedType = typeOf(this.squares[square]);
+        for (final int target : targets) {
+            final int victim = this.squares[target];
+            if (victim == EMPTY) {
+                if (!capturesOnly) {
+                    moves[count++] = createMove(square, target, QUIET, movedType, EMPTY);
+                }
+            } else if (colorOf(victim) != side) {
+                moves[count++] = createMove(square, target, CAPTURE, movedType, typeOf(victim));
+            }
+        }
+        return count;
+    }
+
+    private int generateSliderMoves(final int side,
+                                    final int square,
+                                    final int[] directions,
+                                    final boolean capturesOnly,
+                                    final int[] moves,
+                                    int count) {
+        final int movedType = typeOf(this.squares[square]);
+        for (final int direction : directions) {
+            for (final int target : BoardUtils.RAYS[square][direction]) {
+                final int victim = this.squares[target];
+                if (victim == EMPTY) {
+                    if (!capturesOnly) {
+                        moves[count++] = createMove(square, target, QUIET, movedType, EMPTY);
+                    }
+                } else {
+                    if (colorOf(victim) != side) {
+                        moves[count++] = createMove(square, target, CAPTURE, movedType, typeOf(victim));
+                    }
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int generateCastleMoves(final int side,
+                                    final int square,
+                                    final int[] moves,
+                                    int count) {
+        final int kingSide = side == WHITE ? Zobrist.WHITE_KING_SIDE : Zobrist.BLACK_KING_SIDE;
+        final int queenSide = side == WHITE ? Zobrist.WHITE_QUEEN_SIDE : Zobrist.BLACK_QUEEN_SIDE;
+        if ((this.castlingRights & (kingSide | queenSide)) == 0 || isSquareAttacked(square, opposite(side))) {
+            return count;
+        }
+        if ((this.castlingRights & kingSide) != 0 &&
+            this.squares[square + 1] == EMPTY && this.squares[square + 2] == EMPTY &&
+            !isSquareAttacked(square + 1, opposite(side)) && !isSquareAttacked(square + 2, opposite(side))) {
+            moves[count++] = createMove(square, square + 2, KING_CASTLE, KING, EMPTY);
+        }
+        if ((this.castlingRights & queenSide) != 0 &&
+            this.squares[square - 1] == EMPTY && this.squares[square - 2] == EMPTY && this.squares[square - 3] == EMPTY &&
+            !isSquareAttacked(square - 1, opposite(side)) && !isSquareAttacked(square - 2, opposite(side))) {
+            moves[count++] = createMove(square, square - 2, QUEEN_CASTLE, KING, EMPTY);
+        }
+        return count;
+    }
+
+    ////////// attack maps //////////
+
+    // fills the map with everything the given side attacks, see AttackMap.fill()
+    public void fillAttackMap(final int side,
+                              final AttackMap attackMap) {
+        final int castleMoves = generateCastleMoves(side, getKingSquare(side), this.scratchMoves, 0);
+        attackMap.fill(this.squares, side, side == this.sideToMove ? this.enPassantSquare : NO_SQUARE, castleMoves);
+    }
+
+    ////////// make / unmake //////////
+
+    public void makeMove(final int move) {
+        final int from = from(move);
+        final int to = to(move);
+        final int flags = flags(move);
+        final int side = this.sideToMove;
+        final int piece = this.squares[from];
+        final int capturedSquare = flags == EN_PASSANT ? to + (side == WHITE ? 8 : -8) : to;
+        final int captured = capturedType(move) == EMPTY ? EMPTY : opposite(side) | capturedType(move);
+
+        this.moveHistory[this.ply] = move;
+        this.castlingHistory[this.ply] = this.castlingRights;
+        this.enPassantHistory[this.ply] = this.enPassantSquare;
+        this.castledHistory[this.ply] = this.castledFlags;
+        this.hashHistory[this.ply] = this.zobristHash;
+        this.ply++;
+        this.checkStates[this.ply] = UNKNOWN_CHECK;
+
+        long hash = this.zobristHash;
+        if (captured != EMPTY) {
+            this.squares[capturedSquare] = EMPTY;
+            hash ^= PIECE_KEYS[captured][capturedSquare];
+            removePieceState(captured, capturedSquare);
+        }
+        final int placed = (flags & PROMOTION) != 0 ? side | promotionType(move) : piece;
+        this.squares[from] = EMPTY;
+        this.squares[to] = placed;
+        hash ^= PIECE_KEYS[piece][from] ^ PIECE_KEYS[placed][to];
+        removePieceState(piece, from);
+        addPieceState(placed, to);
+        if (typeOf(piece) == KING) {
+            this.kingSquares[sideIndex(side)] = to;
+        }
+        if (flags == KING_CASTLE || flags == QUEEN_CASTLE) {
+            final int rookFrom = flags == KING_CASTLE ? to + 1 : to - 2;
+            final int rookTo = flags == KING_CASTLE ? to - 1 : to + 1;
+            final int rook = this.squares[rookFrom];
+            this.squares[rookFrom] = EMPTY;
+            this.squares[rookTo] = rook;
+            hash ^= PIECE_KEYS[rook][rookFrom] ^ PIECE_KEYS[rook][rookTo];
+            removePieceState(rook, rookFrom);
+            addPieceState(rook, rookTo);
+            this.castledFlags |= 1 << sideIndex(side);
+        }
+        final int castlingRights = this.castlingRights & CASTLE_MASKS[from] & CASTLE_MASKS[to];
+        hash ^= Zobrist.castleKey(this.castlingRights) ^ Zobrist.castleKey(castlingRights);
+        this.castlingRights = castlingRights;
+        if (this.enPassantSquare != NO_SQUARE) {
+            hash ^= Zobrist.enPassantKey(this.enPassantSquare & 7);
+        }
+        if (flags == DOUBLE_PAWN_PUSH) {
+            this.enPassantSquare = (from + to) >> 1;
+            hash ^= Zobrist.enPassantKey(this.enPassantSquare & 7);
+        } else {
+            this.enPassantSquare = NO_SQUARE;
+        }
+        this.sideToMove = opposite(side);
+        this.zobristHash = hash ^ Zobrist.blackToMoveKey();
+    }
+
+    public void unmakeMove() {
+        this.ply--;
+        final int move = this.moveHistory[this.ply];
+        final int from = from(move);
+        final int to = to(move);
+        final int flags = flags(move);
+        final int side = opposite(this.sideToMove);
+        final int placed = this.squares[to];
+        final int piece = (flags & PROMOTION) != 0 ? side | PAWN : placed;
+        this.squares[to] = EMPTY;
+        this.squares[from] = piece;
+        removePieceState(placed, to);
+        addPieceState(piece, from);
+        if (capturedType(move) != EMPTY) {
+            final int captured = opposite(side) | capturedType(move);
+            final int capturedSquare = flags == EN_PASSANT ? to + (side == WHITE ? 8 : -8) : to;
+            this.squares[capturedSquare] = captured;
+            addPieceState(captured, capturedSquare);
+        }
+        if (typeOf(piece) == KING) {
+            this.kingSquares[sideIndex(side)] = from;
+        }
+        if (flags == KING_CASTLE || flags == QUEEN_CASTLE) {
+            final int rookFrom = flags == KING_CASTLE ? to + 1 : to - 2;
+            final int rookTo = flags == KING_CASTLE ? to - 1 : to + 1;
+            final int rook = this.squares[rookTo];
+            this.squares[rookFrom] = rook;
+            this.squares[rookTo] = EMPTY;
+            removePieceState(rook, rookTo);
+            addPieceState(rook, rookFrom);
+        }
+        this.castlingRights = this.castlingHistory[this.ply];
+        this.enPassantSquare = this.enPassantHistory[this.ply];
+        this.castledFlags = this.castledHistory[this.ply];
+        this.zobristHash = this.hashHistory[this.ply];
+        this.sideToMove = side;
+    }
+
+    private void addPieceState(final int piece,
+                               final int square) {
+        this.materialScores[sideIndex(colorOf(piece))] += PIECE_VALUES[typeOf(piece)];
+        this.pieceSquareScores[sideIndex(colorOf(piece))] += this.pieceSquareBonuses[piece][square];
+        this.pieceCounts[piece]++;
+        if (typeOf(piece) == PAWN) {
+            this.pawnHash ^= PIECE_KEYS[piece][square];
+        }
+    }
+
+    private void removePieceState(final int piece,
+                                  final int square) {
+        this.materialScores[sideIndex(colorOf(piece))] -= PIECE_VALUES[typeOf(piece)];
+        this.pieceSquareScores[sideIndex(colorOf(piece))] -= this.pieceSquareBonuses[piece][square];
+        this.pieceCounts[piece]--;
+        if (typeOf(piece) == PAWN) {
+            this.pawnHash ^= PIECE_KEYS[piece][square];
+        }
+    }
+
+    // passes the turn to the other side without moving, for null move pruning. lastMove() reports NO_MOVE
+    // for it, and it has to be taken back with unmakeNullMove()
+    public void makeNullMove() {
+        this.moveHistory[this.ply] = NO_MOVE;
+        this.castlingHistory[this.ply] = this.castlingRights;
+        this.enPassantHistory[this.ply] = this.enPassantSquare;
+        this.castledHistory[this.ply] = this.castledFlags;
+        this.hashHistory[this.ply] = this.zobristHash;
+        this.ply++;
+        this.checkStates[this.ply] = UNKNOWN_CHECK;
+        long hash = this.zobristHash;
+        if (this.enPassantSquare != NO_SQUARE) {
+            hash ^= Zobrist.enPassantKey(this.enPassantSquare & 7);
+            this.enPassantSquare = NO_SQUARE;
+        }
+        this.sideToMove = opposite(this.sideToMove);
+        this.zobristHash = hash ^ Zobrist.blackToMoveKey();
+    }
+
+    public void unmakeNullMove() {
+        this.ply--;
+        this.enPassantSquare = this.enPassantHistory[this.ply];
+        this.zobristHash = this.hashHistory[this.ply];
+        this.sideToMove = opposite(this.sideToMove);
+    }
+
+    ////////// conversion //////////
+
+    // finds the search move matching a move of the classic board this search board was copied from
+    public int findMove(final Move move) {
+        final int numMoves = generatePseudoLegalMoves(this.sideToMove, this.scratchMoves);
+        for (int i = 0; i < numMoves; i++) {
+            final int candidate = this.scratchMoves[i];
+            if (from(candidate) == move.getCurrentCoordinate() &&
+                to(candidate) == move.getDestinationCoordinate() &&
+                (!isPromotion(candidate) || promotionType(candidate) == QUEEN)) {
+                return candidate;
+            }
+        }
+        return NO_MOVE;
+    }
+
+    // finds the classic move a search move stands for on the board the search started from, the null move
+    // when there is none. the classic board only promotes to a queen, so any promotion maps onto that one
+    public static Move toBoardMove(final Board board,
+                                   final int move) {
+        for (final Move boardMove : board.currentPlayer().getLegalMoves()) {
+            if (boardMove.getCurrentCoordinate() == from(move) &&
+                boardMove.getDestinationCoordinate() == to(move)) {
+                return boardMove;
+            }
+        }
+        return Move.MoveFactory.getNullMove();
+    }
+
+    public long calculateHash() {
+        long hash = Zobrist.castleKey(this.castlingRights);
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            if (this.squares[square] != EMPTY) {
+                hash ^= PIECE_KEYS[this.squares[square]][square];
+            }
+        }
+        if (this.enPassantSquare != NO_SQUARE) {
+            hash ^= Zobrist.enPassantKey(this.enPassantSquare & 7);
+        }
+        return this.sideToMove == BLACK ? hash ^ Zobrist.blackToMoveKey() : hash;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
+            final int piece = this.squares[i];
+            final String tileText = piece == EMPTY ? "-" : colorOf(piece) == WHITE ?
+                    Piece.PieceType.values()[typeOf(piece) - 1].toString() :
+                    Piece.PieceType.values()[typeOf(piece) - 1].toString().toLowerCase();
+            builder.append(String.format("%3s", tileText));
+            if ((i + 1) % 8 == 0) {
+                builder.append("\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    public static int pieceCode(final Piece piece) {
+        return (piece.getPieceAlliance().isWhite() ? WHITE : BLACK) | (piece.getPieceType().ordinal() + 1);
+    }
+
+    ////////// precomputed tables //////////
+
+    private static int[] computeCastleMasks() {
+        final int[] masks = new int[BoardUtils.NUM_TILES];
+        Arrays.fill(masks, 0xF);
+        masks[60] &= ~(Zobrist.WHITE_KING_SIDE | Zobrist.WHITE_QUEEN_SIDE);
+        masks[63] &= ~Zobrist.WHITE_KING_SIDE;
+        masks[56] &= ~Zobrist.WHITE_QUEEN_SIDE;
+        masks[4] &= ~(Zobrist.BLACK_KING_SIDE | Zobrist.BLACK_QUEEN_SIDE);
+        masks[7] &= ~Zobrist.BLACK_KING_SIDE;
+        masks[0] &= ~Zobrist.BLACK_QUEEN_SIDE;
+        return masks;
+    }
+
+    private static long[][] computePieceKeys() {
+        final long[][] keys = new long[16][BoardUtils.NUM_TILES];
+        for (final Piece.PieceType pieceType : Piece.PieceType.values()) {
+            for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+                keys[WHITE | (pieceType.ordinal() + 1)][square] = Zobrist.pieceKey(Alliance.WHITE, pieceType, square);
+                keys[BLACK | (pieceType.ordinal() + 1)][square] = Zobrist.pieceKey(Alliance.BLACK, pieceType, square);
+            }
+        }
+        return keys;
+    }
+
+    // the bonuses of the Alliance tables, indexed by piece code
+    public static int[][] defaultPieceSquareBonuses() {
+        return computePieceSquareBonuses();
+    }
+
+    private static void checkPieceSquareBonuses(final int[][] pieceSquareBonuses) {
+        if (pieceSquareBonuses.length != 16) {
+            throw new IllegalArgumentException("piece-square bonuses need a table for each of the 16 piece codes");
+        }
+        for (final int[] bonuses : pieceSquareBonuses) {
+            if (bonuses.length != BoardUtils.NUM_TILES) {
+                throw new IllegalArgumentException("piece-square bonuses need a bonus for each square");
+            }
+        }
+    }
+
+    private static int[][] computePieceSquareBonuses() {
+        final int[][] bonuses = new int[16][BoardUtils.NUM_TILES];
+        for (final Alliance alliance : Alliance.values()) {
+            final int side = alliance.isWhite() ? WHITE : BLACK;
+            for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+                bonuses[side | PAWN][square] = alliance.pawnBonus(square);
+                bonuses[side | KNIGHT][square] = alliance.knightBonus(square);
+                bonuses[side | BISHOP][square] = alliance.bishopBonus(square);
+                bonuses[side | ROOK][square] = alliance.rookBonus(square);
+                bonuses[side | QUEEN][square] = alliance.queenBonus(square);
+                bonuses[side | KING][square] = alliance.kingBonus(square);
+            }
+        }
+        return bonuses;
+    }
+
+    private static int[] computePieceValues() {
+        final int[] values = new int[KING + 1];
+        for (final Piece.PieceType pieceType : Piece.PieceType.values()) {
+            values[pieceType.ordinal() + 1] = pieceType.getPieceValue();
+        }
+        return values;
+    }
+
+}
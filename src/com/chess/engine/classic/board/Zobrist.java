@@ -0,0 +1,132 @@
+package com.chess.engine.classic.board;
+
+import com.chess.engine.classic.Alliance;
+import com.chess.engine.classic.pieces.King;
+import com.chess.engine.classic.pieces.Pawn;
+import com.chess.engine.classic.pieces.Piece;
+
+import java.util.Collection;
+import java.util.Random;
+
+import static com.chess.engine.classic.pieces.Piece.PieceType.KING;
+import static com.chess.engine.classic.pieces.Piece.PieceType.ROOK;
+
+// zobrist keys used to hash a position into a single long
+public final class Zobrist {
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    private static final long SEED = 0x5DEECE66DL;
+    private static final long[][][] PIECE_KEYS = new long[2][Piece.PieceType.values().length][BoardUtils.NUM_TILES];
+    private static final long[] CASTLE_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[BoardUtils.NUM_TILES_PER_ROW];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        final Random random = new Random(SEED);
+        for (final long[][] allianceKeys : PIECE_KEYS) {
+            for (final long[] pieceKeys : allianceKeys) {
+                for (int i = 0; i < pieceKeys.length; i++) {
+                    pieceKeys[i] = random.nextLong();
+                }
+            }
+        }
+        for (int i = 0; i < CASTLE_KEYS.length; i++) {
+            CASTLE_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            EN_PASSANT_KEYS[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+        throw new RuntimeException("Not instantiatable!");
+    }
+
+    public static long pieceKey(final Alliance alliance,
+                                final Piece.PieceType pieceType,
+                                final int coordinate) {
+        return PIECE_KEYS[alliance.ordinal()][pieceType.ordinal()][coordinate];
+    }
+
+    public static long pieceKey(final Piece piece) {
+        return pieceKey(piece.getPieceAlliance(), piece.getPieceType(), piece.getPiecePosition());
+    }
+
+    public static long castleKey(final int castlingRights) {
+        return CASTLE_KEYS[castlingRights];
+    }
+
+    public static long enPassantKey(final int file) {
+        return EN_PASSANT_KEYS[file];
+    }
+
+    public static long blackToMoveKey() {
+        return BLACK_TO_MOVE_KEY;
+    }
+
+    // hashes the piece placement only, the part of the key that moves update incrementally
+    public static long piecesHash(final Collection<Piece> pieces) {
+        long hash = 0L;
+        for (final Piece piece : pieces) {
+            hash ^= pieceKey(piece);
+        }
+        return hash;
+    }
+
+    // hashes side to move, castling rights and en passant file on top of the piece placement
+    public static long stateHash(final Board board) {
+        long hash = castleKey(castlingRights(board));
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if (enPassantPawn != null) {
+            hash ^= enPassantKey(enPassantPawn.getPiecePosition() % BoardUtils.NUM_TILES_PER_ROW);
+        }
+        if (board.currentPlayer().getAlliance().isBlack()) {
+            hash ^= BLACK_TO_MOVE_KEY;
+        }
+        return hash;
+    }
+
+    public static long calculateHash(final Board board) {
+        return piecesHash(board.getAllPieces()) ^ stateHash(board);
+    }
+
+    // castling rights as a 4 bit mask, derived from unmoved kings and rooks on their home squares
+    public static int castlingRights(final Board board) {
+        int rights = 0;
+        if (canCastle(board, Alliance.WHITE, 60, 63, true)) {
+            rights |= WHITE_KING_SIDE;
+        }
+        if (canCastle(board, Alliance.WHITE, 60, 56, false)) {
+            rights |= WHITE_QUEEN_SIDE;
+        }
+        if (canCastle(board, Alliance.BLACK, 4, 7, true)) {
+            rights |= BLACK_KING_SIDE;
+        }
+        if (canCastle(board, Alliance.BLACK, 4, 0, false)) {
+            rights |= BLACK_QUEEN_SIDE;
+        }
+        return rights;
+    }
+
+    private static boolean canCastle(final Board board,
+                                     final Alliance alliance,
+                                     final int kingSquare,
+                                     final int rookSquare,
+                                     final boolean kingSide) {
+        final Piece king = board.getPiece(kingSquare);
+        final Piece rook = board.getPiece(rookSquare);
+        if (king == null || king.getPieceType() != KING || king.getPieceAlliance() != alliance ||
+            rook == null || rook.getPieceType() != ROOK || rook.getPieceAlliance() != alliance) {
+            return false;
+        }
+        final King castleKing = (King) king;
+        return castleKing.isFirstMove() && !castleKing.isCastled() && rook.isFirstMove() &&
+               (kingSide ? castleKing.isKingSideCastleCapable() : castleKing.isQueenSideCastleCapable());
+    }
+
+}
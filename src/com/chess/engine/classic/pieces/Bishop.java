@@ -6,16 +6,12 @@ import com.chess.engine.classic.board.BoardUtils;
 import com.chess.engine.classic.board.Move;
 import com.chess.engine.classic.board.Move.MajorAttackMove;
 import com.chess.engine.classic.board.Move.MajorMove;
-import com.chess.engine.classic.board.MoveUtils;
 
 import java.util.*;
 
 // Used to represent the bishop piece
 public final class Bishop extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = {-9, -7, 7, 9};
-
-    private final static Map<Integer, MoveUtils.Line[]> PRECOMPUTED_CANDIDATES = computeCandidates();
     public Bishop(final Alliance alliance,
                   final int piecePosition) {
         super(PieceType.BISHOP, alliance, piecePosition, true);
@@ -26,39 +22,12 @@ public final class Bishop extends Piece {
         super(PieceType.BISHOP, alliance, piecePosition, isFirstMove);
     }
     // used to calculate the legal moves for the bishop
-    private static Map<Integer, MoveUtils.Line[]> computeCandidates() {
-        Map<Integer, MoveUtils.Line[]> candidates = new HashMap<>();
-        for (int position = 0; position < BoardUtils.NUM_TILES; position++) {
-            List<MoveUtils.Line> lines = new ArrayList<>();
-            for (int offset : CANDIDATE_MOVE_COORDINATES) {
-                int destination = position;
-                MoveUtils.Line line = new MoveUtils.Line();
-                while (BoardUtils.isValidTileCoordinate(destination)) {
-                    if (isFirstColumnExclusion(destination, offset) ||
-                            isEighthColumnExclusion(destination, offset)) {
-                        break;
-                    }
-                    destination += offset;
-                    if (BoardUtils.isValidTileCoordinate(destination)) {
-                        line.addCoordinate(destination);
-                    }
-                }
-                if (!line.isEmpty()) {
-                    lines.add(line);
-                }
-            }
-            if (!lines.isEmpty()) {
-                candidates.put(position, lines.toArray(new MoveUtils.Line[0]));
-            }
-        }
-        return Collections.unmodifiableMap(candidates);
-    }
     // used to calculate the legal moves for the bishop
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
         final List<Move> legalMoves = new ArrayList<>();
-        for (final MoveUtils.Line line : PRECOMPUTED_CANDIDATES.get(this.getPiecePosition())) {
-            for (final int candidateDestinationCoordinate : line.getLineCoordinates()) {
+        for (final int[] ray : BoardUtils.BISHOP_RAYS[this.getPiecePosition()]) {
+            for (final int candidateDestinationCoordinate : ray) {
                 final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
                 if (pieceAtDestination == null) {
                     legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
@@ -86,14 +55,4 @@ public final class Bishop extends Piece {
     public String toString() {
         return this.getPieceType().toString();
     }
-    private static boolean isFirstColumnExclusion(final int position,
-                                                  final int offset) {
-        return (BoardUtils.INSTANCE.FIRST_COLUMN.get(position) &&
-                ((offset == -9) || (offset == 7)));
-    }
-    private static boolean isEighthColumnExclusion(final int position,
-                                                   final int offset) {
-        return BoardUtils.INSTANCE.EIGHTH_COLUMN.get(position) &&
-                ((offset == -7) || (offset == 9));
-    }
 }
\ No newline at end of file
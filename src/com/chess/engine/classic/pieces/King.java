@@ -11,9 +11,6 @@ import java.util.*;
 
 public final class King extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = { -9, -8, -7, -1, 1, 7, 8, 9 };
-
-    private final static Map<Integer, int[]> PRECOMPUTED_CANDIDATES = computeCandidates();
 
     private final boolean isCastled;
     private final boolean kingSideCastleCapable;
@@ -41,28 +38,6 @@ public final class King extends Piece {
         this.queenSideCastleCapable = queenSideCastleCapable;
     }
 
-    private static Map<Integer, int[]> computeCandidates() {
-        final Map<Integer, int[]> candidates = new HashMap<>();
-        for (int position = 0; position < BoardUtils.NUM_TILES; position++) {
-            int[] legalOffsets = new int[CANDIDATE_MOVE_COORDINATES.length];
-            int numLegalOffsets = 0;
-            for (int offset : CANDIDATE_MOVE_COORDINATES) {
-                if (isFirstColumnExclusion(position, offset) ||
-                        isEighthColumnExclusion(position, offset)) {
-                    continue;
-                }
-                int destination = position + offset;
-                if (BoardUtils.isValidTileCoordinate(destination)) {
-                    legalOffsets[numLegalOffsets++] = offset;
-                }
-            }
-            if (numLegalOffsets > 0) {
-                candidates.put(position, Arrays.copyOf(legalOffsets, numLegalOffsets));
-            }
-        }
-        return Collections.unmodifiableMap(candidates);
-    }
-
 
     public boolean isCastled() {
         return this.isCastled;
@@ -79,8 +54,7 @@ public final class King extends Piece {
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
         final List<Move> legalMoves = new ArrayList<>();
-        for (final int currentCandidateOffset : PRECOMPUTED_CANDIDATES.get(this.getPiecePosition())) {
-            final int candidateDestinationCoordinate = this.getPiecePosition() + currentCandidateOffset;
+        for (final int candidateDestinationCoordinate : BoardUtils.KING_TARGETS[this.getPiecePosition()]) {
             final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
             if (pieceAtDestination == null) {
                 legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
@@ -130,17 +104,4 @@ public final class King extends Piece {
         return (31 * super.hashCode()) + (isCastled ? 1 : 0);
     }
 
-    private static boolean isFirstColumnExclusion(final int currentCandidate,
-                                                  final int candidateDestinationCoordinate) {
-        return BoardUtils.INSTANCE.FIRST_COLUMN.get(currentCandidate)
-                && ((candidateDestinationCoordinate == -9) || (candidateDestinationCoordinate == -1) ||
-                (candidateDestinationCoordinate == 7));
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentCandidate,
-                                                   final int candidateDestinationCoordinate) {
-        return BoardUtils.INSTANCE.EIGHTH_COLUMN.get(currentCandidate)
-                && ((candidateDestinationCoordinate == -7) || (candidateDestinationCoordinate == 1) ||
-                (candidateDestinationCoordinate == 9));
-    }
 }
\ No newline at end of file
@@ -11,9 +11,6 @@ import java.util.*;
 
 public final class Knight extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = { -17, -15, -10, -6, 6, 10, 15, 17 };
-    private final static Map<Integer, int[]> PRECOMPUTED_CANDIDATES = computeCandidates();
-
     public Knight(final Alliance alliance,
                   final int piecePosition) {
         super(PieceType.KNIGHT, alliance, piecePosition, true);
@@ -25,32 +22,10 @@ public final class Knight extends Piece {
         super(PieceType.KNIGHT, alliance, piecePosition, isFirstMove);
     }
 
-    private static Map<Integer, int[]> computeCandidates() {
-        final Map<Integer, int[]> candidates = new HashMap<>();
-        for (int position = 0; position < BoardUtils.NUM_TILES; position++) {
-            final int[] legalOffsets = new int[CANDIDATE_MOVE_COORDINATES.length];
-            int numLegalMoves = 0;
-            for (final int offset : CANDIDATE_MOVE_COORDINATES) {
-                if(isFirstColumnExclusion(position, offset) ||
-                        isSecondColumnExclusion(position, offset) ||
-                        isSeventhColumnExclusion(position, offset) ||
-                        isEighthColumnExclusion(position, offset)) {
-                    continue;
-                }
-                final int destination = position + offset;
-                if (BoardUtils.isValidTileCoordinate(destination)) {
-                    legalOffsets[numLegalMoves++] = destination;
-                }
-            }
-            candidates.put(position, Arrays.copyOf(legalOffsets, numLegalMoves));
-        }
-        return Collections.unmodifiableMap(candidates);
-    }
-
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
         final List<Move> legalMoves = new ArrayList<>();
-        for (final int candidateDestinationCoordinate : PRECOMPUTED_CANDIDATES.get(this.getPiecePosition())) {
+        for (final int candidateDestinationCoordinate : BoardUtils.KNIGHT_TARGETS[this.getPiecePosition()]) {
             final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
             if (pieceAtDestination == null) {
                 legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
@@ -80,26 +55,4 @@ public final class Knight extends Piece {
         return this.getPieceType().toString();
     }
 
-    private static boolean isFirstColumnExclusion(final int currentPosition,
-                                                  final int candidateOffset) {
-        return BoardUtils.INSTANCE.FIRST_COLUMN.get(currentPosition) && ((candidateOffset == -17) ||
-                (candidateOffset == -10) || (candidateOffset == 6) || (candidateOffset == 15));
-    }
-
-    private static boolean isSecondColumnExclusion(final int currentPosition,
-                                                   final int candidateOffset) {
-        return BoardUtils.INSTANCE.SECOND_COLUMN.get(currentPosition) && ((candidateOffset == -10) || (candidateOffset == 6));
-    }
-
-    private static boolean isSeventhColumnExclusion(final int currentPosition,
-                                                    final int candidateOffset) {
-        return BoardUtils.INSTANCE.SEVENTH_COLUMN.get(currentPosition) && ((candidateOffset == -6) || (candidateOffset == 10));
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentPosition,
-                                                   final int candidateOffset) {
-        return BoardUtils.INSTANCE.EIGHTH_COLUMN.get(currentPosition) && ((candidateOffset == -15) || (candidateOffset == -6) ||
-                (candidateOffset == 10) || (candidateOffset == 17));
-    }
-
 }
\ No newline at end of file
@@ -53,8 +53,8 @@ public final class Pawn
             }
             // checks if the pawn jump is possible or not
             else if (currentCandidateOffset == 16 && this.isFirstMove() &&
-                    ((BoardUtils.INSTANCE.SECOND_ROW.get(this.getPiecePosition()) && this.getPieceAlliance().isBlack()) ||
-                     (BoardUtils.INSTANCE.SEVENTH_ROW.get(this.getPiecePosition()) && this.getPieceAlliance().isWhite()))) {
+                    ((BoardUtils.INSTANCE.SECOND_ROW[this.getPiecePosition()] && this.getPieceAlliance().isBlack()) ||
+                     (BoardUtils.INSTANCE.SEVENTH_ROW[this.getPiecePosition()] && this.getPieceAlliance().isWhite()))) {
                 final int behindCandidateDestinationCoordinate =
                         this.getPiecePosition() + (this.getPieceAlliance().getDirection() * 8);
                 if (board.getPiece(candidateDestinationCoordinate) == null &&
@@ -64,8 +64,8 @@ public final class Pawn
             }
             // checks if attack move is possible or not
             else if (currentCandidateOffset == 7 &&
-                    !((BoardUtils.INSTANCE.EIGHTH_COLUMN.get(this.getPiecePosition()) && this.getPieceAlliance().isWhite()) ||
-                      (BoardUtils.INSTANCE.FIRST_COLUMN.get(this.getPiecePosition()) && this.getPieceAlliance().isBlack()))) {
+                    !((BoardUtils.INSTANCE.EIGHTH_COLUMN[this.getPiecePosition()] && this.getPieceAlliance().isWhite()) ||
+                      (BoardUtils.INSTANCE.FIRST_COLUMN[this.getPiecePosition()] && this.getPieceAlliance().isBlack()))) {
                 if(board.getPiece(candidateDestinationCoordinate) != null) {
                     final Piece pieceOnCandidate = board.getPiece(candidateDestinationCoordinate);
                     if (this.getPieceAlliance() != pieceOnCandidate.getPieceAlliance()) {
@@ -94,8 +94,8 @@ public final class Pawn
             }
             // checks if attack move is possible or not
             else if (currentCandidateOffset == 9 &&
-                    !((BoardUtils.INSTANCE.FIRST_COLUMN.get(this.getPiecePosition()) && this.getPieceAlliance().isWhite()) ||
-                      (BoardUtils.INSTANCE.EIGHTH_COLUMN.get(this.getPiecePosition()) && this.getPieceAlliance().isBlack()))) {
+                    !((BoardUtils.INSTANCE.FIRST_COLUMN[this.getPiecePosition()] && this.getPieceAlliance().isWhite()) ||
+                      (BoardUtils.INSTANCE.EIGHTH_COLUMN[this.getPiecePosition()] && this.getPieceAlliance().isBlack()))) {
                 if(board.getPiece(candidateDestinationCoordinate) != null) {
                     if (this.getPieceAlliance() !=
                             board.getPiece(candidateDestinationCoordinate).getPieceAlliance()) {
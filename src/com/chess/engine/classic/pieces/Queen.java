@@ -6,16 +6,11 @@ import com.chess.engine.classic.board.BoardUtils;
 import com.chess.engine.classic.board.Move;
 import com.chess.engine.classic.board.Move.MajorAttackMove;
 import com.chess.engine.classic.board.Move.MajorMove;
-import com.chess.engine.classic.board.MoveUtils;
 
 import java.util.*;
 
 public final class Queen extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = { -9, -8, -7, -1, 1,
-            7, 8, 9 };
-
-    private final static Map<Integer, MoveUtils.Line[]> PRECOMPUTED_CANDIDATES = computeCandidates();
 
     public Queen(final Alliance alliance, final int piecePosition) {
         super(PieceType.QUEEN, alliance, piecePosition, true);
@@ -27,40 +22,12 @@ public final class Queen extends Piece {
         super(PieceType.QUEEN, alliance, piecePosition, isFirstMove);
     }
 
-    private static Map<Integer, MoveUtils.Line[]> computeCandidates() {
-        final Map<Integer, MoveUtils.Line[]> candidates = new HashMap<>();
-        for (int position = 0; position < BoardUtils.NUM_TILES; position++) {
-            List<MoveUtils.Line> lines = new ArrayList<>();
-            for (int offset : CANDIDATE_MOVE_COORDINATES) {
-                int destination = position;
-                MoveUtils.Line line = new MoveUtils.Line();
-                while (BoardUtils.isValidTileCoordinate(destination)) {
-                    if (isFirstColumnExclusion(destination, offset) ||
-                            isEightColumnExclusion(destination, offset)) {
-                        break;
-                    }
-                    destination += offset;
-                    if (BoardUtils.isValidTileCoordinate(destination)) {
-                        line.addCoordinate(destination);
-                    }
-                }
-                if (!line.isEmpty()) {
-                    lines.add(line);
-                }
-            }
-            if (!lines.isEmpty()) {
-                candidates.put(position, lines.toArray(new MoveUtils.Line[0]));
-            }
-        }
-        return Collections.unmodifiableMap(candidates);
-    }
-
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
         final List<Move> legalMoves = new ArrayList<>();
-        for (final MoveUtils.Line line : PRECOMPUTED_CANDIDATES.get(this.getPiecePosition())) {
-            for (final int candidateDestinationCoordinate : line.getLineCoordinates()) {
+        for (final int[] ray : BoardUtils.QUEEN_RAYS[this.getPiecePosition()]) {
+            for (final int candidateDestinationCoordinate : ray) {
                 final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
                 if (pieceAtDestination == null) {
                     legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
@@ -92,16 +59,4 @@ public final class Queen extends Piece {
         return this.getPieceType().toString();
     }
 
-    private static boolean isFirstColumnExclusion(final int position,
-                                                  final int offset) {
-        return BoardUtils.INSTANCE.FIRST_COLUMN.get(position) && ((offset == -9)
-                || (offset == -1) || (offset == 7));
-    }
-
-    private static boolean isEightColumnExclusion(final int position,
-                                                  final int offset) {
-        return BoardUtils.INSTANCE.EIGHTH_COLUMN.get(position) && ((offset == -7)
-                || (offset == 1) || (offset == 9));
-    }
-
 }
\ No newline at end of file
@@ -6,15 +6,11 @@ import com.chess.engine.classic.board.BoardUtils;
 import com.chess.engine.classic.board.Move;
 import com.chess.engine.classic.board.Move.MajorAttackMove;
 import com.chess.engine.classic.board.Move.MajorMove;
-import com.chess.engine.classic.board.MoveUtils;
 
 import java.util.*;
 
 public final class Rook extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = { -8, -1, 1, 8 };
-
-    private final static Map<Integer, MoveUtils.Line[]> PRECOMPUTED_CANDIDATES = computeCandidates();
 
     public Rook(final Alliance alliance, final int piecePosition) {
         super(PieceType.ROOK, alliance, piecePosition, true);
@@ -26,39 +22,12 @@ public final class Rook extends Piece {
         super(PieceType.ROOK, alliance, piecePosition, isFirstMove);
     }
 
-    private static Map<Integer, MoveUtils.Line[]> computeCandidates() {
-        final Map<Integer, MoveUtils.Line[]> candidates = new HashMap<>();
-        for (int position = 0; position < BoardUtils.NUM_TILES; position++) {
-            List<MoveUtils.Line> lines = new ArrayList<>();
-            for (int offset : CANDIDATE_MOVE_COORDINATES) {
-                int destination = position;
-                MoveUtils.Line line = new MoveUtils.Line();
-                while (BoardUtils.isValidTileCoordinate(destination)) {
-                    if (isColumnExclusion(destination, offset)) {
-                        break;
-                    }
-                    destination += offset;
-                    if (BoardUtils.isValidTileCoordinate(destination)) {
-                        line.addCoordinate(destination);
-                    }
-                }
-                if (!line.isEmpty()) {
-                    lines.add(line);
-                }
-            }
-            if (!lines.isEmpty()) {
-                candidates.put(position, lines.toArray(new MoveUtils.Line[0]));
-            }
-        }
-        return Collections.unmodifiableMap(candidates);
-    }
-
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
         final List<Move> legalMoves = new ArrayList<>();
-        for (final MoveUtils.Line line : PRECOMPUTED_CANDIDATES.get(this.getPiecePosition())) {
-            for (final int candidateDestinationCoordinate : line.getLineCoordinates()) {
+        for (final int[] ray : BoardUtils.ROOK_RAYS[this.getPiecePosition()]) {
+            for (final int candidateDestinationCoordinate : ray) {
                 final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
                 if (pieceAtDestination == null) {
                     legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
@@ -90,10 +59,4 @@ public final class Rook extends Piece {
         return this.getPieceType().toString();
     }
 
-    private static boolean isColumnExclusion(final int position,
-                                             final int offset) {
-        return (BoardUtils.INSTANCE.FIRST_COLUMN.get(position) && (offset == -1)) ||
-                (BoardUtils.INSTANCE.EIGHTH_COLUMN.get(position) && (offset == 1));
-    }
-
 }
\ No newline at end of file
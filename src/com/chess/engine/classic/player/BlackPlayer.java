@@ -17,15 +17,12 @@ import static com.chess.engine.classic.pieces.Piece.PieceType.ROOK;
 // used to represent the black player of the chess game board
 public final class BlackPlayer extends Player {
 
-    public BlackPlayer(final Board board,
-                       final Collection<Move> whiteStandardLegals,
-                       final Collection<Move> blackStandardLegals) {
-        super(board, blackStandardLegals, whiteStandardLegals);
+    public BlackPlayer(final Board board) {
+        super(board);
     }
     // used to calculate the castle moves possible to make by black player, if exists
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                    final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles() {
         if (!hasCastleOpportunities()) {
             return Collections.emptyList();
         }
@@ -35,8 +32,8 @@ public final class BlackPlayer extends Player {
             if (this.board.getPiece(5) == null && this.board.getPiece(6) == null) {
                 final Piece kingSideRook = this.board.getPiece(7);
                 if (kingSideRook != null && kingSideRook.isFirstMove() &&
-                        Player.calculateAttacksOnTile(5, opponentLegals).isEmpty() &&
-                        Player.calculateAttacksOnTile(6, opponentLegals).isEmpty() &&
+                        !BoardUtils.isTileAttacked(this.board, 5, Alliance.WHITE) &&
+                        !BoardUtils.isTileAttacked(this.board, 6, Alliance.WHITE) &&
                         kingSideRook.getPieceType() == ROOK) {
                     if (!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 12)) {
                         kingCastles.add(
@@ -50,8 +47,8 @@ public final class BlackPlayer extends Player {
                     this.board.getPiece(3) == null) {
                 final Piece queenSideRook = this.board.getPiece(0);
                 if (queenSideRook != null && queenSideRook.isFirstMove() &&
-                        Player.calculateAttacksOnTile(2, opponentLegals).isEmpty() &&
-                        Player.calculateAttacksOnTile(3, opponentLegals).isEmpty() &&
+                        !BoardUtils.isTileAttacked(this.board, 2, Alliance.WHITE) &&
+                        !BoardUtils.isTileAttacked(this.board, 3, Alliance.WHITE) &&
                         queenSideRook.getPieceType() == ROOK) {
                     if (!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 12)) {
                         kingCastles.add(
@@ -2,35 +2,33 @@ package com.chess.engine.classic.player;
 
 import com.chess.engine.classic.Alliance;
 import com.chess.engine.classic.board.Board;
+import com.chess.engine.classic.board.BoardUtils;
 import com.chess.engine.classic.board.Move;
 import com.chess.engine.classic.board.Move.MoveStatus;
 import com.chess.engine.classic.board.MoveTransition;
 import com.chess.engine.classic.pieces.King;
 import com.chess.engine.classic.pieces.Piece;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.stream.Collectors;
+import java.util.List;
 
 import static com.chess.engine.classic.board.MoveUtils.NULL_MOVE;
 import static com.chess.engine.classic.pieces.Piece.PieceType.KING;
-import static java.util.stream.Collectors.collectingAndThen;
 
 // this class is made to represent the eack player's common characteristics in the game
 @SuppressWarnings("unused")
 public abstract class Player {
     protected final Board board;
     protected final King playerKing;
-    protected final Collection<Move> legalMoves;
     protected final boolean isInCheck;
-    Player(final Board board,
-           final Collection<Move> playerLegals,
-           final Collection<Move> opponentLegals) {
+    private volatile Collection<Move> legalMoves;
+    Player(final Board board) {
         this.board = board;
         this.playerKing = establishKing();
-        this.isInCheck = !calculateAttacksOnTile(this.playerKing.getPiecePosition(), opponentLegals).isEmpty();
-        playerLegals.addAll(calculateKingCastles(playerLegals, opponentLegals));
-        this.legalMoves = Collections.unmodifiableCollection(playerLegals);
+        this.isInCheck = BoardUtils.isTileAttacked(board, this.playerKing.getPiecePosition(),
+                                                   getAlliance().isWhite() ? Alliance.BLACK : Alliance.WHITE);
     }
     // check whether the king is in check or not
     public boolean isInCheck() {
@@ -68,24 +66,34 @@ public abstract class Player {
     }
     // checking whether the king has an escape moves when he is in check
     private boolean hasEscapeMoves() {
-        return this.legalMoves.stream()
+        return getLegalMoves().stream()
                               .anyMatch(move -> makeMove(move)
                               .getMoveStatus().isDone());
     }
-    // retrive all the legal moves of the Player
+    // retrive all the legal moves of the Player, generated the first time they are asked for
     public Collection<Move> getLegalMoves() {
-        return this.legalMoves;
+        Collection<Move> moves = this.legalMoves;
+        if (moves == null) {
+            moves = calculateLegalMoves();
+            this.legalMoves = moves;
+        }
+        return moves;
+    }
+    // the castle moves on their own, for counting them without generating every other move
+    public Collection<Move> getCastleMoves() {
+        return calculateKingCastles();
     }
-    // Attacks on the current tile
-    static Collection<Move> calculateAttacksOnTile(final int tile,
-                                                   final Collection<Move> moves) {
-        return moves.stream()
-                    .filter(move -> move.getDestinationCoordinate() == tile)
-                    .collect(collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    private Collection<Move> calculateLegalMoves() {
+        final List<Move> playerLegals = new ArrayList<>();
+        for (final Piece piece : getActivePieces()) {
+            playerLegals.addAll(piece.calculateLegalMoves(this.board));
+        }
+        playerLegals.addAll(calculateKingCastles());
+        return Collections.unmodifiableList(playerLegals);
     }
     // make the move and create new board with the new move
     public MoveTransition makeMove(final Move move) {
-        if (!this.legalMoves.contains(move)) {
+        if (!getLegalMoves().contains(move)) {
             return new MoveTransition(this.board, this.board, move, MoveStatus.ILLEGAL_MOVE);
         }
         final Board transitionedBoard = move.execute();
@@ -104,6 +112,5 @@ public abstract class Player {
     public abstract Collection<Piece> getActivePieces();
     public abstract Alliance getAlliance();
     public abstract Player getOpponent();
-    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals,
-                                                             Collection<Move> opponentLegals);
+    protected abstract Collection<Move> calculateKingCastles();
 }
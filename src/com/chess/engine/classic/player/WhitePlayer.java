@@ -18,15 +18,12 @@ import static com.chess.engine.classic.pieces.Piece.PieceType.ROOK;
 
 // This class is used to represent the white player of the chess game board
 public final class WhitePlayer extends Player {
-    public WhitePlayer(final Board board,
-                       final Collection<Move> whiteStandardLegals,
-                       final Collection<Move> blackStandardLegals) {
-        super(board, whiteStandardLegals, blackStandardLegals);
+    public WhitePlayer(final Board board) {
+        super(board);
     }
     // used to calculate the castle moves possible to make by white player, if exists
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                    final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles() {
         if(!hasCastleOpportunities()) {
             return Collections.emptyList();
         }
@@ -36,8 +33,8 @@ public final class WhitePlayer extends Player {
             if(this.board.getPiece(61) == null && this.board.getPiece(62) == null) {
                 final Piece kingSideRook = this.board.getPiece(63);
                 if(kingSideRook != null && kingSideRook.isFirstMove()) {
-                    if(Player.calculateAttacksOnTile(61, opponentLegals).isEmpty() &&
-                       Player.calculateAttacksOnTile(62, opponentLegals).isEmpty() &&
+                    if(!BoardUtils.isTileAttacked(this.board, 61, Alliance.BLACK) &&
+                       !BoardUtils.isTileAttacked(this.board, 62, Alliance.BLACK) &&
                        kingSideRook.getPieceType() == ROOK) {
                         if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 52)) {
                             kingCastles.add(new KingSideCastleMove(this.board, this.playerKing, 62, (Rook) kingSideRook, kingSideRook.getPiecePosition(), 61));
@@ -50,8 +47,8 @@ public final class WhitePlayer extends Player {
                this.board.getPiece(57) == null) {
                 final Piece queenSideRook = this.board.getPiece(56);
                 if(queenSideRook != null && queenSideRook.isFirstMove()) {
-                    if(Player.calculateAttacksOnTile(58, opponentLegals).isEmpty() &&
-                       Player.calculateAttacksOnTile(59, opponentLegals).isEmpty() && queenSideRook.getPieceType() == ROOK) {
+                    if(!BoardUtils.isTileAttacked(this.board, 58, Alliance.BLACK) &&
+                       !BoardUtils.isTileAttacked(this.board, 59, Alliance.BLACK) && queenSideRook.getPieceType() == ROOK) {
                         if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 52)) {
                             kingCastles.add(new QueenSideCastleMove(this.board, this.playerKing, 58, (Rook) queenSideRook, queenSideRook.getPiecePosition(), 59));
                         }
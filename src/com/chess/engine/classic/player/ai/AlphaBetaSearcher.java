@@ -0,0 +1,490 @@
+package com.chess.engine.classic.player.ai;
+
+import com.chess.engine.classic.board.SearchBoard;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// the min/max alpha-beta search over a SearchBoard together with the state one thread needs for it,
+// so that several searchers can work side by side and share only the transposition and history tables
+final class AlphaBetaSearcher {
+
+    private static final int MAX_QUIESCENCE_PLY = SearchBoard.MAX_PLY - 1;
+    private static final int DELTA_MARGIN = 200;
+    private static final int STOP_CHECK_INTERVAL = 1024;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_DEEP_DEPTH = 7;
+    private static final int REVERSE_FUTILITY_DEPTH = 3;
+    private static final int REVERSE_FUTILITY_MARGIN = 120;
+    private static final int FUTILITY_DEPTH = 2;
+    private static final int FUTILITY_MARGIN = 200;
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    private static final int LMR_LATE_MOVES = 8;
+    private static final int LMR_HISTORY_THRESHOLD = 512;
+
+    private final BoardEvaluator evaluator;
+    private final TranspositionTable transpositionTable;
+    private final HistoryTable historyTable;
+    private final LongAdder boardsEvaluated;
+    private final AtomicBoolean stopSignal;
+    private final Set<Pruning> pruning;
+    private final Map<Pruning, LongAdder> pruneCounts;
+    private final MovePicker[] movePickers;
+    private final int[][] killerMoves;
+    private long quiescenceNodes;
+    private int rootValue;
+    private long nodeCount;
+
+    AlphaBetaSearcher(final BoardEvaluator evaluator,
+                      final TranspositionTable transpositionTable,
+                      final HistoryTable historyTable,
+                      final LongAdder boardsEvaluated,
+                      final AtomicBoolean stopSignal,
+                      final Set<Pruning> pruning,
+                      final Map<Pruning, LongAdder> pruneCounts) {
+        this.evaluator = evaluator;
+        this.transpositionTable = transpositionTable;
+        this.historyTable = historyTable;
+        this.boardsEvaluated = boardsEvaluated;
+        this.stopSignal = stopSignal;
+        this.pruning = pruning;
+        this.pruneCounts = pruneCounts;
+        this.movePickers = new MovePicker[SearchBoard.MAX_PLY];
+        for (int ply = 0; ply < SearchBoard.MAX_PLY; ply++) {
+            this.movePickers[ply] = new MovePicker(historyTable);
+        }
+        this.killerMoves = new int[SearchBoard.MAX_PLY][2];
+    }
+
+    // one counter for every pruning technique, to be shared by the searchers of one search
+    static Map<Pruning, LongAdder> newPruneCounts() {
+        final Map<Pruning, LongAdder> pruneCounts = new EnumMap<>(Pruning.class);
+        for (final Pruning technique : Pruning.values()) {
+            pruneCounts.put(technique, new LongAdder());
+        }
+        return pruneCounts;
+    }
+
+    // the quiescence nodes visited below the root move of the last searchRootMove() call
+    long getQuiescenceNodes() {
+        return this.quiescenceNodes;
+    }
+
+    // the score of the best move found by the last searchRoot() call
+    int getRootValue() {
+        return this.rootValue;
+    }
+
+    // searches every legal move of the side to move to the given depth and returns the best one,
+    // or NO_MOVE when there is none. the result is stored as an exact entry for the next iteration
+    int searchRoot(final SearchBoard board,
+                   final int depth) {
+        final boolean isMaximizing = board.getSideToMove() == SearchBoard.WHITE;
+        final MovePicker picker = initMovePicker(board, TranspositionTable.bestMove(this.transpositionTable.probe(board.getZobristHash())));
+        int bestMove = TranspositionTable.NO_MOVE;
+        int bestValue = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int move = picker.next(); move != SearchBoard.NO_MOVE; move = picker.next()) {
+            if (!board.isLegal(move)) {
+                continue;
+            }
+            final int value = isMaximizing ?
+                    searchRootMove(board, move, depth, bestValue, Integer.MAX_VALUE) :
+                    searchRootMove(board, move, depth, Integer.MIN_VALUE, bestValue);
+            if (bestMove == TranspositionTable.NO_MOVE || (isMaximizing ? value > bestValue : value < bestValue)) {
+                bestValue = value;
+                bestMove = move;
+            }
+        }
+        if (bestMove != TranspositionTable.NO_MOVE) {
+            this.transpositionTable.store(board.getZobristHash(), depth, TranspositionTable.EXACT, bestValue, bestMove,
+                this.evaluator.mateScorePerDepth());
+        }
+        this.rootValue = bestValue;
+        return bestMove;
+    }
+
+    // makes one root move and searches the rest of the depth below it in the (highest, lowest) window
+    int searchRootMove(final SearchBoard board,
+                       final int move,
+                       final int depth,
+                       final int highest,
+                       final int lowest) {
+        this.quiescenceNodes = 0;
+        board.makeMove(move);
+        final int value = board.getSideToMove() == SearchBoard.BLACK ?
+                min(board, depth - 1, highest, lowest) :
+                max(board, depth - 1, highest, lowest);
+        board.unmakeMove();
+        return value;
+    }
+
+    // moves are generated pseudo-legally and tested only once they are reached, so a node that finds
+    // no legal move at all is mate or stalemate and is handed to the evaluator. out of check a node may be
+    // given up before its moves are searched, by reverse futility or a null move, and its quiet moves may be
+    // skipped by futility or searched to less depth when they come late
+    private int max(final SearchBoard board,
+                    final int depth,
+                    final int highest,
+                    final int lowest) {
+        if (depth <= 0) {
+            return quiescenceMax(board, highest, lowest);
+        }
+        checkStopSignal();
+        final long entry = this.transpositionTable.probe(board.getZobristHash());
+        if (TranspositionTable.isUsable(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth())) {
+            return TranspositionTable.usableScore(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth());
+        }
+        final boolean isInCheck = board.isInCheck();
+        boolean canPruneQuiets = false;
+        if (!isInCheck) {
+            final int staticEval = needsStaticEval(depth) ? evaluateStatically(board) : 0;
+            if (isEnabled(Pruning.REVERSE_FUTILITY) && depth <= REVERSE_FUTILITY_DEPTH && lowest != Integer.MAX_VALUE &&
+                staticEval - REVERSE_FUTILITY_MARGIN * depth >= lowest) {
+                countPruned(Pruning.REVERSE_FUTILITY);
+                return lowest;
+            }
+            if (canTryNullMove(board, depth) && lowest != Integer.MAX_VALUE) {
+                board.makeNullMove();
+                final int nullValue = min(board, depth - 1 - nullMoveReduction(depth), lowest - 1, lowest);
+                board.unmakeNullMove();
+                if (nullValue >= lowest) {
+                    countPruned(Pruning.NULL_MOVE);
+                    return lowest;
+                }
+            }
+            canPruneQuiets = isEnabled(Pruning.FUTILITY) && depth <= FUTILITY_DEPTH && highest != Integer.MIN_VALUE &&
+                    staticEval + FUTILITY_MARGIN * depth <= highest;
+        }
+        final MovePicker picker = initMovePicker(board, TranspositionTable.bestMove(entry));
+        int currentHighest = highest;
+        int bestMove = TranspositionTable.NO_MOVE;
+        int numLegalMoves = 0;
+        for (int move = picker.next(); move != SearchBoard.NO_MOVE; move = picker.next()) {
+            if (!board.isLegal(move)) {
+                continue;
+            }
+            numLegalMoves++;
+            final boolean isQuiet = MovePicker.isQuiet(move);
+            final int reduction = isQuiet && !isInCheck ? lateMoveReduction(board, move, depth, numLegalMoves) : 0;
+            board.makeMove(move);
+            final boolean givesCheck = board.isInCheck();
+            if (canPruneQuiets && isQuiet && !givesCheck && numLegalMoves > 1) {
+                board.unmakeMove();
+                countPruned(Pruning.FUTILITY);
+                continue;
+            }
+            int currentValue;
+            if (reduction > 0 && !givesCheck) {
+                currentValue = min(board, depth - 1 - reduction, currentHighest, currentHighest + 1);
+                if (currentValue > currentHighest) {
+                    currentValue = min(board, depth - 1, currentHighest, lowest);
+                } else {
+                    countPruned(Pruning.LATE_MOVE_REDUCTION);
+                }
+            } else {
+                currentValue = min(board, depth - 1, currentHighest, lowest);
+            }
+            board.unmakeMove();
+            if (currentValue > currentHighest) {
+                currentHighest = currentValue;
+                bestMove = move;
+            }
+            if (currentHighest >= lowest) {
+                recordCutoff(board, picker, move, depth);
+                this.transpositionTable.store(board.getZobristHash(), depth, TranspositionTable.LOWER_BOUND, lowest, bestMove,
+                        this.evaluator.mateScorePerDepth());
+                return lowest;
+            }
+        }
+        if (numLegalMoves == 0) {
+            this.boardsEvaluated.increment();
+            return this.evaluator.evaluate(board, depth);
+        }
+        this.transpositionTable.store(board.getZobristHash(), depth,
+                TranspositionTable.boundOf(currentHighest, highest, lowest), currentHighest, bestMove,
+                this.evaluator.mateScorePerDepth());
+        return currentHighest;
+    }
+
+    private int min(final SearchBoard board,
+                    final int depth,
+                    final int highest,
+                    final int lowest) {
+        if (depth <= 0) {
+            return quiescenceMin(board, highest, lowest);
+        }
+        checkStopSignal();
+        final long entry = this.transpositionTable.probe(board.getZobristHash());
+        if (TranspositionTable.isUsable(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth())) {
+            return TranspositionTable.usableScore(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth());
+        }
+        final boolean isInCheck = board.isInCheck();
+        boolean canPruneQuiets = false;
+        if (!isInCheck) {
+            final int staticEval = needsStaticEval(depth) ? evaluateStatically(board) : 0;
+            if (isEnabled(Pruning.REVERSE_FUTILITY) && depth <= REVERSE_FUTILITY_DEPTH && highest != Integer.MIN_VALUE &&
+                staticEval + REVERSE_FUTILITY_MARGIN * depth <= highest) {
+                countPruned(Pruning.REVERSE_FUTILITY);
+                return highest;
+            }
+            if (canTryNullMove(board, depth) && highest != Integer.MIN_VALUE) {
+                board.makeNullMove();
+                final int nullValue = max(board, depth - 1 - nullMoveReduction(depth), highest, highest + 1);
+                board.unmakeNullMove();
+                if (nullValue <= highest) {
+                    countPruned(Pruning.NULL_MOVE);
+                    return highest;
+                }
+            }
+            canPruneQuiets = isEnabled(Pruning.FUTILITY) && depth <= FUTILITY_DEPTH && lowest != Integer.MAX_VALUE &&
+                    staticEval - FUTILITY_MARGIN * depth >= lowest;
+        }
+        final MovePicker picker = initMovePicker(board, TranspositionTable.bestMove(entry));
+        int currentLowest = lowest;
+        int bestMove = TranspositionTable.NO_MOVE;
+        int numLegalMoves = 0;
+        for (int move = picker.next(); move != SearchBoard.NO_MOVE; move = picker.next()) {
+            if (!board.isLegal(move)) {
+                continue;
+            }
+            numLegalMoves++;
+            final boolean isQuiet = MovePicker.isQuiet(move);
+            final int reduction = isQuiet && !isInCheck ? lateMoveReduction(board, move, depth, numLegalMoves) : 0;
+            board.makeMove(move);
+            final boolean givesCheck = board.isInCheck();
+            if (canPruneQuiets && isQuiet && !givesCheck && numLegalMoves > 1) {
+                board.unmakeMove();
+                countPruned(Pruning.FUTILITY);
+                continue;
+            }
+            int currentValue;
+            if (reduction > 0 && !givesCheck) {
+                currentValue = max(board, depth - 1 - reduction, currentLowest - 1, currentLowest);
+                if (currentValue < currentLowest) {
+                    currentValue = max(board, depth - 1, highest, currentLowest);
+                } else {
+                    countPruned(Pruning.LATE_MOVE_REDUCTION);
+                }
+            } else {
+                currentValue = max(board, depth - 1, highest, currentLowest);
+            }
+            board.unmakeMove();
+            if (currentValue < currentLowest) {
+                currentLowest = currentValue;
+                bestMove = move;
+            }
+            if (currentLowest <= highest) {
+                recordCutoff(board, picker, move, depth);
+                this.transpositionTable.store(board.getZobristHash(), depth, TranspositionTable.UPPER_BOUND, highest, bestMove,
+                        this.evaluator.mateScorePerDepth());
+                return highest;
+            }
+        }
+        if (numLegalMoves == 0) {
+            this.boardsEvaluated.increment();
+            return this.evaluator.evaluate(board, depth);
+        }
+        this.transpositionTable.store(board.getZobristHash(), depth,
+                TranspositionTable.boundOf(currentLowest, highest, lowest), currentLowest, bestMove,
+                this.evaluator.mateScorePerDepth());
+        return currentLowest;
+    }
+
+    // the static evaluation only serves the pruning near the horizon, so it is left out of the other nodes
+    private boolean needsStaticEval(final int depth) {
+        return depth <= REVERSE_FUTILITY_DEPTH &&
+               (isEnabled(Pruning.REVERSE_FUTILITY) || (isEnabled(Pruning.FUTILITY) && depth <= FUTILITY_DEPTH));
+    }
+
+    private int evaluateStatically(final SearchBoard board) {
+        this.boardsEvaluated.increment();
+        return this.evaluator.evaluate(board, 0);
+    }
+
+    // passing is never tried twice in a row, and not by a side left with only its king and pawns, where
+    // being forced to move is often what loses and a null move would prune the position wrongly
+    private boolean canTryNullMove(final SearchBoard board,
+                                   final int depth) {
+        return isEnabled(Pruning.NULL_MOVE) && depth >= NULL_MOVE_MIN_DEPTH &&
+               board.lastMove(0) != SearchBoard.NO_MOVE && board.hasNonPawnMaterial(board.getSideToMove());
+    }
+
+    private static int nullMoveReduction(final int depth) {
+        return depth >= NULL_MOVE_DEEP_DEPTH ? 3 : 2;
+    }
+
+    // how many plies less a quiet move is searched with, more the later it comes and less when the history
+    // table says it has refuted other positions. killers are searched in full and every reduced move keeps
+    // at least one ply above the horizon
+    private int lateMoveReduction(final SearchBoard board,
+                                  final int move,
+                                  final int depth,
+                                  final int moveNumber) {
+        final int[] killers = this.killerMoves[board.getPly()];
+        if (!isEnabled(Pruning.LATE_MOVE_REDUCTION) || depth < LMR_MIN_DEPTH || moveNumber <= LMR_MIN_MOVES ||
+            move == killers[0] || move == killers[1]) {
+            return 0;
+        }
+        int reduction = moveNumber > LMR_LATE_MOVES ? 2 : 1;
+        if (this.historyTable.getScore(board.getSideToMove(), move) >= LMR_HISTORY_THRESHOLD) {
+            reduction--;
+        }
+        return Math.min(reduction, depth - 2);
+    }
+
+    private boolean isEnabled(final Pruning technique) {
+        return this.pruning.contains(technique);
+    }
+
+    // a reduction only counts once its shallower search held and the move was not searched again
+    private void countPruned(final Pruning technique) {
+        this.pruneCounts.get(technique).increment();
+    }
+
+    // unwinds the whole search once another thread has asked it to stop. nothing is stored on the way out,
+    // so an interrupted search never leaves a partial result in the transposition table
+    private void checkStopSignal() {
+        if (++this.nodeCount % STOP_CHECK_INTERVAL == 0 && this.stopSignal.get()) {
+            throw new SearchStoppedException();
+        }
+    }
+
+    private MovePicker initCapturePicker(final SearchBoard board) {
+        final MovePicker picker = this.movePickers[board.getPly()];
+        picker.initCaptures(board);
+        return picker;
+    }
+
+    private MovePicker initMovePicker(final SearchBoard board,
+                                      final int hashMove) {
+        final MovePicker picker = this.movePickers[board.getPly()];
+        final int[] killers = this.killerMoves[board.getPly()];
+        picker.init(board, hashMove, killers[0], killers[1], this.historyTable.getCounterMove(board.lastMove(0)));
+        return picker;
+    }
+
+    // remembers a quiet move that refuted the node as a killer of its ply, as the counter to the move played
+    // before it and in the history table, where the quiet moves searched ahead of it are marked down
+    private void recordCutoff(final SearchBoard board,
+                              final MovePicker picker,
+                              final int move,
+                              final int depth) {
+        if (!MovePicker.isQuiet(move)) {
+            return;
+        }
+        final int side = board.getSideToMove();
+        final int[] killers = this.killerMoves[board.getPly()];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+        this.historyTable.setCounterMove(board.lastMove(0), move);
+        this.historyTable.recordCutoff(side, move, depth);
+        for (int i = 0; i < picker.getNumSearchedQuiets(); i++) {
+            if (picker.getSearchedQuiet(i) != move) {
+                this.historyTable.recordFailure(side, picker.getSearchedQuiet(i), depth);
+            }
+        }
+    }
+
+    // resolves the captures left hanging at the horizon. white may stand pat on the static evaluation instead
+    // of capturing, so it starts out as the best score found. a capture that would not lift the score to
+    // highest even if the captured piece came for free plus a margin is not searched at all, and neither is
+    // one that loses material in the exchange. in check there is no standing pat and every evasion is searched
+    private int quiescenceMax(final SearchBoard board,
+                              final int highest,
+                              final int lowest) {
+        checkStopSignal();
+        this.quiescenceNodes++;
+        final boolean isInCheck = board.isInCheck();
+        int currentHighest = highest;
+        int standPat = Integer.MIN_VALUE;
+        if (!isInCheck || board.getPly() >= MAX_QUIESCENCE_PLY) {
+            this.boardsEvaluated.increment();
+            standPat = this.evaluator.evaluate(board, 0);
+            if (standPat >= lowest || board.getPly() >= MAX_QUIESCENCE_PLY) {
+                return Math.max(highest, Math.min(standPat, lowest));
+            }
+            currentHighest = Math.max(currentHighest, standPat);
+        }
+        final MovePicker picker = isInCheck ?
+                initMovePicker(board, TranspositionTable.NO_MOVE) :
+                initCapturePicker(board);
+        int numLegalMoves = 0;
+        for (int move = picker.next(); move != SearchBoard.NO_MOVE; move = picker.next()) {
+            if (!isInCheck && !SearchBoard.isPromotion(move) &&
+                standPat + MovePicker.capturedValue(move) + DELTA_MARGIN <= currentHighest) {
+                continue;
+            }
+            if (!board.isLegal(move)) {
+                continue;
+            }
+            numLegalMoves++;
+            board.makeMove(move);
+            final int currentValue = quiescenceMin(board, currentHighest, lowest);
+            board.unmakeMove();
+            if (currentValue > currentHighest) {
+                currentHighest = currentValue;
+            }
+            if (currentHighest >= lowest) {
+                return lowest;
+            }
+        }
+        if (isInCheck && numLegalMoves == 0) {
+            this.boardsEvaluated.increment();
+            return Math.max(highest, Math.min(this.evaluator.evaluate(board, 0), lowest));
+        }
+        return currentHighest;
+    }
+
+    private int quiescenceMin(final SearchBoard board,
+                              final int highest,
+                              final int lowest) {
+        checkStopSignal();
+        this.quiescenceNodes++;
+        final boolean isInCheck = board.isInCheck();
+        int currentLowest = lowest;
+        int standPat = Integer.MAX_VALUE;
+        if (!isInCheck || board.getPly() >= MAX_QUIESCENCE_PLY) {
+            this.boardsEvaluated.increment();
+            standPat = this.evaluator.evaluate(board, 0);
+            if (standPat <= highest || board.getPly() >= MAX_QUIESCENCE_PLY) {
+                return Math.min(lowest, Math.max(standPat, highest));
+            }
+            currentLowest = Math.min(currentLowest, standPat);
+        }
+        final MovePicker picker = isInCheck ?
+                initMovePicker(board, TranspositionTable.NO_MOVE) :
+                initCapturePicker(board);
+        int numLegalMoves = 0;
+        for (int move = picker.next(); move != SearchBoard.NO_MOVE; move = picker.next()) {
+            if (!isInCheck && !SearchBoard.isPromotion(move) &&
+                standPat - MovePicker.capturedValue(move) - DELTA_MARGIN >= currentLowest) {
+                continue;
+            }
+            if (!board.isLegal(move)) {
+                continue;
+            }
+            numLegalMoves++;
+            board.makeMove(move);
+            final int currentValue = quiescenceMax(board, highest, currentLowest);
+            board.unmakeMove();
+            if (currentValue < currentLowest) {
+                currentLowest = currentValue;
+            }
+            if (currentLowest <= highest) {
+                return highest;
+            }
+        }
+        if (isInCheck && numLegalMoves == 0) {
+            this.boardsEvaluated.increment();
+            return Math.min(lowest, Math.max(this.evaluator.evaluate(board, 0), highest));
+        }
+        return currentLowest;
+    }
+
+}
@@ -21,6 +21,7 @@ import static com.chess.engine.classic.board.Move.*;
 public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrategy {
 
     private final BoardEvaluator evaluator;
+    private final TranspositionTable transpositionTable;
     private final int searchDepth;
     private final MoveSorter moveSorter;
     @SuppressWarnings("unused")
@@ -59,7 +60,14 @@ public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrateg
     
     public AlphaBetaWithMoveOrdering(final int searchDepth,
                                      final int quiescenceFactor) {
+        this(searchDepth, quiescenceFactor, new TranspositionTable(TranspositionTable.DEFAULT_SIZE));
+    }
+
+    public AlphaBetaWithMoveOrdering(final int searchDepth,
+                                     final int quiescenceFactor,
+                                     final TranspositionTable transpositionTable) {
         this.evaluator = StandardBoardEvaluator.get();
+        this.transpositionTable = transpositionTable;
         this.searchDepth = searchDepth;
         this.quiescenceFactor = quiescenceFactor;
         this.moveSorter = MoveSorter.SORT;
@@ -131,22 +139,39 @@ public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrateg
                    final int depth,
                    final int highest,
                    final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
+        if (depth == 0) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
+        final long entry = this.transpositionTable.probe(board.getZobristHash());
+        if (TranspositionTable.isUsable(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth())) {
+            return TranspositionTable.usableScore(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth());
+        }
         int currentHighest = highest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        int numLegalMoves = 0;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (final Move move : TranspositionTable.hashMoveFirst(this.moveSorter.sort(board.currentPlayer().getLegalMoves()), TranspositionTable.bestMove(entry))) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
-                currentHighest = Math.max(currentHighest, min(moveTransition.getToBoard(),
-                        calculateQuiescenceDepth(board, move, depth), currentHighest, lowest));
+                numLegalMoves++;
+                final int currentValue = min(moveTransition.getToBoard(), calculateQuiescenceDepth(board, move, depth), currentHighest, lowest);
+                if (currentValue > currentHighest) {
+                    currentHighest = currentValue;
+                    bestMove = TranspositionTable.encodeMove(move);
+                }
                 if (lowest <= currentHighest) {
                     this.cutOffsProduced++;
                     break;
                 }
             }
         }
+        if (numLegalMoves == 0) {
+            this.boardsEvaluated++;
+            return this.evaluator.evaluate(board, depth);
+        }
+        this.transpositionTable.store(board.getZobristHash(), depth,
+                TranspositionTable.boundOf(currentHighest, highest, lowest), currentHighest, bestMove,
+                this.evaluator.mateScorePerDepth());
         return currentHighest;
     }
 
@@ -154,22 +179,39 @@ public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrateg
                    final int depth,
                    final int highest,
                    final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
+        if (depth == 0) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
+        final long entry = this.transpositionTable.probe(board.getZobristHash());
+        if (TranspositionTable.isUsable(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth())) {
+            return TranspositionTable.usableScore(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth());
+        }
         int currentLowest = lowest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        int numLegalMoves = 0;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (final Move move : TranspositionTable.hashMoveFirst(this.moveSorter.sort(board.currentPlayer().getLegalMoves()), TranspositionTable.bestMove(entry))) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
-                currentLowest = Math.min(currentLowest, max(moveTransition.getToBoard(),
-                        calculateQuiescenceDepth(board, move, depth), highest, currentLowest));
+                numLegalMoves++;
+                final int currentValue = max(moveTransition.getToBoard(), calculateQuiescenceDepth(board, move, depth), highest, currentLowest);
+                if (currentValue < currentLowest) {
+                    currentLowest = currentValue;
+                    bestMove = TranspositionTable.encodeMove(move);
+                }
                 if (currentLowest <= highest) {
                     this.cutOffsProduced++;
                     break;
                 }
             }
         }
+        if (numLegalMoves == 0) {
+            this.boardsEvaluated++;
+            return this.evaluator.evaluate(board, depth);
+        }
+        this.transpositionTable.store(board.getZobristHash(), depth,
+                TranspositionTable.boundOf(currentLowest, highest, lowest), currentLowest, bestMove,
+                this.evaluator.mateScorePerDepth());
         return currentLowest;
     }
 
@@ -1,9 +1,16 @@
 package com.chess.engine.classic.player.ai;
 
 import com.chess.engine.classic.board.Board;
+import com.chess.engine.classic.board.SearchBoard;
 
 public interface BoardEvaluator {
 
     int evaluate(Board board, int depth);
 
+    int evaluate(SearchBoard board, int depth);
+
+    // what a mate is worth for each ply of depth left where it is found, so the transposition table can
+    // move a stored mate score to the depth it is read back at
+    int mateScorePerDepth();
+
 }
@@ -0,0 +1,106 @@
+package com.chess.engine.classic.player.ai;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// fixed size cache of evaluation scores keyed by the position hash, so a leaf the search or the move
+// ordering reaches again is not scored twice. the zobrist hash leaves out whether a king has castled,
+// which the evaluation rewards, so the key mixes it in. like the pawn hash table the key slot holds the
+// key xor the entry, so threads share the cache without locking and a torn slot reads as a miss. hits and
+// misses are counted by each thread on its own and only summed when they are read, so a probe writes no
+// memory that another thread touches
+final class EvaluationCache {
+
+    static final int DEFAULT_SIZE = 1 << 16;
+    static final long NO_ENTRY = Long.MIN_VALUE;
+
+    private static final long VALID_FLAG = 1L << 32;
+    private static final long WHITE_CASTLED_KEY = 0x5D3A7F1C9E4B2A67L;
+    private static final long BLACK_CASTLED_KEY = 0x2C81F46B0D97E3B5L;
+
+    private final long[] slots;
+    private final int mask;
+    private final Queue<ProbeCounts> allProbeCounts;
+    private final ThreadLocal<ProbeCounts> probeCounts;
+
+    EvaluationCache(final int size) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("evaluation cache size must be a power of two : " + size);
+        }
+        this.slots = new long[2 * size];
+        this.mask = size - 1;
+        this.allProbeCounts = new ConcurrentLinkedQueue<>();
+        this.probeCounts = ThreadLocal.withInitial(() -> {
+            final ProbeCounts counts = new ProbeCounts();
+            this.allProbeCounts.add(counts);
+            return counts;
+        });
+    }
+
+    // the counts of threads still probing are reset without synchronising, which is fine for statistics
+    void clear() {
+        Arrays.fill(this.slots, 0L);
+        for (final ProbeCounts counts : this.allProbeCounts) {
+            counts.hits = 0;
+            counts.misses = 0;
+        }
+    }
+
+    static long key(final long zobristHash,
+                    final boolean whiteCastled,
+                    final boolean blackCastled) {
+        return zobristHash ^ (whiteCastled ? WHITE_CASTLED_KEY : 0) ^ (blackCastled ? BLACK_CASTLED_KEY : 0);
+    }
+
+    // the entry stored for the key, or NO_ENTRY
+    long probe(final long key) {
+        final int index = index(key);
+        final long entry = this.slots[index + 1];
+        final ProbeCounts counts = this.probeCounts.get();
+        if ((entry & VALID_FLAG) != 0 && (this.slots[index] ^ entry) == key) {
+            counts.hits++;
+            return entry;
+        }
+        counts.misses++;
+        return NO_ENTRY;
+    }
+
+    void store(final long key,
+               final int score) {
+        final int index = index(key);
+        final long entry = (score & 0xFFFFFFFFL) | VALID_FLAG;
+        this.slots[index] = key ^ entry;
+        this.slots[index + 1] = entry;
+    }
+
+    static int score(final long entry) {
+        return (int) entry;
+    }
+
+    long getHits() {
+        long hits = 0;
+        for (final ProbeCounts counts : this.allProbeCounts) {
+            hits += counts.hits;
+        }
+        return hits;
+    }
+
+    long getMisses() {
+        long misses = 0;
+        for (final ProbeCounts counts : this.allProbeCounts) {
+            misses += counts.misses;
+        }
+        return misses;
+    }
+
+    private int index(final long key) {
+        return ((int) (key ^ (key >>> 32)) & this.mask) << 1;
+    }
+
+    private static final class ProbeCounts {
+        long hits;
+        long misses;
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.chess.engine.classic.player.ai;
+
+// the terms StandardBoardEvaluator adds up, each of which can be switched off
+public enum EvaluationTerm {
+    // the ratio of the side's pseudo-legal moves to the opponent's
+    MOBILITY,
+    // a bonus for giving check, and a larger one the sooner it mates
+    KING_THREATS,
+    // captures by a piece worth no more than its victim
+    ATTACKS,
+    // a bonus for a king that has castled
+    CASTLE,
+    // material, piece-square bonuses and the bishop pair
+    PIECES,
+    // isolated and doubled pawns
+    PAWN_STRUCTURE,
+    // opponent attacks on the squares around the king
+    KING_SAFETY
+}
@@ -0,0 +1,187 @@
+package com.chess.engine.classic.player.ai;
+
+import com.chess.engine.classic.board.BoardUtils;
+import com.chess.engine.classic.board.SearchBoard;
+import com.chess.engine.classic.pieces.Piece;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+// the numbers StandardBoardEvaluator scores with, held in plain int arrays so evaluating reads them without
+// boxing or lookups. a set of weights never changes once built, new ones are made with a builder or read from
+// a weights file, so they can be tuned offline and swapped into the evaluator between searches
+public final class EvaluationWeights {
+
+    public enum Weight {
+        CHECK_MATE_BONUS(10000),
+        CHECK_BONUS(45),
+        CASTLE_BONUS(25),
+        MOBILITY_MULTIPLIER(5),
+        ATTACK_MULTIPLIER(1),
+        TWO_BISHOPS_BONUS(25),
+        ISOLATED_PAWN_PENALTY(-10),
+        DOUBLED_PAWN_PENALTY(-10),
+        KING_ZONE_ATTACK_PENALTY(-6);
+
+        private final int defaultValue;
+
+        Weight(final int defaultValue) {
+            this.defaultValue = defaultValue;
+        }
+
+        public int getDefaultValue() {
+            return this.defaultValue;
+        }
+    }
+
+    // a weights file is the magic number, the named weights and then a table of 64 bonuses for each piece,
+    // white pawn to white king and then black. weights missing from the file keep their default
+    private static final int MAGIC = 0x45565731;
+    private static final int NUM_PIECE_CODES = 16;
+    private static final EvaluationWeights DEFAULT_WEIGHTS = createDefaultWeights();
+
+    private final int[] values;
+    private final int[][] pieceSquareBonuses;
+
+    private EvaluationWeights(final Builder builder) {
+        this.values = builder.values.clone();
+        this.pieceSquareBonuses = new int[NUM_PIECE_CODES][];
+        for (int piece = 0; piece < NUM_PIECE_CODES; piece++) {
+            this.pieceSquareBonuses[piece] = builder.pieceSquareBonuses[piece].clone();
+        }
+    }
+
+    public static EvaluationWeights defaults() {
+        return DEFAULT_WEIGHTS;
+    }
+
+    public static Builder builder(final EvaluationWeights weights) {
+        return new Builder(weights.values, weights.pieceSquareBonuses);
+    }
+
+    public int get(final Weight weight) {
+        return this.values[weight.ordinal()];
+    }
+
+    // indexed by the SearchBoard piece code, colour and type
+    public int getPieceSquareBonus(final int piece,
+                                   final int square) {
+        return this.pieceSquareBonuses[piece][square];
+    }
+
+    public int getPieceSquareBonus(final Piece piece) {
+        return this.pieceSquareBonuses[SearchBoard.pieceCode(piece)][piece.getPiecePosition()];
+    }
+
+    // shared with the search boards, which keep their piece-square scores up to date from it
+    int[][] pieceSquareBonuses() {
+        return this.pieceSquareBonuses;
+    }
+
+    public static EvaluationWeights load(final File weightsFile) throws IOException {
+        try (final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(weightsFile)))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("not a weights file : " + weightsFile);
+            }
+            final Builder builder = builder(DEFAULT_WEIGHTS);
+            final int numWeights = input.readInt();
+            for (int i = 0; i < numWeights; i++) {
+                final String name = input.readUTF();
+                final int value = input.readInt();
+                try {
+                    builder.setWeight(Weight.valueOf(name), value);
+                } catch (final IllegalArgumentException e) {
+                    throw new IOException("unknown weight " + name + " in " + weightsFile);
+                }
+            }
+            for (final int piece : pieceCodes()) {
+                for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+                    builder.setPieceSquareBonus(piece, square, input.readInt());
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    public void save(final File weightsFile) throws IOException {
+        try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(weightsFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(Weight.values().length);
+            for (final Weight weight : Weight.values()) {
+                output.writeUTF(weight.name());
+                output.writeInt(get(weight));
+            }
+            for (final int piece : pieceCodes()) {
+                for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+                    output.writeInt(this.pieceSquareBonuses[piece][square]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (final Weight weight : Weight.values()) {
+            builder.append(weight).append(" = ").append(get(weight)).append("\n");
+        }
+        return builder.toString();
+    }
+
+    private static int[] pieceCodes() {
+        final int[] pieceCodes = new int[2 * SearchBoard.KING];
+        for (int type = SearchBoard.PAWN; type <= SearchBoard.KING; type++) {
+            pieceCodes[type - 1] = SearchBoard.WHITE | type;
+            pieceCodes[SearchBoard.KING + type - 1] = SearchBoard.BLACK | type;
+        }
+        return pieceCodes;
+    }
+
+    private static EvaluationWeights createDefaultWeights() {
+        final int[] values = new int[Weight.values().length];
+        for (final Weight weight : Weight.values()) {
+            values[weight.ordinal()] = weight.getDefaultValue();
+        }
+        return new Builder(values, SearchBoard.defaultPieceSquareBonuses()).build();
+    }
+
+    public static final class Builder {
+
+        private final int[] values;
+        private final int[][] pieceSquareBonuses;
+
+        private Builder(final int[] values,
+                        final int[][] pieceSquareBonuses) {
+            this.values = values.clone();
+            this.pieceSquareBonuses = new int[NUM_PIECE_CODES][];
+            for (int piece = 0; piece < NUM_PIECE_CODES; piece++) {
+                this.pieceSquareBonuses[piece] = pieceSquareBonuses[piece].clone();
+            }
+        }
+
+        public Builder setWeight(final Weight weight,
+                                 final int value) {
+            this.values[weight.ordinal()] = value;
+            return this;
+        }
+
+        public Builder setPieceSquareBonus(final int piece,
+                                           final int square,
+                                           final int bonus) {
+            this.pieceSquareBonuses[piece][square] = bonus;
+            return this;
+        }
+
+        public EvaluationWeights build() {
+            return new EvaluationWeights(this);
+        }
+
+    }
+
+}
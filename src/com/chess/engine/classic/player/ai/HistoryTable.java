@@ -0,0 +1,80 @@
+package com.chess.engine.classic.player.ai;
+
+import com.chess.engine.classic.board.SearchBoard;
+
+import java.util.Arrays;
+
+// move ordering statistics that outlive a single search: a butterfly table of how well each quiet move
+// from one square to another has done for either side, and the reply that last refuted each move.
+// one table is meant to follow a game from move to move, with age() fading out what older searches learnt.
+// searching threads share it without locking, a lost update only costs a little ordering
+public final class HistoryTable {
+
+    private static final int NUM_SQUARES = 64;
+    private static final int MAX_SCORE = 1 << 20;
+
+    private final int[] scores;
+    private final int[] counterMoves;
+
+    public HistoryTable() {
+        this.scores = new int[2 * NUM_SQUARES * NUM_SQUARES];
+        this.counterMoves = new int[NUM_SQUARES * NUM_SQUARES];
+    }
+
+    public void clear() {
+        Arrays.fill(this.scores, 0);
+        Arrays.fill(this.counterMoves, SearchBoard.NO_MOVE);
+    }
+
+    // halves every score, so moves that did well in the last search count for more than older ones
+    public void age() {
+        for (int i = 0; i < this.scores.length; i++) {
+            this.scores[i] >>= 1;
+        }
+    }
+
+    int getScore(final int side,
+                 final int move) {
+        return this.scores[index(side, move)];
+    }
+
+    // rewards a quiet move that caused a cutoff, by more the deeper the subtree it refuted
+    void recordCutoff(final int side,
+                      final int move,
+                      final int depth) {
+        final int index = index(side, move);
+        this.scores[index] += depth * depth;
+        if (this.scores[index] >= MAX_SCORE) {
+            age();
+        }
+    }
+
+    // penalises a quiet move that was searched before the one that caused a cutoff
+    void recordFailure(final int side,
+                       final int move,
+                       final int depth) {
+        final int index = index(side, move);
+        this.scores[index] = Math.max(0, this.scores[index] - depth);
+    }
+
+    int getCounterMove(final int previousMove) {
+        return previousMove == SearchBoard.NO_MOVE ? SearchBoard.NO_MOVE : this.counterMoves[squares(previousMove)];
+    }
+
+    void setCounterMove(final int previousMove,
+                        final int move) {
+        if (previousMove != SearchBoard.NO_MOVE) {
+            this.counterMoves[squares(previousMove)] = move;
+        }
+    }
+
+    private static int index(final int side,
+                             final int move) {
+        return SearchBoard.sideIndex(side) * NUM_SQUARES * NUM_SQUARES + squares(move);
+    }
+
+    private static int squares(final int move) {
+        return SearchBoard.from(move) * NUM_SQUARES + SearchBoard.to(move);
+    }
+
+}
@@ -18,11 +18,23 @@ import static com.google.common.collect.Ordering.from;
 public class IterativeDeepening extends Observable implements MoveStrategy {
 
     private final BoardEvaluator evaluator;
+    private final TranspositionTable transpositionTable;
     private final int searchDepth;
+    private final TimeControl timeControl;
     private final MoveSorter moveSorter;
     private long boardsEvaluated;
     private long executionTime;
     private int cutOffsProduced;
+    private long nodeCount;
+    private long hardDeadline;
+    private int aspirationFailHighs;
+    private int aspirationFailLows;
+    private int reSearches;
+    private static final int MAX_SEARCH_DEPTH = 64;
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+    private static final int ASPIRATION_MIN_DEPTH = 3;
+    private static final int ASPIRATION_WINDOW = 50;
+    private static final int MAX_ASPIRATION_WINDOW = 800;
     // enum used to sort move
     private enum MoveSorter {
         SORT {
@@ -45,8 +57,24 @@ public class IterativeDeepening extends Observable implements MoveStrategy {
         abstract Collection<Move> sort(Collection<Move> moves);
     }
     public IterativeDeepening(final int searchDepth) {
+        this(searchDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE));
+    }
+    public IterativeDeepening(final int searchDepth,
+                              final TranspositionTable transpositionTable) {
+        this(searchDepth, transpositionTable, TimeControl.INFINITE);
+    }
+    // searches as deep as the time control allows
+    public IterativeDeepening(final TimeControl timeControl) {
+        this(MAX_SEARCH_DEPTH, new TranspositionTable(TranspositionTable.DEFAULT_SIZE), timeControl);
+    }
+    // searches until the depth is reached or the time control runs out, whichever comes first
+    public IterativeDeepening(final int searchDepth,
+                              final TranspositionTable transpositionTable,
+                              final TimeControl timeControl) {
         this.evaluator = StandardBoardEvaluator.get();
+        this.transpositionTable = transpositionTable;
         this.searchDepth = searchDepth;
+        this.timeControl = timeControl;
         this.moveSorter = MoveSorter.SORT;
         this.boardsEvaluated = 0;
         this.cutOffsProduced = 0;
@@ -59,44 +87,75 @@ public class IterativeDeepening extends Observable implements MoveStrategy {
     public long getNumBoardsEvaluated() {
         return this.boardsEvaluated;
     }
+    // root searches that came back above the aspiration window, seen from the side to move
+    public int getAspirationFailHighs() {
+        return this.aspirationFailHighs;
+    }
+    // root searches that came back below the aspiration window, seen from the side to move
+    public int getAspirationFailLows() {
+        return this.aspirationFailLows;
+    }
+    // null window scouts that failed high and had to be searched again with the full window
+    public int getReSearches() {
+        return this.reSearches;
+    }
     @Override
     public Move execute(final Board board) {
         final long startTime = System.currentTimeMillis();
-        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth + ", time = " + this.timeControl);
+        final long softDeadline = deadline(startTime, this.timeControl.getSoftLimitMillis());
         MoveOrderingBuilder builder = new MoveOrderingBuilder();
         builder.setOrder(board.currentPlayer().getAlliance().isWhite() ? Ordering.DESC : Ordering.ASC);
         for(final Move move : board.currentPlayer().getLegalMoves()) {
             builder.addMoveOrderingRecord(move, 0);
         }
         Move bestMove = MoveFactory.getNullMove();
+        int bestValue = 0;
         int currentDepth = 1;
+        // the first iteration always runs to completion so there is a move to play however tight the clock
+        this.hardDeadline = Long.MAX_VALUE;
 
-        int highestSeenValue = Integer.MIN_VALUE;
-        int lowestSeenValue = Integer.MAX_VALUE;
-
-        while (currentDepth <= this.searchDepth) {
+        while (currentDepth <= this.searchDepth && (currentDepth == 1 || System.currentTimeMillis() < softDeadline)) {
             final long subTimeStart = System.currentTimeMillis();
-            int currentValue;
             final List<MoveScoreRecord> records = builder.build();
-            builder = new MoveOrderingBuilder();
-            builder.setOrder(board.currentPlayer().getAlliance().isWhite() ? Ordering.DESC : Ordering.ASC);
-            for (final MoveScoreRecord record : records) {
-                final Move move = record.getMove();
-                final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-                if (moveTransition.getMoveStatus().isDone()) {
-                    currentValue = board.currentPlayer().getAlliance().isWhite() ?
-                            min(moveTransition.getToBoard(), currentDepth - 1, highestSeenValue, lowestSeenValue) :
-                            max(moveTransition.getToBoard(), currentDepth - 1, highestSeenValue, lowestSeenValue);
-                    builder.addMoveOrderingRecord(move, currentValue);
-                    if (board.currentPlayer().getAlliance().isWhite() && currentValue > highestSeenValue) {
-                        highestSeenValue = currentValue;
-                        bestMove = move;
-                    } else if (board.currentPlayer().getAlliance().isBlack() && currentValue < lowestSeenValue) {
-                        lowestSeenValue = currentValue;
-                        bestMove = move;
+            // the window starts around the score of the previous iteration and is widened on the side that
+            // failed until the score falls inside it, or the window has grown so wide it is dropped altogether
+            int window = ASPIRATION_WINDOW;
+            int highest = currentDepth >= ASPIRATION_MIN_DEPTH ? bestValue - window : Integer.MIN_VALUE;
+            int lowest = currentDepth >= ASPIRATION_MIN_DEPTH ? bestValue + window : Integer.MAX_VALUE;
+            RootSearchResult result;
+            try {
+                while (true) {
+                    builder = new MoveOrderingBuilder();
+                    builder.setOrder(board.currentPlayer().getAlliance().isWhite() ? Ordering.DESC : Ordering.ASC);
+                    result = searchRoot(board, records, currentDepth, highest, lowest, builder);
+                    if (result.value <= highest && highest != Integer.MIN_VALUE) {
+                        if (board.currentPlayer().getAlliance().isWhite()) {
+                            this.aspirationFailLows++;
+                        } else {
+                            this.aspirationFailHighs++;
+                        }
+                        window *= 2;
+                        highest = window > MAX_ASPIRATION_WINDOW ? Integer.MIN_VALUE : bestValue - window;
+                    } else if (result.value >= lowest && lowest != Integer.MAX_VALUE) {
+                        if (board.currentPlayer().getAlliance().isWhite()) {
+                            this.aspirationFailHighs++;
+                        } else {
+                            this.aspirationFailLows++;
+                        }
+                        window *= 2;
+                        lowest = window > MAX_ASPIRATION_WINDOW ? Integer.MAX_VALUE : bestValue + window;
+                    } else {
+                        break;
                     }
                 }
+            } catch (final SearchStoppedException e) {
+                System.out.println("\t" +toString()+ " out of time at depth " +currentDepth+ ", keeping the move of depth " +(currentDepth - 1));
+                break;
             }
+            bestMove = result.move;
+            bestValue = result.value;
+            this.hardDeadline = deadline(startTime, this.timeControl.getHardLimitMillis());
             final long subTime = System.currentTimeMillis()- subTimeStart;
             System.out.println("\t" +toString()+ " bestMove = " +bestMove+ " Depth = " +currentDepth+ " took " +(subTime) + " ms, ordered moves : " +records);
             setChanged();
@@ -106,53 +165,174 @@ public class IterativeDeepening extends Observable implements MoveStrategy {
         this.executionTime = System.currentTimeMillis() - startTime;
         System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, eval rate = %.1f cutoffCount = %d prune percent = %.2f\n", board.currentPlayer(),
                 bestMove, this.boardsEvaluated, this.executionTime, (1000 * ((double)this.boardsEvaluated/this.executionTime)), this.cutOffsProduced, 100 * ((double)this.cutOffsProduced/this.boardsEvaluated));
+        System.out.printf("\taspiration fail highs = %d, fail lows = %d, re-searches = %d\n",
+                this.aspirationFailHighs, this.aspirationFailLows, this.reSearches);
         return bestMove;
     }
-    // iterative co-recurrent min and max functions
+    // principal variation search over the root moves in the order of the previous iteration. the first move
+    // is searched with the whole (highest, lowest) window, every later one only has to show it is no better
+    // with a null window and is searched again in full when it turns out to be
+    private RootSearchResult searchRoot(final Board board,
+                                        final List<MoveScoreRecord> records,
+                                        final int depth,
+                                        final int highest,
+                                        final int lowest,
+                                        final MoveOrderingBuilder builder) {
+        final boolean isWhite = board.currentPlayer().getAlliance().isWhite();
+        int highestSeenValue = highest;
+        int lowestSeenValue = lowest;
+        Move bestMove = MoveFactory.getNullMove();
+        boolean isFirstMove = true;
+        for (final MoveScoreRecord record : records) {
+            final Move move = record.getMove();
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            if (!moveTransition.getMoveStatus().isDone()) {
+                continue;
+            }
+            final Board toBoard = moveTransition.getToBoard();
+            int currentValue;
+            if (isWhite) {
+                currentValue = isFirstMove ? min(toBoard, depth - 1, highestSeenValue, lowestSeenValue) :
+                        min(toBoard, depth - 1, highestSeenValue, highestSeenValue + 1);
+                if (!isFirstMove && currentValue > highestSeenValue && currentValue < lowestSeenValue) {
+                    this.reSearches++;
+                    currentValue = min(toBoard, depth - 1, highestSeenValue, lowestSeenValue);
+                }
+            } else {
+                currentValue = isFirstMove ? max(toBoard, depth - 1, highestSeenValue, lowestSeenValue) :
+                        max(toBoard, depth - 1, lowestSeenValue - 1, lowestSeenValue);
+                if (!isFirstMove && currentValue < lowestSeenValue && currentValue > highestSeenValue) {
+                    this.reSearches++;
+                    currentValue = max(toBoard, depth - 1, highestSeenValue, lowestSeenValue);
+                }
+            }
+            isFirstMove = false;
+            builder.addMoveOrderingRecord(move, currentValue);
+            if (isWhite && currentValue > highestSeenValue) {
+                highestSeenValue = currentValue;
+                bestMove = move;
+            } else if (!isWhite && currentValue < lowestSeenValue) {
+                lowestSeenValue = currentValue;
+                bestMove = move;
+            }
+            if (highestSeenValue >= lowestSeenValue) {
+                break;
+            }
+        }
+        return new RootSearchResult(bestMove, isWhite ? highestSeenValue : lowestSeenValue);
+    }
+    // iterative co-recurrent min and max functions, searching every move after the first with a null window
     public int max(final Board board,
                    final int depth,
                    final int highest,
                    final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
+        if (depth == 0) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
+        checkDeadline();
+        final long entry = this.transpositionTable.probe(board.getZobristHash());
+        if (TranspositionTable.isUsable(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth())) {
+            return TranspositionTable.usableScore(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth());
+        }
         int currentHighest = highest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        int numLegalMoves = 0;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (final Move move : TranspositionTable.hashMoveFirst(this.moveSorter.sort(board.currentPlayer().getLegalMoves()), TranspositionTable.bestMove(entry))) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
-                currentHighest = Math.max(currentHighest, min(moveTransition.getToBoard(),
-                        depth - 1, currentHighest, lowest));
+                numLegalMoves++;
+                int currentValue = numLegalMoves == 1 ?
+                        min(moveTransition.getToBoard(), depth - 1, currentHighest, lowest) :
+                        min(moveTransition.getToBoard(), depth - 1, currentHighest, currentHighest + 1);
+                if (numLegalMoves > 1 && currentValue > currentHighest && currentValue < lowest) {
+                    this.reSearches++;
+                    currentValue = min(moveTransition.getToBoard(), depth - 1, currentHighest, lowest);
+                }
+                if (currentValue > currentHighest) {
+                    currentHighest = currentValue;
+                    bestMove = TranspositionTable.encodeMove(move);
+                }
                 if (lowest <= currentHighest) {
                     this.cutOffsProduced++;
                     break;
                 }
             }
         }
+        if (numLegalMoves == 0) {
+            this.boardsEvaluated++;
+            return this.evaluator.evaluate(board, depth);
+        }
+        this.transpositionTable.store(board.getZobristHash(), depth,
+                TranspositionTable.boundOf(currentHighest, highest, lowest), currentHighest, bestMove,
+                this.evaluator.mateScorePerDepth());
         return currentHighest;
     }
     public int min(final Board board,
                    final int depth,
                    final int highest,
                    final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
+        if (depth == 0) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
+        checkDeadline();
+        final long entry = this.transpositionTable.probe(board.getZobristHash());
+        if (TranspositionTable.isUsable(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth())) {
+            return TranspositionTable.usableScore(entry, depth, highest, lowest, this.evaluator.mateScorePerDepth());
+        }
         int currentLowest = lowest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        int numLegalMoves = 0;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (final Move move : TranspositionTable.hashMoveFirst(this.moveSorter.sort(board.currentPlayer().getLegalMoves()), TranspositionTable.bestMove(entry))) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
-                currentLowest = Math.min(currentLowest, max(moveTransition.getToBoard(),
-                        depth - 1, highest, currentLowest));
+                numLegalMoves++;
+                int currentValue = numLegalMoves == 1 ?
+                        max(moveTransition.getToBoard(), depth - 1, highest, currentLowest) :
+                        max(moveTransition.getToBoard(), depth - 1, currentLowest - 1, currentLowest);
+                if (numLegalMoves > 1 && currentValue < currentLowest && currentValue > highest) {
+                    this.reSearches++;
+                    currentValue = max(moveTransition.getToBoard(), depth - 1, highest, currentLowest);
+                }
+                if (currentValue < currentLowest) {
+                    currentLowest = currentValue;
+                    bestMove = TranspositionTable.encodeMove(move);
+                }
                 if (currentLowest <= highest) {
                     this.cutOffsProduced++;
                     break;
                 }
             }
         }
+        if (numLegalMoves == 0) {
+            this.boardsEvaluated++;
+            return this.evaluator.evaluate(board, depth);
+        }
+        this.transpositionTable.store(board.getZobristHash(), depth,
+                TranspositionTable.boundOf(currentLowest, highest, lowest), currentLowest, bestMove,
+                this.evaluator.mateScorePerDepth());
         return currentLowest;
     }
+    // unwinds the running iteration once the hard limit has passed. nothing is stored on the way out,
+    // so the transposition table only ever holds results of completed subtrees
+    private void checkDeadline() {
+        if (++this.nodeCount % DEADLINE_CHECK_INTERVAL == 0 && System.currentTimeMillis() >= this.hardDeadline) {
+            throw new SearchStoppedException();
+        }
+    }
+    private static long deadline(final long startTime,
+                                 final long limitMillis) {
+        return limitMillis == Long.MAX_VALUE ? Long.MAX_VALUE : startTime + limitMillis;
+    }
+    private static final class RootSearchResult {
+        final Move move;
+        final int value;
+        RootSearchResult(final Move move, final int value) {
+            this.move = move;
+            this.value = value;
+        }
+    }
     //  used to score the moves made to determine the best move
     private static class MoveScoreRecord implements Comparable<MoveScoreRecord> {
         final Move move;
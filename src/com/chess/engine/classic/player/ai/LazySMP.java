@@ -0,0 +1,227 @@
+package com.chess.engine.classic.player.ai;
+
+import com.chess.engine.classic.board.Board;
+import com.chess.engine.classic.board.Move;
+import com.chess.engine.classic.board.SearchBoard;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// iterative deepening where helper threads search the same position next to the main thread and share
+// nothing but the transposition table. the helpers start one ply apart and keep deepening until the main
+// thread finishes its last iteration, filling the table with results the main thread then picks up
+@SuppressWarnings("deprecation")
+public class LazySMP extends Observable implements MoveStrategy {
+
+    private static final int MAX_HELPER_DEPTH = SearchBoard.MAX_PLY / 4;
+    private static final long IDLE_HELPER_SECONDS = 60;
+
+    private final StandardBoardEvaluator evaluator;
+    private final TranspositionTable transpositionTable;
+    private final HistoryTable historyTable;
+    private final int searchDepth;
+    private final int numThreads;
+    private final TimeControl timeControl;
+    private final AtomicBoolean stopSignal;
+    private final LongAdder boardsEvaluated;
+    private final Map<Pruning, LongAdder> pruneCounts;
+    private final ThreadLocal<AlphaBetaSearcher> searchers;
+    private final ThreadPoolExecutor helperPool;
+
+    public LazySMP(final int searchDepth,
+                   final int numThreads) {
+        this(searchDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE), numThreads);
+    }
+
+    public LazySMP(final int searchDepth,
+                   final TranspositionTable transpositionTable,
+                   final int numThreads) {
+        this(searchDepth, transpositionTable, numThreads, EnumSet.allOf(Pruning.class));
+    }
+
+    // the history table can be handed from one move of a game to the next to keep its move ordering
+    public LazySMP(final int searchDepth,
+                   final TranspositionTable transpositionTable,
+                   final int numThreads,
+                   final HistoryTable historyTable) {
+        this(searchDepth, transpositionTable, numThreads, historyTable, EnumSet.allOf(Pruning.class));
+    }
+
+    // the search deepens up to searchDepth, stopping early when the time control runs out
+    public LazySMP(final int searchDepth,
+                   final TranspositionTable transpositionTable,
+                   final int numThreads,
+                   final HistoryTable historyTable,
+                   final TimeControl timeControl) {
+        this(searchDepth, transpositionTable, numThreads, historyTable, EnumSet.allOf(Pruning.class), timeControl);
+    }
+
+    // only the pruning techniques in the set are used, the others are switched off
+    public LazySMP(final int searchDepth,
+                   final TranspositionTable transpositionTable,
+                   final int numThreads,
+                   final Set<Pruning> pruning) {
+        this(searchDepth, transpositionTable, numThreads, new HistoryTable(), pruning);
+    }
+
+    public LazySMP(final int searchDepth,
+                   final TranspositionTable transpositionTable,
+                   final int numThreads,
+                   final HistoryTable historyTable,
+                   final Set<Pruning> pruning) {
+        this(searchDepth, transpositionTable, numThreads, historyTable, pruning, TimeControl.INFINITE);
+    }
+
+    public LazySMP(final int searchDepth,
+                   final TranspositionTable transpositionTable,
+                   final int numThreads,
+                   final HistoryTable historyTable,
+                   final Set<Pruning> pruning,
+                   final TimeControl timeControl) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("search needs at least one thread : " + numThreads);
+        }
+        this.evaluator = StandardBoardEvaluator.get();
+        this.transpositionTable = transpositionTable;
+        this.historyTable = historyTable;
+        this.searchDepth = searchDepth;
+        this.numThreads = numThreads;
+        this.timeControl = timeControl;
+        this.stopSignal = new AtomicBoolean();
+        this.boardsEvaluated = new LongAdder();
+        this.pruneCounts = AlphaBetaSearcher.newPruneCounts();
+        final Set<Pruning> enabledPruning = EnumSet.copyOf(pruning);
+        this.searchers = ThreadLocal.withInitial(() -> new AlphaBetaSearcher(this.evaluator, transpositionTable,
+                historyTable, this.boardsEvaluated, this.stopSignal, enabledPruning, this.pruneCounts));
+        // kept from one move to the next so the helper threads and their searchers are reused, idle helpers
+        // retire on their own
+        this.helperPool = numThreads == 1 ? null : newHelperPool(numThreads - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "LazySMP";
+    }
+
+    @Override
+    public long getNumBoardsEvaluated() {
+        return this.boardsEvaluated.sum();
+    }
+
+    // nodes given up or moves skipped by the technique over all threads
+    public long getNumPruned(final Pruning technique) {
+        return this.pruneCounts.get(technique).sum();
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.currentTimeMillis();
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth +
+                " threads = " + this.numThreads + ", time = " + this.timeControl);
+        this.boardsEvaluated.reset();
+        this.pruneCounts.values().forEach(LongAdder::reset);
+        this.historyTable.age();
+        this.stopSignal.set(false);
+        final List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < this.numThreads; i++) {
+            helpers.add(this.helperPool.submit(createHelper(board, i)));
+        }
+        final SearchBoard searchBoard = this.evaluator.createSearchBoard(board);
+        final AlphaBetaSearcher searcher = this.searchers.get();
+        int bestMove = TranspositionTable.NO_MOVE;
+        ScheduledFuture<?> timeout = null;
+        try {
+            for (int depth = 1; depth <= this.searchDepth; depth++) {
+                if (depth > 1 && !this.timeControl.isInfinite()) {
+                    if (System.currentTimeMillis() - startTime >= this.timeControl.getSoftLimitMillis()) {
+                        break;
+                    }
+                    if (timeout == null) {
+                        timeout = this.timeControl.scheduleStop(this.stopSignal, startTime);
+                    }
+                }
+                final long iterationStartTime = System.nanoTime();
+                bestMove = searcher.searchRoot(searchBoard, depth);
+                final String s = "\t" + toString() + "(" +depth+ "), best: " + SearchBoard.toString(bestMove) +
+                        " [score: " +searcher.getRootValue()+ "], boards: " +getNumBoardsEvaluated()+
+                        ", t: " +(System.nanoTime() - iterationStartTime) / 1000000+ " ms";
+                System.out.println(s);
+                setChanged();
+                notifyObservers(s);
+            }
+        } catch (final SearchStoppedException e) {
+            System.out.println("\t" + toString() + " out of time, keeping the move of the last finished depth");
+        } finally {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            this.stopSignal.set(true);
+            for (final Future<?> helper : helpers) {
+                awaitQuietly(helper);
+            }
+            this.stopSignal.set(false);
+        }
+        final Move move = SearchBoard.toBoardMove(board, bestMove);
+        final long executionTime = System.currentTimeMillis() - startTime;
+        final long boardsEvaluated = getNumBoardsEvaluated();
+        final String result = board.currentPlayer() + " SELECTS " +move+ " [#boards evaluated = " +boardsEvaluated+
+                " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)boardsEvaluated/ executionTime));
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, pruned = %s, time taken = %d ms, rate = %.1f\n", board.currentPlayer(),
+                move, boardsEvaluated, this.pruneCounts, executionTime, (1000 * ((double)boardsEvaluated/ executionTime)));
+        setChanged();
+        notifyObservers(result);
+        return move;
+    }
+
+    // odd helpers run one ply ahead of the even ones so the threads spread over two depths at once
+    private Runnable createHelper(final Board board,
+                                  final int helperIndex) {
+        final SearchBoard searchBoard = this.evaluator.createSearchBoard(board);
+        return () -> {
+            final AlphaBetaSearcher searcher = this.searchers.get();
+            try {
+                for (int depth = 1 + helperIndex % 2; depth <= MAX_HELPER_DEPTH && !this.stopSignal.get(); depth++) {
+                    searcher.searchRoot(searchBoard, depth);
+                }
+            } catch (final SearchStoppedException e) {
+                // the main thread is done, whatever this helper found is already in the table
+            }
+        };
+    }
+
+    private static ThreadPoolExecutor newHelperPool(final int numHelpers) {
+        final AtomicInteger helperCount = new AtomicInteger();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(numHelpers, numHelpers, IDLE_HELPER_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread helper = new Thread(runnable, "lazy-smp-helper-" + helperCount.incrementAndGet());
+                    helper.setDaemon(true);
+                    return helper;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static void awaitQuietly(final Future<?> helper) {
+        try {
+            helper.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+}
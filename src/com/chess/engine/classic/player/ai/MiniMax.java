@@ -89,19 +89,21 @@ public final class MiniMax implements MoveStrategy {
             this.freqTable[this.freqTableIndex].increment();
             return this.evaluator.evaluate(board, depth);
         }
-        if(isEndGameScenario(board)) {
-            return this.evaluator.evaluate(board, depth);
-        }
         int lowestSeenValue = Integer.MAX_VALUE;
+        int numLegalMoves = 0;
         for (final Move move : board.currentPlayer().getLegalMoves()) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
+                numLegalMoves++;
                 final int currentValue = max(moveTransition.getToBoard(), depth - 1);
                 if (currentValue <= lowestSeenValue) {
                     lowestSeenValue = currentValue;
                 }
             }
         }
+        if (numLegalMoves == 0) {
+            return this.evaluator.evaluate(board, depth);
+        }
         return lowestSeenValue;
     }
     private int max(final Board board,
@@ -111,25 +113,23 @@ public final class MiniMax implements MoveStrategy {
             this.freqTable[this.freqTableIndex].increment();
             return this.evaluator.evaluate(board, depth);
         }
-        if(isEndGameScenario(board)) {
-            return this.evaluator.evaluate(board, depth);
-        }
         int highestSeenValue = Integer.MIN_VALUE;
+        int numLegalMoves = 0;
         for (final Move move : board.currentPlayer().getLegalMoves()) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
+                numLegalMoves++;
                 final int currentValue = min(moveTransition.getToBoard(), depth - 1);
                 if (currentValue >= highestSeenValue) {
                     highestSeenValue = currentValue;
                 }
             }
         }
+        if (numLegalMoves == 0) {
+            return this.evaluator.evaluate(board, depth);
+        }
         return highestSeenValue;
     }
-    // used to check whether the game is at the end
-    private static boolean isEndGameScenario(final Board board) {
-        return board.currentPlayer().isInCheckMate() || board.currentPlayer().isInStaleMate();
-    }
     private static class FreqTableRow {
         private final Move move;
         private final AtomicLong count;
@@ -96,43 +96,48 @@ public final class MoveOrdering {
 
     public int min(final Board board,
                    final int depth) {
-        if(depth == 0 || isEndGameScenario(board)) {
+        if(depth == 0) {
             return this.evaluator.evaluate(board, depth);
         }
         int lowestSeenValue = Integer.MAX_VALUE;
+        int numLegalMoves = 0;
         for (final Move move : calculateSimpleMoveOrder(board.currentPlayer().getLegalMoves())) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
+                numLegalMoves++;
                 final int currentValue = max(moveTransition.getToBoard(), depth - 1);
                 if (currentValue <= lowestSeenValue) {
                     lowestSeenValue = currentValue;
                 }
             }
         }
+        if (numLegalMoves == 0) {
+            return this.evaluator.evaluate(board, depth);
+        }
         return lowestSeenValue;
     }
 
     public int max(final Board board,
                    final int depth) {
-        if(depth == 0 || isEndGameScenario(board)) {
+        if(depth == 0) {
             return this.evaluator.evaluate(board, depth);
         }
         int highestSeenValue = Integer.MIN_VALUE;
+        int numLegalMoves = 0;
         for (final Move move : calculateSimpleMoveOrder(board.currentPlayer().getLegalMoves())) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
+                numLegalMoves++;
                 final int currentValue = min(moveTransition.getToBoard(), depth - 1);
                 if (currentValue >= highestSeenValue) {
                     highestSeenValue = currentValue;
                 }
             }
         }
+        if (numLegalMoves == 0) {
+            return this.evaluator.evaluate(board, depth);
+        }
         return highestSeenValue;
     }
 
-    private static boolean isEndGameScenario(final Board board) {
-        return  board.currentPlayer().isInCheckMate() ||
-                board.currentPlayer().isInStaleMate();
-    }
-
 }
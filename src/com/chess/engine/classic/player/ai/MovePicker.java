@@ -0,0 +1,229 @@
+package com.chess.engine.classic.player.ai;
+
+import com.chess.engine.classic.board.MoveList;
+import com.chess.engine.classic.board.SearchBoard;
+
+import static com.chess.engine.classic.board.BoardUtils.mvvlva;
+
+// hands out the moves of one node best first, doing only as much work as the search asks for. the hash move
+// is tried before anything is generated, then the captures are generated and picked one at a time by
+// selection, then come the killers and the counter move, and only after all of those are the quiet moves
+// generated, followed at last by the captures that lose material. a node that cuts off early never pays
+// for generating or ordering the moves it does not reach. one picker is kept per ply and reused
+final class MovePicker {
+
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int COUNTER_MOVE = 5;
+    private static final int GENERATE_QUIETS = 6;
+    private static final int QUIETS = 7;
+    private static final int BAD_CAPTURES = 8;
+    private static final int DONE = 9;
+
+    private static final int CASTLE_ORDER_SCORE = Integer.MAX_VALUE;
+
+    private final HistoryTable historyTable;
+    private final int[] moves;
+    private final int[] scores;
+    private final MoveList badCaptures;
+    private final MoveList searchedQuiets;
+    private SearchBoard board;
+    private boolean capturesOnly;
+    private int stage;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int counterMove;
+    private int index;
+    private int numMoves;
+
+    MovePicker(final HistoryTable historyTable) {
+        this.historyTable = historyTable;
+        this.moves = new int[SearchBoard.MAX_MOVES];
+        this.scores = new int[SearchBoard.MAX_MOVES];
+        this.badCaptures = new MoveList();
+        this.searchedQuiets = new MoveList();
+    }
+
+    // prepares to hand out every pseudo-legal move of the side to move
+    void init(final SearchBoard board,
+              final int hashMove,
+              final int firstKiller,
+              final int secondKiller,
+              final int counterMove) {
+        this.board = board;
+        this.capturesOnly = false;
+        this.stage = HASH_MOVE;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.counterMove = counterMove;
+        this.badCaptures.clear();
+        this.searchedQuiets.clear();
+    }
+
+    // prepares to hand out only the captures and queen promotions that do not lose material
+    void initCaptures(final SearchBoard board) {
+        init(board, SearchBoard.NO_MOVE, SearchBoard.NO_MOVE, SearchBoard.NO_MOVE, SearchBoard.NO_MOVE);
+        this.capturesOnly = true;
+        this.stage = GENERATE_CAPTURES;
+    }
+
+    // the next move to search, or NO_MOVE once there are none left. moves are pseudo-legal and still
+    // have to pass SearchBoard.isLegal(). the stages fall through in order as each one runs out of moves
+    @SuppressWarnings("fallthrough")
+    int next() {
+        switch (this.stage) {
+            case HASH_MOVE:
+                this.stage = GENERATE_CAPTURES;
+                if (this.hashMove != SearchBoard.NO_MOVE && this.board.isPseudoLegal(this.hashMove)) {
+                    return searched(this.hashMove);
+                }
+            case GENERATE_CAPTURES:
+                this.numMoves = this.board.generateCaptures(this.board.getSideToMove(), this.moves);
+                for (int i = 0; i < this.numMoves; i++) {
+                    this.scores[i] = captureOrderScore(this.board, this.moves[i]);
+                }
+                this.index = 0;
+                this.stage = GOOD_CAPTURES;
+            case GOOD_CAPTURES:
+                while (this.index < this.numMoves) {
+                    final int move = pickBest();
+                    if (move == this.hashMove) {
+                        continue;
+                    }
+                    if (this.scores[this.index - 1] < 0) {
+                        this.badCaptures.add(move);
+                        continue;
+                    }
+                    return move;
+                }
+                if (this.capturesOnly) {
+                    this.stage = DONE;
+                    return SearchBoard.NO_MOVE;
+                }
+                this.stage = FIRST_KILLER;
+            case FIRST_KILLER:
+                this.stage = SECOND_KILLER;
+                if (isPlayableQuiet(this.firstKiller)) {
+                    return searched(this.firstKiller);
+                }
+            case SECOND_KILLER:
+                this.stage = COUNTER_MOVE;
+                if (this.secondKiller != this.firstKiller && isPlayableQuiet(this.secondKiller)) {
+                    return searched(this.secondKiller);
+                }
+            case COUNTER_MOVE:
+                this.stage = GENERATE_QUIETS;
+                if (this.counterMove != this.firstKiller && this.counterMove != this.secondKiller &&
+                    isPlayableQuiet(this.counterMove)) {
+                    return searched(this.counterMove);
+                }
+            case GENERATE_QUIETS:
+                generateQuiets();
+                this.stage = QUIETS;
+            case QUIETS:
+                if (this.index < this.numMoves) {
+                    return searched(pickBest());
+                }
+                this.index = 0;
+                this.stage = BAD_CAPTURES;
+            case BAD_CAPTURES:
+                if (this.index < this.badCaptures.size()) {
+                    return this.badCaptures.get(this.index++);
+                }
+                this.stage = DONE;
+            default:
+                return SearchBoard.NO_MOVE;
+        }
+    }
+
+    // the quiet moves handed out so far, so the history of the ones that did not cut off can be marked down
+    int getNumSearchedQuiets() {
+        return this.searchedQuiets.size();
+    }
+
+    int getSearchedQuiet(final int i) {
+        return this.searchedQuiets.get(i);
+    }
+
+    static boolean isQuiet(final int move) {
+        return !SearchBoard.isCapture(move) && !SearchBoard.isPromotion(move);
+    }
+
+    // only a capture by a piece worth more than its victim can lose material, the others need no exchange.
+    // one that does lose is scored by what it loses
+    static int captureOrderScore(final SearchBoard board,
+                                 final int move) {
+        if (SearchBoard.isCapture(move) && !SearchBoard.isPromotion(move) &&
+            SearchBoard.pieceValue(SearchBoard.movedType(move)) > capturedValue(move)) {
+            final int exchange = board.staticExchange(move);
+            if (exchange < 0) {
+                return exchange;
+            }
+        }
+        return mvvlva(move);
+    }
+
+    static int capturedValue(final int move) {
+        return SearchBoard.pieceValue(SearchBoard.capturedType(move));
+    }
+
+    // the moves generateCaptures() leaves out, less the ones already handed out, with castling ahead of the
+    // rest and every other move scored by its history
+    private void generateQuiets() {
+        final int side = this.board.getSideToMove();
+        final int numGenerated = this.board.generatePseudoLegalMoves(side, this.moves);
+        this.numMoves = 0;
+        for (int i = 0; i < numGenerated; i++) {
+            final int move = this.moves[i];
+            if (isCaptureStageMove(move) || move == this.hashMove || move == this.firstKiller ||
+                move == this.secondKiller || move == this.counterMove) {
+                continue;
+            }
+            this.moves[this.numMoves] = move;
+            this.scores[this.numMoves] = SearchBoard.isCastle(move) ? CASTLE_ORDER_SCORE :
+                    mvvlva(move) + this.historyTable.getScore(side, move);
+            this.numMoves++;
+        }
+        this.index = 0;
+    }
+
+    // swaps the best scored of the moves not yet handed out to the front of them and hands it out
+    private int pickBest() {
+        int best = this.index;
+        for (int i = this.index + 1; i < this.numMoves; i++) {
+            if (this.scores[i] > this.scores[best]) {
+                best = i;
+            }
+        }
+        final int move = this.moves[best];
+        final int score = this.scores[best];
+        this.moves[best] = this.moves[this.index];
+        this.scores[best] = this.scores[this.index];
+        this.moves[this.index] = move;
+        this.scores[this.index] = score;
+        this.index++;
+        return move;
+    }
+
+    private boolean isPlayableQuiet(final int move) {
+        return move != SearchBoard.NO_MOVE && move != this.hashMove && this.board.isPseudoLegal(move);
+    }
+
+    private int searched(final int move) {
+        if (isQuiet(move)) {
+            this.searchedQuiets.add(move);
+        }
+        return move;
+    }
+
+    private static boolean isCaptureStageMove(final int move) {
+        return SearchBoard.isPromotion(move) ?
+                SearchBoard.promotionType(move) == SearchBoard.QUEEN : SearchBoard.isCapture(move);
+    }
+
+}
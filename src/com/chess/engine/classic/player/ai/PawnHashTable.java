@@ -0,0 +1,63 @@
+package com.chess.engine.classic.player.ai;
+
+import java.util.Arrays;
+
+// fixed size cache of pawn structure counts keyed by the pawn hash of the board. pawns move rarely, so
+// nearly every evaluation finds its pawns already counted. an entry packs the white value in the low and the
+// black value in the high 32 bits, and like the transposition table the key slot holds the hash xor the
+// entry, so threads can share the table without locking and a torn slot reads as a miss
+final class PawnHashTable {
+
+    static final int DEFAULT_SIZE = 1 << 14;
+    static final long NO_ENTRY = Long.MIN_VALUE;
+
+    private final long[] slots;
+    private final int mask;
+
+    PawnHashTable(final int size) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("pawn hash table size must be a power of two : " + size);
+        }
+        this.slots = new long[2 * size];
+        this.mask = size - 1;
+    }
+
+    void clear() {
+        Arrays.fill(this.slots, 0L);
+    }
+
+    // the packed values stored for the pawn hash, or NO_ENTRY. an empty slot answers only the pawnless
+    // hash 0, with both values 0, which is what a board without pawns counts anyway
+    long probe(final long pawnHash) {
+        final int index = index(pawnHash);
+        final long entry = this.slots[index + 1];
+        return (this.slots[index] ^ entry) == pawnHash ? entry : NO_ENTRY;
+    }
+
+    void store(final long pawnHash,
+               final int whiteValue,
+               final int blackValue) {
+        final int index = index(pawnHash);
+        final long entry = pack(whiteValue, blackValue);
+        this.slots[index] = pawnHash ^ entry;
+        this.slots[index + 1] = entry;
+    }
+
+    static long pack(final int whiteValue,
+                     final int blackValue) {
+        return ((long) blackValue << 32) | (whiteValue & 0xFFFFFFFFL);
+    }
+
+    static int whiteValue(final long entry) {
+        return (int) entry;
+    }
+
+    static int blackValue(final long entry) {
+        return (int) (entry >> 32);
+    }
+
+    private int index(final long pawnHash) {
+        return ((int) (pawnHash ^ (pawnHash >>> 32)) & this.mask) << 1;
+    }
+
+}
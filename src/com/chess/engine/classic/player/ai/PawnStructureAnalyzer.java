@@ -1,5 +1,7 @@
 package com.chess.engine.classic.player.ai;
 
+import com.chess.engine.classic.board.BoardUtils;
+import com.chess.engine.classic.board.SearchBoard;
 import com.chess.engine.classic.pieces.Piece;
 import com.chess.engine.classic.player.Player;
 
@@ -10,10 +12,10 @@ public final class PawnStructureAnalyzer {
 
     private static final PawnStructureAnalyzer INSTANCE = new PawnStructureAnalyzer();
 
-    public static final int ISOLATED_PAWN_PENALTY = -10;
-    public static final int DOUBLED_PAWN_PENALTY = -10;
+    private final PawnHashTable pawnHashTable;
 
     private PawnStructureAnalyzer() {
+        this.pawnHashTable = new PawnHashTable(PawnHashTable.DEFAULT_SIZE);
     }
 
     public static PawnStructureAnalyzer get() {
@@ -21,33 +23,84 @@ public final class PawnStructureAnalyzer {
     }
 
     public int isolatedPawnPenalty(final Player player) {
-        return calculateIsolatedPawnPenalty(createPawnColumnTable(calculatePlayerPawns(player)));
+        return calculateIsolatedPawns(createPawnColumnTable(calculatePlayerPawns(player))) *
+               EvaluationWeights.defaults().get(EvaluationWeights.Weight.ISOLATED_PAWN_PENALTY);
     }
 
     public int doubledPawnPenalty(final Player player) {
-        return calculatePawnColumnStack(createPawnColumnTable(calculatePlayerPawns(player)));
+        return calculateStackedPawns(createPawnColumnTable(calculatePlayerPawns(player))) *
+               EvaluationWeights.defaults().get(EvaluationWeights.Weight.DOUBLED_PAWN_PENALTY);
     }
 
     public int pawnStructureScore(final Player player) {
+        return pawnStructureScore(player, EvaluationWeights.defaults());
+    }
+
+    public int pawnStructureScore(final Player player,
+                                  final EvaluationWeights weights) {
         final int[] pawnsOnColumnTable = createPawnColumnTable(calculatePlayerPawns(player));
-        return calculatePawnColumnStack(pawnsOnColumnTable) + calculateIsolatedPawnPenalty(pawnsOnColumnTable);
+        return score(calculateStackedPawns(pawnsOnColumnTable), calculateIsolatedPawns(pawnsOnColumnTable), weights);
+    }
+
+    public int pawnStructureScore(final SearchBoard board,
+                                  final int side,
+                                  final EvaluationWeights weights) {
+        final int counts = pawnCounts(board, side);
+        return score(stackedPawns(counts), isolatedPawns(counts), weights);
+    }
+
+    // both sides are counted together and cached under the pawn hash. the table keeps the pawn counts rather
+    // than the score, so it stays valid whatever weights the counts are scored with
+    int pawnCounts(final SearchBoard board,
+                   final int side) {
+        final long pawnHash = board.getPawnHash();
+        long entry = this.pawnHashTable.probe(pawnHash);
+        if (entry == PawnHashTable.NO_ENTRY) {
+            final int whiteCounts = calculatePawnCounts(board, SearchBoard.WHITE);
+            final int blackCounts = calculatePawnCounts(board, SearchBoard.BLACK);
+            this.pawnHashTable.store(pawnHash, whiteCounts, blackCounts);
+            entry = PawnHashTable.pack(whiteCounts, blackCounts);
+        }
+        return side == SearchBoard.WHITE ? PawnHashTable.whiteValue(entry) : PawnHashTable.blackValue(entry);
+    }
+
+    static int stackedPawns(final int counts) {
+        return counts >>> 16;
+    }
+
+    static int isolatedPawns(final int counts) {
+        return counts & 0xFFFF;
+    }
+
+    // stacked pawns in the high and isolated pawns in the low 16 bits
+    private static int calculatePawnCounts(final SearchBoard board,
+                                           final int side) {
+        final int[] pawnsOnColumnTable = createPawnColumnTable(board, side);
+        return (calculateStackedPawns(pawnsOnColumnTable) << 16) | calculateIsolatedPawns(pawnsOnColumnTable);
+    }
+
+    private static int score(final int stackedPawns,
+                             final int isolatedPawns,
+                             final EvaluationWeights weights) {
+        return stackedPawns * weights.get(EvaluationWeights.Weight.DOUBLED_PAWN_PENALTY) +
+               isolatedPawns * weights.get(EvaluationWeights.Weight.ISOLATED_PAWN_PENALTY);
     }
 
     private static Collection<Piece> calculatePlayerPawns(final Player player) {
         return player.getActivePieces().stream().filter(piece -> piece.getPieceType() == Piece.PieceType.PAWN).collect(Collectors.toList());
     }
 
-    private static int calculatePawnColumnStack(final int[] pawnsOnColumnTable) {
-        int pawnStackPenalty = 0;
+    private static int calculateStackedPawns(final int[] pawnsOnColumnTable) {
+        int stackedPawns = 0;
         for(final int pawnStack : pawnsOnColumnTable) {
             if(pawnStack > 1) {
-                pawnStackPenalty += pawnStack;
+                stackedPawns += pawnStack;
             }
         }
-        return pawnStackPenalty * DOUBLED_PAWN_PENALTY;
+        return stackedPawns;
     }
 
-    private static int calculateIsolatedPawnPenalty(final int[] pawnsOnColumnTable) {
+    private static int calculateIsolatedPawns(final int[] pawnsOnColumnTable) {
         int numIsolatedPawns = 0;
         if(pawnsOnColumnTable[0] > 0 && pawnsOnColumnTable[1] == 0) {
             numIsolatedPawns += pawnsOnColumnTable[0];
@@ -60,7 +113,7 @@ public final class PawnStructureAnalyzer {
                 numIsolatedPawns += pawnsOnColumnTable[i];
             }
         }
-        return numIsolatedPawns * ISOLATED_PAWN_PENALTY;
+        return numIsolatedPawns;
     }
 
     private static int[] createPawnColumnTable(final Collection<Piece> playerPawns) {
@@ -71,4 +124,15 @@ public final class PawnStructureAnalyzer {
         return table;
     }
 
+    private static int[] createPawnColumnTable(final SearchBoard board,
+                                               final int side) {
+        final int[] table = new int[8];
+        for(int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            if(board.getPiece(square) == (side | SearchBoard.PAWN)) {
+                table[square % 8]++;
+            }
+        }
+        return table;
+    }
+
 }
@@ -0,0 +1,13 @@
+package com.chess.engine.classic.player.ai;
+
+// the ways the alpha-beta searcher cuts the tree beyond plain alpha-beta, each of which can be switched off
+public enum Pruning {
+    // lets the side to move pass and gives up the node when a shallower search still fails high
+    NULL_MOVE,
+    // searches quiet moves late in the order with less depth, and again in full only when they turn out well
+    LATE_MOVE_REDUCTION,
+    // skips quiet moves near the horizon when the static evaluation is too far below the window to recover
+    FUTILITY,
+    // gives up a node near the horizon when the static evaluation is so far above the window that it will hold
+    REVERSE_FUTILITY
+}
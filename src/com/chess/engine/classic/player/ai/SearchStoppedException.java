@@ -0,0 +1,13 @@
+package com.chess.engine.classic.player.ai;
+
+// thrown from deep inside a search to unwind it at once when it has been told to stop or has run out of time.
+// it is thrown at every stop, so it carries no stack trace
+final class SearchStoppedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    SearchStoppedException() {
+        super("search stopped", null, false, false);
+    }
+
+}
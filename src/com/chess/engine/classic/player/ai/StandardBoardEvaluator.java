@@ -1,110 +1,355 @@
 package com.chess.engine.classic.player.ai;
 
+import com.chess.engine.classic.board.AttackMap;
 import com.chess.engine.classic.board.Board;
-import com.chess.engine.classic.board.Move;
+import com.chess.engine.classic.board.SearchBoard;
 import com.chess.engine.classic.pieces.Piece;
 import com.chess.engine.classic.player.Player;
-import com.chess.engine.classic.player.ai.KingSafetyAnalyzer.KingDistance;
+import com.chess.engine.classic.player.ai.EvaluationWeights.Weight;
 import com.google.common.annotations.VisibleForTesting;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
 import static com.chess.engine.classic.pieces.Piece.PieceType.BISHOP;
 // used to evaluate the initial board state 
 public final class StandardBoardEvaluator
         implements BoardEvaluator {
 
-    private final static int CHECK_MATE_BONUS = 10000;
-    private final static int CHECK_BONUS = 45;
-    private final static int CASTLE_BONUS = 25;
-    private final static int MOBILITY_MULTIPLIER = 5;
-    private final static int ATTACK_MULTIPLIER = 1;
-    private final static int TWO_BISHOPS_BONUS = 25;
     private static final StandardBoardEvaluator INSTANCE = new StandardBoardEvaluator();
+    private static final ThreadLocal<AttackMap[]> ATTACK_MAPS =
+            ThreadLocal.withInitial(() -> new AttackMap[]{new AttackMap(), new AttackMap()});
+    private final EvaluationCache evaluationCache;
+    private volatile Configuration configuration;
     private StandardBoardEvaluator() {
+        this.evaluationCache = new EvaluationCache(EvaluationCache.DEFAULT_SIZE);
+        this.configuration = new Configuration(EvaluationWeights.defaults(), EnumSet.allOf(EvaluationTerm.class));
     }
     public static StandardBoardEvaluator get() {
         return INSTANCE;
     }
+    // each side's attack map is filled once from the classic board and shared by mobility, attacks and king
+    // safety, so only the mate test generates moves. only the mate bonus depends on the depth, and only a side
+    // in check can be mated, so every other score is cached for both evaluate methods to share
     @Override
     public int evaluate(final Board board,
                         final int depth) {
-        return score(board.whitePlayer(), depth) - score(board.blackPlayer(), depth);
+        final long key = EvaluationCache.key(board.getZobristHash(),
+                board.whitePlayer().isCastled(), board.blackPlayer().isCastled());
+        final long entry = this.evaluationCache.probe(key);
+        if (entry != EvaluationCache.NO_ENTRY) {
+            return EvaluationCache.score(entry);
+        }
+        final Configuration configuration = this.configuration;
+        final AttackMap[] attackMaps = ATTACK_MAPS.get();
+        final AttackMap whiteAttacks = attackMaps[0];
+        final AttackMap blackAttacks = attackMaps[1];
+        board.fillAttackMaps(whiteAttacks, blackAttacks);
+        final int score = score(board.whitePlayer(), depth, whiteAttacks, blackAttacks, configuration) -
+                          score(board.blackPlayer(), depth, blackAttacks, whiteAttacks, configuration);
+        if (!board.currentPlayer().isInCheck()) {
+            this.evaluationCache.store(key, score);
+        }
+        return score;
+    }
+    // same terms as evaluate(Board, int), computed on the mutable search board. each side's attack map is
+    // built once and shared by mobility, attacks, checks and king safety
+    @Override
+    public int evaluate(final SearchBoard board,
+                        final int depth) {
+        final long key = EvaluationCache.key(board.getZobristHash(),
+                board.isCastled(SearchBoard.WHITE), board.isCastled(SearchBoard.BLACK));
+        final long entry = this.evaluationCache.probe(key);
+        if (entry != EvaluationCache.NO_ENTRY) {
+            return EvaluationCache.score(entry);
+        }
+        final Configuration configuration = this.configuration;
+        final AttackMap[] attackMaps = ATTACK_MAPS.get();
+        final AttackMap whiteAttacks = attackMaps[0];
+        final AttackMap blackAttacks = attackMaps[1];
+        board.fillAttackMap(SearchBoard.WHITE, whiteAttacks);
+        board.fillAttackMap(SearchBoard.BLACK, blackAttacks);
+        final int score = score(board, SearchBoard.WHITE, depth, whiteAttacks, blackAttacks, configuration) -
+                          score(board, SearchBoard.BLACK, depth, blackAttacks, whiteAttacks, configuration);
+        final AttackMap opponentAttacks = board.getSideToMove() == SearchBoard.WHITE ? blackAttacks : whiteAttacks;
+        if (!opponentAttacks.isAttacked(board.getKingSquare(board.getSideToMove()))) {
+            this.evaluationCache.store(key, score);
+        }
+        return score;
+    }
+    @Override
+    public int mateScorePerDepth() {
+        return this.configuration.weights.get(Weight.CHECK_MATE_BONUS) * depthBonus(1);
+    }
+    public EvaluationWeights getWeights() {
+        return this.configuration.weights;
+    }
+    public Set<EvaluationTerm> getTerms() {
+        return this.configuration.getTerms();
+    }
+    // a search board that keeps its piece-square score with the tables of the current weights, so evaluate()
+    // reads the score off the board. a board made with other tables still scores right, only slower
+    public SearchBoard createSearchBoard(final Board board) {
+        return SearchBoard.fromBoard(board, this.configuration.weights.pieceSquareBonuses());
+    }
+    // swap weights between searches, the cached scores were made with the old weights and are dropped
+    public synchronized void setWeights(final EvaluationWeights weights) {
+        this.configuration = new Configuration(weights, this.configuration.getTerms());
+        this.evaluationCache.clear();
+    }
+    public void loadWeights(final File weightsFile) throws IOException {
+        setWeights(EvaluationWeights.load(weightsFile));
+    }
+    public synchronized void setTerms(final Set<EvaluationTerm> terms) {
+        this.configuration = new Configuration(this.configuration.weights, terms);
+        this.evaluationCache.clear();
+    }
+    // a score is linear in the weights: the material, the piece-square bonuses and each weight times the
+    // coefficient filled in here, white's count less black's, indexed by weight ordinal. every term is
+    // counted whether or not it is switched on, so weights can be fitted to positions offline
+    public void extractWeightCoefficients(final SearchBoard board,
+                                          final int depth,
+                                          final int[] coefficients) {
+        Arrays.fill(coefficients, 0);
+        final AttackMap[] attackMaps = ATTACK_MAPS.get();
+        final AttackMap whiteAttacks = attackMaps[0];
+        final AttackMap blackAttacks = attackMaps[1];
+        board.fillAttackMap(SearchBoard.WHITE, whiteAttacks);
+        board.fillAttackMap(SearchBoard.BLACK, blackAttacks);
+        addWeightCoefficients(board, SearchBoard.WHITE, depth, whiteAttacks, blackAttacks, 1, coefficients);
+        addWeightCoefficients(board, SearchBoard.BLACK, depth, blackAttacks, whiteAttacks, -1, coefficients);
+    }
+    public long getCacheHits() {
+        return this.evaluationCache.getHits();
+    }
+    public long getCacheMisses() {
+        return this.evaluationCache.getMisses();
+    }
+    public void clearCache() {
+        this.evaluationCache.clear();
     }
     public String evaluationDetails(final Board board, final int depth) {
+        final EvaluationWeights weights = this.configuration.weights;
+        final AttackMap whiteAttacks = new AttackMap();
+        final AttackMap blackAttacks = new AttackMap();
+        board.fillAttackMaps(whiteAttacks, blackAttacks);
         return
-               ("White Mobility : " + mobility(board.whitePlayer()) + "\n") +
-                "White kingThreats : " + kingThreats(board.whitePlayer(), depth) + "\n" +
-                "White attacks : " + attacks(board.whitePlayer()) + "\n" +
-                "White castle : " + castle(board.whitePlayer()) + "\n" +
-                "White pieceEval : " + pieceEvaluations(board.whitePlayer()) + "\n" +
-                "White pawnStructure : " + pawnStructure(board.whitePlayer()) + "\n" +
+               ("White Mobility : " + mobility(whiteAttacks, blackAttacks, weights) + "\n") +
+                "White kingThreats : " + kingThreats(board.whitePlayer(), depth, weights) + "\n" +
+                "White attacks : " + attacks(whiteAttacks, weights) + "\n" +
+                "White castle : " + castle(board.whitePlayer(), weights) + "\n" +
+                "White pieceEval : " + pieceEvaluations(board.whitePlayer(), weights) + "\n" +
+                "White pawnStructure : " + pawnStructure(board.whitePlayer(), weights) + "\n" +
+                "White kingSafety : " + kingSafety(board.whitePlayer(), blackAttacks, weights) + "\n" +
                 "---------------------\n" +
-                "Black Mobility : " + mobility(board.blackPlayer()) + "\n" +
-                "Black kingThreats : " + kingThreats(board.blackPlayer(), depth) + "\n" +
-                "Black attacks : " + attacks(board.blackPlayer()) + "\n" +
-                "Black castle : " + castle(board.blackPlayer()) + "\n" +
-                "Black pieceEval : " + pieceEvaluations(board.blackPlayer()) + "\n" +
-                "Black pawnStructure : " + pawnStructure(board.blackPlayer()) + "\n\n" +
-                "Final Score = " + evaluate(board, depth);
+                "Black Mobility : " + mobility(blackAttacks, whiteAttacks, weights) + "\n" +
+                "Black kingThreats : " + kingThreats(board.blackPlayer(), depth, weights) + "\n" +
+                "Black attacks : " + attacks(blackAttacks, weights) + "\n" +
+                "Black castle : " + castle(board.blackPlayer(), weights) + "\n" +
+                "Black pieceEval : " + pieceEvaluations(board.blackPlayer(), weights) + "\n" +
+                "Black pawnStructure : " + pawnStructure(board.blackPlayer(), weights) + "\n" +
+                "Black kingSafety : " + kingSafety(board.blackPlayer(), whiteAttacks, weights) + "\n\n" +
+                "Terms : " + getTerms() + "\n" +
+                "Final Score = " + evaluate(board, depth) + "\n" +
+                "Cache hits : " + getCacheHits() + " misses : " + getCacheMisses();
     }
     @VisibleForTesting
     private static int score(final Player player,
-                             final int depth) {
-        return mobility(player) +
-               kingThreats(player, depth) +
-               attacks(player) +
-               castle(player) +
-               pieceEvaluations(player) +
-               pawnStructure(player);
-    }
-    private static int attacks(final Player player) {
-        int attackScore = 0;
-        for(final Move move : player.getLegalMoves()) {
-            if(move.isAttack()) {
-                final Piece movedPiece = move.getMovedPiece();
-                final Piece attackedPiece = move.getAttackedPiece();
-                if(movedPiece.getPieceValue() <= attackedPiece.getPieceValue()) {
-                    attackScore++;
-                }
+                             final int depth,
+                             final AttackMap playerAttacks,
+                             final AttackMap opponentAttacks,
+                             final Configuration configuration) {
+        final EvaluationWeights weights = configuration.weights;
+        int score = 0;
+        if (configuration.isEnabled(EvaluationTerm.MOBILITY)) {
+            score += mobility(playerAttacks, opponentAttacks, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.KING_THREATS)) {
+            score += kingThreats(player, depth, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.ATTACKS)) {
+            score += attacks(playerAttacks, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.CASTLE)) {
+            score += castle(player, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.PIECES)) {
+            score += pieceEvaluations(player, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.PAWN_STRUCTURE)) {
+            score += pawnStructure(player, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.KING_SAFETY)) {
+            score += kingSafety(player, opponentAttacks, weights);
+        }
+        return score;
+    }
+    private static int score(final SearchBoard board,
+                             final int side,
+                             final int depth,
+                             final AttackMap playerAttacks,
+                             final AttackMap opponentAttacks,
+                             final Configuration configuration) {
+        final EvaluationWeights weights = configuration.weights;
+        int score = 0;
+        if (configuration.isEnabled(EvaluationTerm.MOBILITY)) {
+            score += mobility(playerAttacks, opponentAttacks, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.KING_THREATS)) {
+            score += kingThreats(board, side, depth, playerAttacks, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.ATTACKS)) {
+            score += attacks(playerAttacks, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.CASTLE) && board.isCastled(side)) {
+            score += weights.get(Weight.CASTLE_BONUS);
+        }
+        if (configuration.isEnabled(EvaluationTerm.PIECES)) {
+            score += pieceEvaluations(board, side, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.PAWN_STRUCTURE)) {
+            score += PawnStructureAnalyzer.get().pawnStructureScore(board, side, weights);
+        }
+        if (configuration.isEnabled(EvaluationTerm.KING_SAFETY)) {
+            score += KingSafetyAnalyzer.get().kingZoneAttacks(board, side, opponentAttacks) *
+                     weights.get(Weight.KING_ZONE_ATTACK_PENALTY);
+        }
+        return score;
+    }
+    private static void addWeightCoefficients(final SearchBoard board,
+                                              final int side,
+                                              final int depth,
+                                              final AttackMap playerAttacks,
+                                              final AttackMap opponentAttacks,
+                                              final int sign,
+                                              final int[] coefficients) {
+        coefficients[Weight.MOBILITY_MULTIPLIER.ordinal()] += sign * mobilityRatio(playerAttacks, opponentAttacks);
+        final int opponent = SearchBoard.opposite(side);
+        if (playerAttacks.isAttacked(board.getKingSquare(opponent))) {
+            if (board.getSideToMove() == opponent && !board.hasLegalMove()) {
+                coefficients[Weight.CHECK_MATE_BONUS.ordinal()] += sign * depthBonus(depth);
+            } else {
+                coefficients[Weight.CHECK_BONUS.ordinal()] += sign;
             }
         }
-        return attackScore * ATTACK_MULTIPLIER;
+        coefficients[Weight.ATTACK_MULTIPLIER.ordinal()] += sign * playerAttacks.getFavourableCaptures();
+        if (board.isCastled(side)) {
+            coefficients[Weight.CASTLE_BONUS.ordinal()] += sign;
+        }
+        if (board.getPieceCount(side, SearchBoard.BISHOP) == 2) {
+            coefficients[Weight.TWO_BISHOPS_BONUS.ordinal()] += sign;
+        }
+        final int pawnCounts = PawnStructureAnalyzer.get().pawnCounts(board, side);
+        coefficients[Weight.DOUBLED_PAWN_PENALTY.ordinal()] += sign * PawnStructureAnalyzer.stackedPawns(pawnCounts);
+        coefficients[Weight.ISOLATED_PAWN_PENALTY.ordinal()] += sign * PawnStructureAnalyzer.isolatedPawns(pawnCounts);
+        coefficients[Weight.KING_ZONE_ATTACK_PENALTY.ordinal()] +=
+                sign * KingSafetyAnalyzer.get().kingZoneAttacks(board, side, opponentAttacks);
+    }
+    // captures by a piece worth no more than its victim
+    private static int attacks(final AttackMap playerAttacks,
+                               final EvaluationWeights weights) {
+        return playerAttacks.getFavourableCaptures() * weights.get(Weight.ATTACK_MULTIPLIER);
+    }
+    // material and location bonuses are kept up to date by the board as moves are made, unless the board
+    // was created before the weights were swapped and still keeps them with the old tables
+    private static int pieceEvaluations(final SearchBoard board,
+                                        final int side,
+                                        final EvaluationWeights weights) {
+        final int[][] pieceSquareBonuses = weights.pieceSquareBonuses();
+        final int pieceSquareScore = board.usesPieceSquareBonuses(pieceSquareBonuses) ?
+                board.getPieceSquareScore(side) : board.calculatePieceSquareScore(side, pieceSquareBonuses);
+        return board.getMaterial(side) + pieceSquareScore +
+               (board.getPieceCount(side, SearchBoard.BISHOP) == 2 ? weights.get(Weight.TWO_BISHOPS_BONUS) : 0);
     }
-    private static int pieceEvaluations(final Player player) {
+    // only the side to move can be mated, so the escape search runs only when it is in check
+    private static int kingThreats(final SearchBoard board,
+                                   final int side,
+                                   final int depth,
+                                   final AttackMap playerAttacks,
+                                   final EvaluationWeights weights) {
+        final int opponent = SearchBoard.opposite(side);
+        if (!playerAttacks.isAttacked(board.getKingSquare(opponent))) {
+            return 0;
+        }
+        return board.getSideToMove() == opponent && !board.hasLegalMove() ?
+                weights.get(Weight.CHECK_MATE_BONUS) * depthBonus(depth) : weights.get(Weight.CHECK_BONUS);
+    }
+    private static int pieceEvaluations(final Player player,
+                                        final EvaluationWeights weights) {
         int pieceValuationScore = 0;
         int numBishops = 0;
         for (final Piece piece : player.getActivePieces()) {
-            pieceValuationScore += piece.getPieceValue() + piece.locationBonus();
+            pieceValuationScore += piece.getPieceValue() + weights.getPieceSquareBonus(piece);
             if(piece.getPieceType() == BISHOP) {
                 numBishops++;
             }
         }
-        return pieceValuationScore + (numBishops == 2 ? TWO_BISHOPS_BONUS : 0);
+        return pieceValuationScore + (numBishops == 2 ? weights.get(Weight.TWO_BISHOPS_BONUS) : 0);
     }
-    private static int mobility(final Player player) {
-        return MOBILITY_MULTIPLIER * mobilityRatio(player);
+    private static int mobility(final AttackMap playerAttacks,
+                                final AttackMap opponentAttacks,
+                                final EvaluationWeights weights) {
+        return weights.get(Weight.MOBILITY_MULTIPLIER) * mobilityRatio(playerAttacks, opponentAttacks);
     }
-    private static int mobilityRatio(final Player player) {
-        return (int)((player.getLegalMoves().size() * 10.0f) / player.getOpponent().getLegalMoves().size());
+    private static int mobilityRatio(final AttackMap playerAttacks,
+                                     final AttackMap opponentAttacks) {
+        return (int)((playerAttacks.getMobility() * 10.0f) / opponentAttacks.getMobility());
     }
     private static int kingThreats(final Player player,
-                                   final int depth) {
-        return player.getOpponent().isInCheckMate() ? CHECK_MATE_BONUS  * depthBonus(depth) : check(player);
+                                   final int depth,
+                                   final EvaluationWeights weights) {
+        return player.getOpponent().isInCheckMate() ?
+                weights.get(Weight.CHECK_MATE_BONUS) * depthBonus(depth) : check(player, weights);
     }
-    private static int check(final Player player) {
-        return player.getOpponent().isInCheck() ? CHECK_BONUS : 0;
+    private static int check(final Player player,
+                             final EvaluationWeights weights) {
+        return player.getOpponent().isInCheck() ? weights.get(Weight.CHECK_BONUS) : 0;
     }
     private static int depthBonus(final int depth) {
         return depth == 0 ? 1 : 100 * depth;
     }
-    private static int castle(final Player player) {
-        return player.isCastled() ? CASTLE_BONUS : 0;
+    private static int castle(final Player player,
+                              final EvaluationWeights weights) {
+        return player.isCastled() ? weights.get(Weight.CASTLE_BONUS) : 0;
+    }
+    private static int pawnStructure(final Player player,
+                                     final EvaluationWeights weights) {
+        return PawnStructureAnalyzer.get().pawnStructureScore(player, weights);
     }
-    private static int pawnStructure(final Player player) {
-        return PawnStructureAnalyzer.get().pawnStructureScore(player);
+    private static int kingSafety(final Player player,
+                                  final AttackMap opponentAttacks,
+                                  final EvaluationWeights weights) {
+        return KingSafetyAnalyzer.get().kingZoneAttacks(player, opponentAttacks) *
+               weights.get(Weight.KING_ZONE_ATTACK_PENALTY);
     }
-    @SuppressWarnings("unused")
-    private static int kingSafety(final Player player) {
-        final KingDistance kingDistance = KingSafetyAnalyzer.get().calculateKingTropism(player);
-        return ((kingDistance.getEnemyPiece().getPieceValue() / 100) * kingDistance.getDistance());
+    // the weights and the switched on terms, swapped together. the terms are compiled to a bit mask, so a
+    // term costs one test of a bit and no call through an interface
+    private static final class Configuration {
+        final EvaluationWeights weights;
+        final int terms;
+        Configuration(final EvaluationWeights weights,
+                      final Set<EvaluationTerm> terms) {
+            this.weights = weights;
+            int mask = 0;
+            for (final EvaluationTerm term : terms) {
+                mask |= 1 << term.ordinal();
+            }
+            this.terms = mask;
+        }
+        boolean isEnabled(final EvaluationTerm term) {
+            return (this.terms & (1 << term.ordinal())) != 0;
+        }
+        Set<EvaluationTerm> getTerms() {
+            final Set<EvaluationTerm> terms = EnumSet.noneOf(EvaluationTerm.class);
+            for (final EvaluationTerm term : EvaluationTerm.values()) {
+                if (isEnabled(term)) {
+                    terms.add(term);
+                }
+            }
+            return terms;
+        }
     }
 }
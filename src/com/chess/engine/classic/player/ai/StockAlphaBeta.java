@@ -4,13 +4,27 @@ import com.chess.engine.classic.board.Board;
 import com.chess.engine.classic.board.BoardUtils;
 import com.chess.engine.classic.board.Move;
 import com.chess.engine.classic.board.MoveTransition;
+import com.chess.engine.classic.board.SearchBoard;
 import com.chess.engine.classic.player.Player;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.Ordering;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Observable;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.chess.engine.classic.board.BoardUtils.mvvlva;
 import static com.chess.engine.classic.board.Move.MoveFactory;
@@ -18,23 +32,21 @@ import static com.chess.engine.classic.board.Move.MoveFactory;
 @SuppressWarnings("deprecation")
 public class StockAlphaBeta extends Observable implements MoveStrategy {
 
-    private final BoardEvaluator evaluator;
+    private final StandardBoardEvaluator evaluator;
+    private final TranspositionTable transpositionTable;
+    private final HistoryTable historyTable;
     private final int searchDepth;
-    private long boardsEvaluated;
-    private int quiescenceCount;
-    private static final int MAX_QUIESCENCE = 5000 * 5;
+    private final int numThreads;
+    private final TimeControl timeControl;
+    private final AtomicBoolean stopSignal;
+    private final LongAdder boardsEvaluated;
+    private final LongAdder quiescenceNodes;
+    private final Map<Pruning, LongAdder> pruneCounts;
+    private final ThreadLocal<AlphaBetaSearcher> searchers;
+    private final ForkJoinPool pool;
 
     private enum MoveSorter {
 
-        STANDARD {
-            @Override
-            Collection<Move> sort(final Collection<Move> moves) {
-                return Ordering.from((Comparator<Move>) (move1, move2) -> ComparisonChain.start()
-                        .compareTrueFirst(move1.isCastlingMove(), move2.isCastlingMove())
-                        .compare(mvvlva(move2), mvvlva(move1))
-                        .result()).immutableSortedCopy(moves);
-            }
-        },
         EXPENSIVE {
             @Override
             Collection<Move> sort(final Collection<Move> moves) {
@@ -51,10 +63,73 @@ public class StockAlphaBeta extends Observable implements MoveStrategy {
 
 
     public StockAlphaBeta(final int searchDepth) {
+        this(searchDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE));
+    }
+
+    public StockAlphaBeta(final int searchDepth,
+                          final TranspositionTable transpositionTable) {
+        this(searchDepth, transpositionTable, 1);
+    }
+
+    // with more than one thread the root moves are shared out over a fork join pool of that size
+    public StockAlphaBeta(final int searchDepth,
+                          final TranspositionTable transpositionTable,
+                          final int numThreads) {
+        this(searchDepth, transpositionTable, numThreads, new HistoryTable());
+    }
+
+    // the history table can be handed from one move of a game to the next to keep its move ordering
+    public StockAlphaBeta(final int searchDepth,
+                          final TranspositionTable transpositionTable,
+                          final int numThreads,
+                          final HistoryTable historyTable) {
+        this(searchDepth, transpositionTable, numThreads, historyTable, EnumSet.allOf(Pruning.class));
+    }
+
+    // searches one ply deeper at a time until the depth is reached or the time control runs out, whichever
+    // comes first, and plays the move of the last iteration that finished
+    public StockAlphaBeta(final int searchDepth,
+                          final TranspositionTable transpositionTable,
+                          final int numThreads,
+                          final HistoryTable historyTable,
+                          final TimeControl timeControl) {
+        this(searchDepth, transpositionTable, numThreads, historyTable, EnumSet.allOf(Pruning.class), timeControl);
+    }
+
+    // only the pruning techniques in the set are used, the others are switched off
+    public StockAlphaBeta(final int searchDepth,
+                          final TranspositionTable transpositionTable,
+                          final int numThreads,
+                          final HistoryTable historyTable,
+                          final Set<Pruning> pruning) {
+        this(searchDepth, transpositionTable, numThreads, historyTable, pruning, TimeControl.INFINITE);
+    }
+
+    public StockAlphaBeta(final int searchDepth,
+                          final TranspositionTable transpositionTable,
+                          final int numThreads,
+                          final HistoryTable historyTable,
+                          final Set<Pruning> pruning,
+                          final TimeControl timeControl) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("search needs at least one thread : " + numThreads);
+        }
         this.evaluator = StandardBoardEvaluator.get();
+        this.transpositionTable = transpositionTable;
+        this.historyTable = historyTable;
         this.searchDepth = searchDepth;
-        this.boardsEvaluated = 0;
-        this.quiescenceCount = 0;
+        this.numThreads = numThreads;
+        this.timeControl = timeControl;
+        this.stopSignal = new AtomicBoolean();
+        this.boardsEvaluated = new LongAdder();
+        this.quiescenceNodes = new LongAdder();
+        this.pruneCounts = AlphaBetaSearcher.newPruneCounts();
+        final Set<Pruning> enabledPruning = EnumSet.copyOf(pruning);
+        this.searchers = ThreadLocal.withInitial(() -> new AlphaBetaSearcher(this.evaluator, transpositionTable,
+                historyTable, this.boardsEvaluated, this.stopSignal, enabledPruning, this.pruneCounts));
+        // kept from one move to the next so its workers and their searchers are reused, idle workers retire
+        // on their own
+        this.pool = numThreads == 1 ? null : new ForkJoinPool(numThreads);
     }
 
     @Override
@@ -64,29 +139,86 @@ public class StockAlphaBeta extends Observable implements MoveStrategy {
 
     @Override
     public long getNumBoardsEvaluated() {
-        return this.boardsEvaluated;
+        return this.boardsEvaluated.sum();
+    }
+
+    // nodes visited by the quiescence search below the horizon, counted apart from the full width nodes
+    public long getNumQuiescenceNodes() {
+        return this.quiescenceNodes.sum();
+    }
+
+    // nodes given up or moves skipped by the technique, and for late move reductions the reduced searches
+    // that were not searched again in full
+    public long getNumPruned(final Pruning technique) {
+        return this.pruneCounts.get(technique).sum();
     }
 
     @Override
     public Move execute(final Board board) {
         final long startTime = System.currentTimeMillis();
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth + ", time = " + this.timeControl);
+        this.boardsEvaluated.reset();
+        this.quiescenceNodes.reset();
+        this.pruneCounts.values().forEach(LongAdder::reset);
+        this.historyTable.age();
+        final Move bestMove = this.timeControl.isInfinite() ?
+                searchToDepth(board, this.searchDepth) : searchWithTimeControl(board, startTime);
+        final long executionTime = System.currentTimeMillis() - startTime;
+        final long boardsEvaluated = getNumBoardsEvaluated();
+        final String result = board.currentPlayer() + " SELECTS " +bestMove+ " [#boards evaluated = " +boardsEvaluated+
+                " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)boardsEvaluated/ executionTime));
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, quiescence nodes = %d, pruned = %s, time taken = %d ms, rate = %.1f\n", board.currentPlayer(),
+                bestMove, boardsEvaluated, getNumQuiescenceNodes(), this.pruneCounts, executionTime, (1000 * ((double)boardsEvaluated/ executionTime)));
+        setChanged();
+        notifyObservers(result);
+        return bestMove;
+    }
+
+    private Move searchToDepth(final Board board,
+                               final int depth) {
+        return this.numThreads == 1 ? searchSequentially(board, depth) : searchInParallel(board, depth);
+    }
+
+    // the first iteration always runs to completion so there is a move to play however tight the clock. no
+    // iteration is started past the soft limit, and one still running at the hard limit is stopped and dropped
+    private Move searchWithTimeControl(final Board board,
+                                       final long startTime) {
+        this.stopSignal.set(false);
+        Move bestMove = searchToDepth(board, Math.min(1, this.searchDepth));
+        final ScheduledFuture<?> timeout = this.timeControl.scheduleStop(this.stopSignal, startTime);
+        try {
+            for (int depth = 2; depth <= this.searchDepth &&
+                    System.currentTimeMillis() - startTime < this.timeControl.getSoftLimitMillis(); depth++) {
+                bestMove = searchToDepth(board, depth);
+            }
+        } catch (final SearchStoppedException e) {
+            System.out.println("\t" + toString() + " out of time, keeping the move of the last finished depth");
+        } finally {
+            timeout.cancel(false);
+            this.stopSignal.set(false);
+        }
+        return bestMove;
+    }
+
+    private Move searchSequentially(final Board board,
+                                    final int depth) {
         final Player currentPlayer = board.currentPlayer();
+        final AlphaBetaSearcher searcher = this.searchers.get();
         Move bestMove = MoveFactory.getNullMove();
         int highestSeenValue = Integer.MIN_VALUE;
         int lowestSeenValue = Integer.MAX_VALUE;
         int currentValue;
-        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
         int moveCounter = 1;
         int numMoves = board.currentPlayer().getLegalMoves().size();
+        final SearchBoard searchBoard = this.evaluator.createSearchBoard(board);
         for (final Move move : MoveSorter.EXPENSIVE.sort((board.currentPlayer().getLegalMoves()))) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            this.quiescenceCount = 0;
             final String s;
             if (moveTransition.getMoveStatus().isDone()) {
                 final long candidateMoveStartTime = System.nanoTime();
-                currentValue = currentPlayer.getAlliance().isWhite() ?
-                        min(moveTransition.getToBoard(), this.searchDepth - 1, highestSeenValue, lowestSeenValue) :
-                        max(moveTransition.getToBoard(), this.searchDepth - 1, highestSeenValue, lowestSeenValue);
+                currentValue = searcher.searchRootMove(searchBoard, searchBoard.findMove(move), depth,
+                        highestSeenValue, lowestSeenValue);
+                this.quiescenceNodes.add(searcher.getQuiescenceNodes());
                 if (currentPlayer.getAlliance().isWhite() && currentValue > highestSeenValue) {
                     highestSeenValue = currentValue;
                     bestMove = move;
@@ -102,29 +234,94 @@ public class StockAlphaBeta extends Observable implements MoveStrategy {
                     }
                 }
 
-                final String quiescenceInfo = " " + score(currentPlayer, highestSeenValue, lowestSeenValue) + " q: " +this.quiescenceCount;
-                s = "\t" + toString() + "(" +this.searchDepth+ "), m: (" +moveCounter+ "/" +numMoves+ ") " + move + ", best:  " + bestMove
+                final String quiescenceInfo = " " + score(currentPlayer, highestSeenValue, lowestSeenValue) + " q: " +searcher.getQuiescenceNodes();
+                s = "\t" + toString() + "(" +depth+ "), m: (" +moveCounter+ "/" +numMoves+ ") " + move + ", best:  " + bestMove
 
                         + quiescenceInfo + ", t: " +calculateTimeTaken(candidateMoveStartTime, System.nanoTime());
             } else {
-                s = "\t" + toString() + "(" +this.searchDepth + ")" + ", m: (" +moveCounter+ "/" +numMoves+ ") " + move + " is illegal! best: " +bestMove;
+                s = "\t" + toString() + "(" +depth + ")" + ", m: (" +moveCounter+ "/" +numMoves+ ") " + move + " is illegal! best: " +bestMove;
             }
             System.out.println(s);
             setChanged();
             notifyObservers(s);
             moveCounter++;
         }
-
-        final long executionTime = System.currentTimeMillis() - startTime;
-        final String result = board.currentPlayer() + " SELECTS " +bestMove+ " [#boards evaluated = " +this.boardsEvaluated+
-                " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)this.boardsEvaluated/ executionTime));
-        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f\n", board.currentPlayer(),
-                bestMove, this.boardsEvaluated, executionTime, (1000 * ((double)this.boardsEvaluated/ executionTime)));
-        setChanged();
-        notifyObservers(result);
         return bestMove;
     }
 
+    // the first root move is searched alone to set a bound, then the others are searched in the pool against
+    // a shared bound that every finished move tightens. a move that scores below the bound it started with
+    // failed low and is dropped, the rest are exact and the best of them wins with ties going to the earlier
+    // move in sort order, so the pick does not depend on which thread finished first
+    private Move searchInParallel(final Board board,
+                                  final int depth) {
+        final boolean isWhite = board.currentPlayer().getAlliance().isWhite();
+        final List<Move> rootMoves = new ArrayList<>();
+        for (final Move move : MoveSorter.EXPENSIVE.sort((board.currentPlayer().getLegalMoves()))) {
+            if (board.currentPlayer().makeMove(move).getMoveStatus().isDone()) {
+                rootMoves.add(move);
+            }
+        }
+        if (rootMoves.isEmpty()) {
+            return MoveFactory.getNullMove();
+        }
+        final AtomicInteger sharedBound = new AtomicInteger(isWhite ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+        final List<RootMoveResult> results = new ArrayList<>();
+        results.add(searchRootMove(board, rootMoves.get(0), depth, isWhite, sharedBound));
+        final List<Callable<RootMoveResult>> tasks = new ArrayList<>();
+        for (final Move move : rootMoves.subList(1, rootMoves.size())) {
+            tasks.add(() -> searchRootMove(board, move, depth, isWhite, sharedBound));
+        }
+        try {
+            for (final Future<RootMoveResult> future : this.pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("root search interrupted", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof SearchStoppedException) {
+                throw (SearchStoppedException) e.getCause();
+            }
+            throw new RuntimeException("root search failed", e.getCause());
+        }
+        RootMoveResult best = results.get(0);
+        for (int i = 0; i < results.size(); i++) {
+            final RootMoveResult result = results.get(i);
+            if (!result.isFailLow(isWhite) && (isWhite ? result.value > best.value : result.value < best.value)) {
+                best = result;
+            }
+            final String s = "\t" + toString() + "(" +depth+ "), m: (" +(i + 1)+ "/" +results.size()+ ") " +
+                    result.move + ", best:  " + best.move + " [score: " +best.value+ "] q: " +result.quiescenceNodes +
+                    ", t: " +result.time+ " ms";
+            System.out.println(s);
+            setChanged();
+            notifyObservers(s);
+        }
+        return best.move;
+    }
+
+    private RootMoveResult searchRootMove(final Board board,
+                                          final Move move,
+                                          final int depth,
+                                          final boolean isWhite,
+                                          final AtomicInteger sharedBound) {
+        final long startTime = System.nanoTime();
+        final AlphaBetaSearcher searcher = this.searchers.get();
+        final SearchBoard searchBoard = this.evaluator.createSearchBoard(board);
+        final int searchMove = searchBoard.findMove(move);
+        final int bound = sharedBound.get();
+        // widened by one so a move that only equals the bound is still scored exactly and can win the tie
+        final int value = isWhite ?
+                searcher.searchRootMove(searchBoard, searchMove, depth,
+                        bound == Integer.MIN_VALUE ? bound : bound - 1, Integer.MAX_VALUE) :
+                searcher.searchRootMove(searchBoard, searchMove, depth,
+                        Integer.MIN_VALUE, bound == Integer.MAX_VALUE ? bound : bound + 1);
+        sharedBound.accumulateAndGet(value, isWhite ? Math::max : Math::min);
+        this.quiescenceNodes.add(searcher.getQuiescenceNodes());
+        return new RootMoveResult(move, value, bound, searcher.getQuiescenceNodes(), (System.nanoTime() - startTime) / 1000000);
+    }
+
     private static String score(final Player currentPlayer,
                                 final int highestSeenValue,
                                 final int lowestSeenValue) {
@@ -137,75 +334,34 @@ public class StockAlphaBeta extends Observable implements MoveStrategy {
         throw new RuntimeException("bad bad boy!");
     }
 
-    private int max(final Board board,
-                    final int depth,
-                    final int highest,
-                    final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
-            this.boardsEvaluated++;
-            return this.evaluator.evaluate(board, depth);
-        }
-        int currentHighest = highest;
-        for (final Move move : MoveSorter.STANDARD.sort((board.currentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final Board toBoard = moveTransition.getToBoard();
-                currentHighest = Math.max(currentHighest, min(toBoard,
-                        calculateQuiescenceDepth(toBoard, depth), currentHighest, lowest));
-                if (currentHighest >= lowest) {
-                    return lowest;
-                }
-            }
-        }
-        return currentHighest;
+    private static String calculateTimeTaken(final long start, final long end) {
+        final long timeTaken = (end - start) / 1000000;
+        return timeTaken + " ms";
     }
 
-    private int min(final Board board,
-                    final int depth,
-                    final int highest,
-                    final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
-            this.boardsEvaluated++;
-            return this.evaluator.evaluate(board, depth);
-        }
-        int currentLowest = lowest;
-        for (final Move move : MoveSorter.STANDARD.sort((board.currentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final Board toBoard = moveTransition.getToBoard();
-                currentLowest = Math.min(currentLowest, max(toBoard,
-                        calculateQuiescenceDepth(toBoard, depth), highest, currentLowest));
-                if (currentLowest <= highest) {
-                    return highest;
-                }
-            }
-        }
-        return currentLowest;
-    }
+    private static final class RootMoveResult {
 
-    private int calculateQuiescenceDepth(final Board toBoard,
-                                         final int depth) {
-        if(depth == 1 && this.quiescenceCount < MAX_QUIESCENCE) {
-            int activityMeasure = 0;
-            if (toBoard.currentPlayer().isInCheck()) {
-                activityMeasure += 1;
-            }
-            for(final Move move: BoardUtils.lastNMoves(toBoard, 2)) {
-                if(move.isAttack()) {
-                    activityMeasure += 1;
-                }
-            }
-            if(activityMeasure >= 2) {
-                this.quiescenceCount++;
-                return 2;
-            }
+        final Move move;
+        final int value;
+        final int bound;
+        final long quiescenceNodes;
+        final long time;
+
+        RootMoveResult(final Move move,
+                       final int value,
+                       final int bound,
+                       final long quiescenceNodes,
+                       final long time) {
+            this.move = move;
+            this.value = value;
+            this.bound = bound;
+            this.quiescenceNodes = quiescenceNodes;
+            this.time = time;
         }
-        return depth - 1;
-    }
 
-    private static String calculateTimeTaken(final long start, final long end) {
-        final long timeTaken = (end - start) / 1000000;
-        return timeTaken + " ms";
+        boolean isFailLow(final boolean isWhite) {
+            return isWhite ? this.value < this.bound : this.value > this.bound;
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.chess.engine.classic.player.ai;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// how long a search may think about one move. the soft limit is checked between iterations, since an
+// iteration started after it would most likely not finish in time; the hard limit aborts a running iteration
+public final class TimeControl {
+
+    private static final int EXPECTED_MOVES_TO_GO = 30;
+    private static final long SAFETY_MARGIN_MILLIS = 50;
+
+    // raises the stop signal of searches that run past their hard time limit
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "search-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static final TimeControl INFINITE = new TimeControl(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long softLimitMillis;
+    private final long hardLimitMillis;
+
+    private TimeControl(final long softLimitMillis,
+                        final long hardLimitMillis) {
+        this.softLimitMillis = softLimitMillis;
+        this.hardLimitMillis = hardLimitMillis;
+    }
+
+    // a fixed budget for the move, no new iteration is started once half of it is gone
+    public static TimeControl moveTime(final long budgetMillis) {
+        if (budgetMillis <= 0) {
+            throw new IllegalArgumentException("move time must be positive : " + budgetMillis);
+        }
+        return new TimeControl(budgetMillis / 2, budgetMillis);
+    }
+
+    // a game clock with the given time left and increment per move. the remaining time is spread over the
+    // moves still expected, and one move may overrun its share up to four times before the search is cut
+    public static TimeControl clock(final long remainingMillis,
+                                    final long incrementMillis) {
+        if (remainingMillis <= 0 || incrementMillis < 0) {
+            throw new IllegalArgumentException("bad clock : " + remainingMillis + " + " + incrementMillis);
+        }
+        final long usableMillis = Math.max(1, remainingMillis - SAFETY_MARGIN_MILLIS);
+        final long share = Math.min(usableMillis, usableMillis / EXPECTED_MOVES_TO_GO + incrementMillis * 3 / 4);
+        final long hardLimit = Math.min(usableMillis / 2 + incrementMillis, share * 4);
+        return new TimeControl(share, Math.max(share, Math.min(hardLimit, usableMillis)));
+    }
+
+    public long getSoftLimitMillis() {
+        return this.softLimitMillis;
+    }
+
+    public long getHardLimitMillis() {
+        return this.hardLimitMillis;
+    }
+
+    public boolean isInfinite() {
+        return this == INFINITE;
+    }
+
+    // sets the stop signal once the hard limit has passed since the search started, unless cancelled first
+    ScheduledFuture<?> scheduleStop(final AtomicBoolean stopSignal,
+                                    final long startTime) {
+        final long hardLimitLeft = this.hardLimitMillis - (System.currentTimeMillis() - startTime);
+        return TIMER.schedule(() -> stopSignal.set(true), Math.max(0, hardLimitLeft), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return isInfinite() ? "infinite" : "soft " + this.softLimitMillis + " ms, hard " + this.hardLimitMillis + " ms";
+    }
+
+}
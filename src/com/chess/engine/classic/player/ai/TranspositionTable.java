@@ -0,0 +1,215 @@
+package com.chess.engine.classic.player.ai;
+
+import com.chess.engine.classic.board.Move;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// fixed size hash table of search results keyed by the zobrist hash of the board.
+// every entry is packed into a single long next to its key so the table holds no objects.
+// the key slot holds the hash xor the entry, so a slot torn by two searching threads writing
+// at once fails the key check on probe instead of handing back another position's result
+public final class TranspositionTable {
+
+    public static final int DEFAULT_SIZE = 1 << 20;
+
+    static final int EXACT = 0;
+    static final int LOWER_BOUND = 1;
+    static final int UPPER_BOUND = 2;
+    static final int NO_MOVE = 0;
+    static final long NO_ENTRY = 0L;
+
+    // score in the low 32 bits, then 7 of depth, 2 of bound, the valid flag and the 22 bit packed move
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 39;
+    private static final long VALID_FLAG = 1L << 41;
+    private static final int MOVE_SHIFT = 42;
+    private static final int DEPTH_MASK = 0x7F;
+    // the depth a stored mate score is measured against, deeper than any search
+    private static final int MATE_REFERENCE_DEPTH = DEPTH_MASK;
+
+    private final long[] slots;
+    private final int mask;
+
+    public TranspositionTable(final int size) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("transposition table size must be a power of two : " + size);
+        }
+        this.slots = new long[2 * size];
+        this.mask = size - 1;
+    }
+
+    public void clear() {
+        Arrays.fill(this.slots, 0L);
+    }
+
+    // returns the packed entry stored for the given key, or NO_ENTRY
+    long probe(final long zobristHash) {
+        final int index = index(zobristHash);
+        final long entry = this.slots[index + 1];
+        return (this.slots[index] ^ entry) == zobristHash ? entry : NO_ENTRY;
+    }
+
+    // stores a result, keeping a deeper entry for the same position
+    void store(final long zobristHash,
+               final int depth,
+               final int bound,
+               final int score,
+               final int bestMove,
+               final int mateScorePerDepth) {
+        final int index = index(zobristHash);
+        final long existing = this.slots[index + 1];
+        if (existing != NO_ENTRY && (this.slots[index] ^ existing) == zobristHash && depth(existing) > depth) {
+            return;
+        }
+        final long entry = pack(depth, bound, toStoredScore(score, depth, mateScorePerDepth), bestMove);
+        this.slots[index] = zobristHash ^ entry;
+        this.slots[index + 1] = entry;
+    }
+
+    // true when an entry is deep enough and its bound settles the (highest, lowest) window
+    static boolean isUsable(final long entry,
+                            final int depth,
+                            final int highest,
+                            final int lowest,
+                            final int mateScorePerDepth) {
+        if (entry == NO_ENTRY || depth(entry) < depth) {
+            return false;
+        }
+        switch (bound(entry)) {
+            case EXACT:
+                return true;
+            case LOWER_BOUND:
+                return score(entry, depth, mateScorePerDepth) >= lowest;
+            case UPPER_BOUND:
+                return score(entry, depth, mateScorePerDepth) <= highest;
+            default:
+                return false;
+        }
+    }
+
+    // the value a usable entry contributes to the (highest, lowest) window of a node searched to depth
+    static int usableScore(final long entry,
+                           final int depth,
+                           final int highest,
+                           final int lowest,
+                           final int mateScorePerDepth) {
+        switch (bound(entry)) {
+            case LOWER_BOUND:
+                return lowest;
+            case UPPER_BOUND:
+                return highest;
+            default:
+                return score(entry, depth, mateScorePerDepth);
+        }
+    }
+
+    // the stored score as seen from a node searched to depth
+    static int score(final long entry,
+                     final int depth,
+                     final int mateScorePerDepth) {
+        return fromStoredScore(score(entry), depth, mateScorePerDepth);
+    }
+
+    // a mate is worth mateScorePerDepth for every ply of depth left where it is found, which counts from the
+    // root, so a mate score is stored as its distance from the node instead: measured against a reference depth
+    // deeper than any search, and moved back to the depth of the node that reads it. the rest of the score is
+    // far smaller than one ply's worth, which is how a mate score is told apart
+    static int toStoredScore(final int score,
+                             final int depth,
+                             final int mateScorePerDepth) {
+        if (!isMateScore(score, mateScorePerDepth)) {
+            return score;
+        }
+        return score + Integer.signum(score) * mateScorePerDepth * (MATE_REFERENCE_DEPTH - depth);
+    }
+
+    // a mate further below the node than the node's own depth still scores as one found with a ply left
+    static int fromStoredScore(final int storedScore,
+                               final int depth,
+                               final int mateScorePerDepth) {
+        if (!isMateScore(storedScore, mateScorePerDepth)) {
+            return storedScore;
+        }
+        final int sign = Integer.signum(storedScore);
+        final int pliesBeforeReference = (Math.abs(storedScore) + mateScorePerDepth / 2) / mateScorePerDepth;
+        final int positionalScore = storedScore - sign * mateScorePerDepth * pliesBeforeReference;
+        final int distanceToMate = MATE_REFERENCE_DEPTH - pliesBeforeReference;
+        return sign * mateScorePerDepth * Math.max(1, depth - distanceToMate) + positionalScore;
+    }
+
+    private static boolean isMateScore(final int score,
+                                       final int mateScorePerDepth) {
+        return mateScorePerDepth > 0 && score != Integer.MIN_VALUE && score != Integer.MAX_VALUE &&
+               Math.abs(score) >= mateScorePerDepth / 2;
+    }
+
+    // classifies a searched score against the window the node was searched with
+    static int boundOf(final int score,
+                       final int highest,
+                       final int lowest) {
+        if (score >= lowest) {
+            return LOWER_BOUND;
+        }
+        if (score <= highest) {
+            return UPPER_BOUND;
+        }
+        return EXACT;
+    }
+
+    static int depth(final long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & DEPTH_MASK);
+    }
+
+    static int bound(final long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & 0x3);
+    }
+
+    static int score(final long entry) {
+        return (int) entry;
+    }
+
+    static int bestMove(final long entry) {
+        return (int) (entry >>> MOVE_SHIFT);
+    }
+
+    // encodes a move as its source and destination tiles
+    static int encodeMove(final Move move) {
+        return (move.getCurrentCoordinate() << 6) | move.getDestinationCoordinate();
+    }
+
+    // moves the stored best move of a position to the front of its move list
+    static Collection<Move> hashMoveFirst(final Collection<Move> moves,
+                                          final int hashMove) {
+        if (hashMove == NO_MOVE) {
+            return moves;
+        }
+        final List<Move> orderedMoves = new ArrayList<>(moves.size());
+        for (final Move move : moves) {
+            if (encodeMove(move) == hashMove) {
+                orderedMoves.add(0, move);
+            } else {
+                orderedMoves.add(move);
+            }
+        }
+        return orderedMoves;
+    }
+
+    private static long pack(final int depth,
+                             final int bound,
+                             final int score,
+                             final int bestMove) {
+        return VALID_FLAG |
+               ((long) bestMove << MOVE_SHIFT) |
+               ((long) bound << BOUND_SHIFT) |
+               ((long) Math.min(depth, DEPTH_MASK) << DEPTH_SHIFT) |
+               (score & 0xFFFFFFFFL);
+    }
+
+    private int index(final long zobristHash) {
+        return ((int) (zobristHash ^ (zobristHash >>> 32)) & this.mask) << 1;
+    }
+
+}
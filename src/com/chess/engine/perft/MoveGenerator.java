@@ -0,0 +1,185 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.bitboards.BitBoardV2;
+import com.chess.engine.classic.board.Board;
+import com.chess.engine.classic.board.BoardUtils;
+import com.chess.engine.classic.board.Move;
+import com.chess.engine.classic.board.MoveTransition;
+import com.chess.engine.classic.board.SearchBoard;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// the move generators perft can walk, each counting the leaf nodes of the legal move tree of a board
+public enum MoveGenerator {
+
+    CLASSIC(3) {
+        @Override
+        boolean generatesUnderPromotions() {
+            return false;
+        }
+
+        @Override
+        long perft(final Board board,
+                   final int depth) {
+            long nodes = 0;
+            for (final Move move : board.currentPlayer().getLegalMoves()) {
+                final MoveTransition transition = board.currentPlayer().makeMove(move);
+                if (transition.getMoveStatus().isDone()) {
+                    nodes += depth == 1 ? 1 : perft(transition.getToBoard(), depth - 1);
+                }
+            }
+            return nodes;
+        }
+
+        @Override
+        Map<String, Long> divide(final Board board,
+                                 final int depth) {
+            final Map<String, Long> divide = new TreeMap<>();
+            for (final Move move : board.currentPlayer().getLegalMoves()) {
+                final MoveTransition transition = board.currentPlayer().makeMove(move);
+                if (transition.getMoveStatus().isDone()) {
+                    divide.put(moveText(move.getCurrentCoordinate(), move.getDestinationCoordinate(),
+                            move instanceof Move.PawnPromotion ? "q" : ""),
+                            depth == 1 ? 1 : perft(transition.getToBoard(), depth - 1));
+                }
+            }
+            return divide;
+        }
+    },
+    SEARCH_BOARD(5) {
+        @Override
+        boolean generatesUnderPromotions() {
+            return true;
+        }
+
+        @Override
+        long perft(final Board board,
+                   final int depth) {
+            return searchBoardPerft(SearchBoard.fromBoard(board), depth, createBuffers(depth), true);
+        }
+
+        @Override
+        Map<String, Long> divide(final Board board,
+                                 final int depth) {
+            final Map<String, Long> divide = new TreeMap<>();
+            final SearchBoard searchBoard = SearchBoard.fromBoard(board);
+            final int[][] buffers = createBuffers(depth);
+            final int numMoves = searchBoard.generateLegalMoves(buffers[depth]);
+            for (int i = 0; i < numMoves; i++) {
+                final int move = buffers[depth][i];
+                searchBoard.makeMove(move);
+                divide.put(moveText(SearchBoard.from(move), SearchBoard.to(move),
+                        SearchBoard.isPromotion(move) ? PROMOTION_NAMES[SearchBoard.promotionType(move) - SearchBoard.KNIGHT] : ""),
+                        depth == 1 ? 1 : searchBoardPerft(searchBoard, depth - 1, buffers, true));
+                searchBoard.unmakeMove();
+            }
+            return divide;
+        }
+    },
+    BIT_BOARD_V2(6) {
+        @Override
+        boolean generatesUnderPromotions() {
+            return true;
+        }
+
+        @Override
+        long perft(final Board board,
+                   final int depth) {
+            return bitBoardPerft(BitBoardV2.fromBoard(board), depth, createBuffers(depth));
+        }
+
+        @Override
+        Map<String, Long> divide(final Board board,
+                                 final int depth) {
+            final Map<String, Long> divide = new TreeMap<>();
+            final BitBoardV2 bitBoard = BitBoardV2.fromBoard(board);
+            final int[][] buffers = createBuffers(depth);
+            final int numMoves = bitBoard.generateLegalMoves(buffers[depth]);
+            for (int i = 0; i < numMoves; i++) {
+                final int move = buffers[depth][i];
+                divide.put(moveText(BitBoardV2.toClassicCoordinate(BitBoardV2.from(move)),
+                        BitBoardV2.toClassicCoordinate(BitBoardV2.to(move)),
+                        BitBoardV2.isPromotion(move) ? PROMOTION_NAMES[BitBoardV2.flags(move) & 3] : ""),
+                        depth == 1 ? 1 : bitBoardPerft(bitBoard.makeMove(move), depth - 1, buffers));
+            }
+            return divide;
+        }
+    };
+
+    private static final String[] PROMOTION_NAMES = {"n", "b", "r", "q"};
+
+    private final int suiteDepth;
+
+    MoveGenerator(final int suiteDepth) {
+        this.suiteDepth = suiteDepth;
+    }
+
+    // the deepest level the reference suite runs this generator to
+    int getSuiteDepth() {
+        return this.suiteDepth;
+    }
+
+    // the classic board only promotes to queens, so its counts differ from the published ones once promotions occur
+    abstract boolean generatesUnderPromotions();
+
+    abstract long perft(Board board, int depth);
+
+    // the node count below each root move, keyed by the move in coordinate notation
+    abstract Map<String, Long> divide(Board board, int depth);
+
+    // the count the classic board should reach, walking the search board with queen promotions only
+    static long queenPromotionPerft(final Board board,
+                                    final int depth) {
+        return searchBoardPerft(SearchBoard.fromBoard(board), depth, createBuffers(depth), false);
+    }
+
+    private static long searchBoardPerft(final SearchBoard board,
+                                         final int depth,
+                                         final int[][] buffers,
+                                         final boolean underPromotions) {
+        final int[] moves = buffers[depth];
+        final int numMoves = board.generateLegalMoves(moves);
+        long nodes = 0;
+        for (int i = 0; i < numMoves; i++) {
+            final int move = moves[i];
+            if (!underPromotions && SearchBoard.isPromotion(move) && SearchBoard.promotionType(move) != SearchBoard.QUEEN) {
+                continue;
+            }
+            if (depth == 1) {
+                nodes++;
+            } else {
+                board.makeMove(move);
+                nodes += searchBoardPerft(board, depth - 1, buffers, underPromotions);
+                board.unmakeMove();
+            }
+        }
+        return nodes;
+    }
+
+    private static long bitBoardPerft(final BitBoardV2 board,
+                                      final int depth,
+                                      final int[][] buffers) {
+        final int[] moves = buffers[depth];
+        final int numMoves = board.generateLegalMoves(moves);
+        if (depth == 1) {
+            return numMoves;
+        }
+        long nodes = 0;
+        for (int i = 0; i < numMoves; i++) {
+            nodes += bitBoardPerft(board.makeMove(moves[i]), depth - 1, buffers);
+        }
+        return nodes;
+    }
+
+    private static int[][] createBuffers(final int depth) {
+        return new int[depth + 1][BitBoardV2.MAX_MOVES];
+    }
+
+    private static String moveText(final int from,
+                                   final int to,
+                                   final String promotion) {
+        return BoardUtils.INSTANCE.getPositionAtCoordinate(from) + BoardUtils.INSTANCE.getPositionAtCoordinate(to) + promotion;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.bitboards.BitBoard;
+import com.chess.engine.classic.board.Board;
+import com.chess.pgn.FenUtilities;
+
+import java.util.Map;
+
+// counts the leaf nodes of the legal move tree to validate and time the move generators.
+//
+//   Perft                                   runs every generator over the reference positions
+//   Perft divide <generator> <depth> <fen>  prints the node count below each root move
+public final class Perft {
+
+    private static final int LEGACY_BIT_BOARD_ITERATIONS = 10000;
+
+    private Perft() {
+        throw new RuntimeException("Not instantiatable!");
+    }
+
+    public static void main(final String[] args) {
+        if (args.length >= 4 && args[0].equals("divide")) {
+            divide(MoveGenerator.valueOf(args[1]), Integer.parseInt(args[2]), joinFen(args));
+            return;
+        }
+        if (args.length != 0) {
+            System.out.println("usage: Perft [divide <" + generatorNames() + "> <depth> <fen>]");
+            System.exit(2);
+        }
+        final boolean passed = runSuite();
+        System.out.println(passed ? "all node counts match" : "NODE COUNT MISMATCH");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    public static boolean runSuite() {
+        boolean passed = true;
+        for (final MoveGenerator generator : MoveGenerator.values()) {
+            for (final PerftPosition position : PerftPosition.values()) {
+                final int depth = Math.min(generator.getSuiteDepth(), position.getMaxDepth());
+                final Board board = position.createBoard();
+                final long expected = generator.generatesUnderPromotions() ?
+                        position.getNodeCount(depth) : MoveGenerator.queenPromotionPerft(board, depth);
+                final long startTime = System.nanoTime();
+                final long nodes = generator.perft(board, depth);
+                final long elapsed = System.nanoTime() - startTime;
+                final boolean matches = nodes == expected;
+                passed &= matches;
+                report(generator.name(), position.name(), depth, nodes, elapsed, matches ? "OK" : "expected " + expected);
+            }
+        }
+        return passedLegacyBitBoard() && passed;
+    }
+
+    // the first bitboard prototype only generates the opening moves of both sides and cannot make moves,
+    // so it is checked at depth 1 of the initial position and timed over repeated generation
+    private static boolean passedLegacyBitBoard() {
+        final BitBoard bitBoard = new BitBoard();
+        final long expected = 2 * PerftPosition.INITIAL.getNodeCount(1);
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < LEGACY_BIT_BOARD_ITERATIONS; i++) {
+            bitBoard.generateStandardLegalMoves();
+        }
+        final long elapsed = (System.nanoTime() - startTime) / LEGACY_BIT_BOARD_ITERATIONS;
+        final long nodes = bitBoard.getLegalMoves().size();
+        report("BIT_BOARD", PerftPosition.INITIAL.name() + " (both sides)", 1, nodes, elapsed,
+                nodes == expected ? "OK" : "expected " + expected);
+        return nodes == expected;
+    }
+
+    private static void divide(final MoveGenerator generator,
+                               final int depth,
+                               final String fen) {
+        final long startTime = System.nanoTime();
+        final Map<String, Long> divide = generator.divide(FenUtilities.createGameFromFEN(fen), depth);
+        final long elapsed = System.nanoTime() - startTime;
+        long nodes = 0;
+        for (final Map.Entry<String, Long> entry : divide.entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        System.out.println();
+        System.out.println("moves: " + divide.size());
+        System.out.println("nodes: " + nodes);
+        System.out.printf("time: %d ms, %,d nps\n", elapsed / 1000000, nodesPerSecond(nodes, elapsed));
+    }
+
+    private static void report(final String generator,
+                               final String position,
+                               final int depth,
+                               final long nodes,
+                               final long elapsedNanos,
+                               final String result) {
+        System.out.printf("%-13s %-22s depth %d %,12d nodes %,9d ms %,13d nps  %s\n", generator, position, depth, nodes,
+                elapsedNanos / 1000000, nodesPerSecond(nodes, elapsedNanos), result);
+    }
+
+    private static long nodesPerSecond(final long nodes,
+                                       final long elapsedNanos) {
+        return elapsedNanos == 0 ? 0 : (long) (nodes * 1e9 / elapsedNanos);
+    }
+
+    private static String joinFen(final String[] args) {
+        final StringBuilder fen = new StringBuilder(args[3]);
+        for (int i = 4; i < args.length; i++) {
+            fen.append(' ').append(args[i]);
+        }
+        return fen.toString();
+    }
+
+    private static String generatorNames() {
+        final StringBuilder names = new StringBuilder();
+        for (final MoveGenerator generator : MoveGenerator.values()) {
+            names.append(names.length() == 0 ? "" : "|").append(generator.name());
+        }
+        return names.toString();
+    }
+
+}
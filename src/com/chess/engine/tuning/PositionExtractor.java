@@ -0,0 +1,136 @@
+package com.chess.engine.tuning;
+
+import com.chess.engine.classic.board.Board;
+import com.chess.engine.classic.board.MoveTransition;
+import com.chess.engine.classic.board.SearchBoard;
+import com.chess.engine.classic.player.ai.StandardBoardEvaluator;
+import com.chess.pgn.Game;
+import com.chess.pgn.PGNUtilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// replays the games of pgn files and keeps the quiet positions, the ones the static evaluation can be trusted
+// on: the side to move is not in check and has no capture that wins material and no promotion. the files are
+// read one game at a time, and the games are replayed in parallel a batch at a time
+public final class PositionExtractor {
+
+    private static final int GAMES_PER_THREAD = 64;
+    private static final int POSITIONS_PER_GAME = 128;
+
+    private final int numThreads;
+    private final int openingPlies;
+
+    // the first openingPlies positions of every game are skipped, they come from opening books more than play
+    public PositionExtractor(final int numThreads,
+                             final int openingPlies) {
+        this.numThreads = numThreads;
+        this.openingPlies = openingPlies;
+    }
+
+    public TuningPositions extract(final List<File> pgnFiles) throws IOException {
+        final TuningPositions positions = new TuningPositions();
+        final List<Game> batch = new ArrayList<>();
+        final ExecutorService pool = Executors.newFixedThreadPool(this.numThreads);
+        try {
+            for (final File pgnFile : pgnFiles) {
+                PGNUtilities.streamPGNFile(pgnFile, game -> {
+                    if (game.isValid() && result(game) != -1) {
+                        batch.add(game);
+                        if (batch.size() == GAMES_PER_THREAD * this.numThreads) {
+                            extractBatch(pool, batch, positions);
+                        }
+                    }
+                });
+            }
+            extractBatch(pool, batch, positions);
+        } finally {
+            pool.shutdown();
+        }
+        return positions;
+    }
+
+    // the positions of each game are gathered apart and added in game order, so a file always extracts the same
+    private void extractBatch(final ExecutorService pool,
+                              final List<Game> batch,
+                              final TuningPositions positions) {
+        final List<Callable<TuningPositions>> tasks = new ArrayList<>();
+        for (final Game game : batch) {
+            tasks.add(() -> extractGame(game));
+        }
+        try {
+            for (final Future<TuningPositions> future : pool.invokeAll(tasks)) {
+                positions.addAll(future.get());
+            }
+        } catch (final InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        batch.clear();
+    }
+
+    private TuningPositions extractGame(final Game game) {
+        final TuningPositions positions = new TuningPositions(POSITIONS_PER_GAME);
+        final int result = result(game);
+        final int[] weightCoefficients = new int[TuningPositions.NUM_WEIGHTS];
+        final int[] captures = new int[SearchBoard.MAX_MOVES];
+        Board board = Board.createStandardBoard();
+        int ply = 0;
+        for (final String moveText : game.getMoves()) {
+            final MoveTransition transition;
+            try {
+                transition = board.currentPlayer().makeMove(PGNUtilities.createMove(board, moveText));
+            } catch (final RuntimeException e) {
+                break;
+            }
+            // the rest of a game with a move that does not parse or replay is dropped
+            if (!transition.getMoveStatus().isDone()) {
+                break;
+            }
+            board = transition.getToBoard();
+            if (++ply > this.openingPlies) {
+                final SearchBoard searchBoard = SearchBoard.fromBoard(board);
+                if (isQuiet(searchBoard, captures)) {
+                    StandardBoardEvaluator.get().extractWeightCoefficients(searchBoard, 0, weightCoefficients);
+                    positions.add(result, searchBoard, weightCoefficients);
+                }
+            }
+        }
+        return positions;
+    }
+
+    private static boolean isQuiet(final SearchBoard board,
+                                   final int[] captures) {
+        if (board.isInCheck()) {
+            return false;
+        }
+        final int numCaptures = board.generateCaptures(board.getSideToMove(), captures);
+        for (int i = 0; i < numCaptures; i++) {
+            final int move = captures[i];
+            if ((SearchBoard.isPromotion(move) || board.staticExchange(move) > 0) && board.isLegal(move)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int result(final Game game) {
+        switch (game.getWinner()) {
+            case "White":
+                return TuningPositions.WHITE_WINS;
+            case "Black":
+                return TuningPositions.BLACK_WINS;
+            case "Tie":
+                return TuningPositions.DRAW;
+            default:
+                return -1;
+        }
+    }
+
+}
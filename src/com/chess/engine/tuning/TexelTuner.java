@@ -0,0 +1,225 @@
+package com.chess.engine.tuning;
+
+import com.chess.engine.classic.player.ai.EvaluationWeights;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// fits the evaluation weights to game results the texel way: a position's evaluation e is turned into an
+// expected result 1 / (1 + 10^(-k e / 400)) and the weights are moved to lower the mean squared error against
+// the results of the games the positions came from. the evaluation is linear in the weights, so the gradient
+// is exact and each epoch is one pass over the features, split between threads.
+//
+//   TexelTuner [--pgn <file>]... [--positions <file>] [--weights <file>] [--out <file>] [--threads <n>]
+//              [--epochs <n>] [--skip <plies>]
+//
+// with pgn files the positions are extracted from them and, given a positions file, saved there for the next
+// run. without pgn files the positions are read from the positions file. a tuner keeps one pool of threads
+// for every pass it makes over the positions, so it is closed once the tuning is done
+public final class TexelTuner implements AutoCloseable {
+
+    private static final double LEARNING_RATE = 1.0;
+    private static final double FIRST_MOMENT_DECAY = 0.9;
+    private static final double SECOND_MOMENT_DECAY = 0.999;
+    private static final double EPSILON = 1e-8;
+    private static final int REPORT_INTERVAL = 50;
+    private static final double LOG_10_OVER_400 = Math.log(10) / 400;
+
+    private final TuningPositions positions;
+    private final int numThreads;
+    private final ExecutorService pool;
+
+    public TexelTuner(final TuningPositions positions,
+                      final int numThreads) {
+        this.positions = positions;
+        this.numThreads = numThreads;
+        this.pool = Executors.newFixedThreadPool(numThreads);
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final List<File> pgnFiles = new ArrayList<>();
+        File positionsFile = null;
+        File outFile = new File("tuned.weights");
+        EvaluationWeights weights = EvaluationWeights.defaults();
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int epochs = 1000;
+        int openingPlies = 8;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--pgn":
+                    pgnFiles.add(new File(args[++i]));
+                    break;
+                case "--positions":
+                    positionsFile = new File(args[++i]);
+                    break;
+                case "--weights":
+                    weights = EvaluationWeights.load(new File(args[++i]));
+                    break;
+                case "--out":
+                    outFile = new File(args[++i]);
+                    break;
+                case "--threads":
+                    numThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "--epochs":
+                    epochs = Integer.parseInt(args[++i]);
+                    break;
+                case "--skip":
+                    openingPlies = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + args[i]);
+            }
+        }
+        if (pgnFiles.isEmpty() && positionsFile == null) {
+            throw new IllegalArgumentException("no pgn files and no positions file to tune with");
+        }
+        final long startTime = System.currentTimeMillis();
+        final TuningPositions positions;
+        if (pgnFiles.isEmpty()) {
+            positions = TuningPositions.load(positionsFile);
+        } else {
+            positions = new PositionExtractor(numThreads, openingPlies).extract(pgnFiles);
+            if (positionsFile != null) {
+                positions.save(positionsFile);
+            }
+        }
+        System.out.printf("%d positions ready in %d ms\n", positions.size(), System.currentTimeMillis() - startTime);
+        try (final TexelTuner tuner = new TexelTuner(positions, numThreads)) {
+            final double[] parameters = TuningPositions.toParameters(weights);
+            final double scalingConstant = tuner.fitScalingConstant(parameters);
+            System.out.printf("k = %.4f, error = %.6f\n", scalingConstant, tuner.meanSquaredError(parameters, scalingConstant));
+            final double[] tuned = tuner.tune(parameters, scalingConstant, epochs);
+            final EvaluationWeights tunedWeights = TuningPositions.toWeights(tuned);
+            tunedWeights.save(outFile);
+            System.out.printf("error = %.6f, weights written to %s in %d ms\n%s",
+                    tuner.meanSquaredError(TuningPositions.toParameters(tunedWeights), scalingConstant), outFile,
+                    System.currentTimeMillis() - startTime, tunedWeights);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.pool.shutdown();
+    }
+
+    // the k that best fits the given parameters, found by narrowing down on the least error. the tuning then
+    // keeps k fixed, so it changes the weights rather than the scale
+    public double fitScalingConstant(final double[] parameters) {
+        double low = 0.0;
+        double high = 4.0;
+        while (high - low > 1e-4) {
+            final double lowThird = low + (high - low) / 3;
+            final double highThird = high - (high - low) / 3;
+            if (meanSquaredError(parameters, lowThird) < meanSquaredError(parameters, highThird)) {
+                high = highThird;
+            } else {
+                low = lowThird;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    public double meanSquaredError(final double[] parameters,
+                                   final double scalingConstant) {
+        return sumOverPositions((first, last) -> {
+            final double[] error = new double[1];
+            for (int position = first; position < last; position++) {
+                final double difference = target(position) - expectedResult(position, parameters, scalingConstant);
+                error[0] += difference * difference;
+            }
+            return error;
+        }, 1)[0] / this.positions.size();
+    }
+
+    // full batch gradient descent with adam step sizes, each parameter moves about the learning rate per epoch
+    // while its gradient keeps its sign
+    public double[] tune(final double[] initialParameters,
+                         final double scalingConstant,
+                         final int epochs) {
+        final double[] parameters = initialParameters.clone();
+        final double[] firstMoments = new double[parameters.length];
+        final double[] secondMoments = new double[parameters.length];
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            final double[] gradient = gradient(parameters, scalingConstant);
+            final double firstCorrection = 1 - Math.pow(FIRST_MOMENT_DECAY, epoch);
+            final double secondCorrection = 1 - Math.pow(SECOND_MOMENT_DECAY, epoch);
+            for (int i = 0; i < parameters.length; i++) {
+                firstMoments[i] = FIRST_MOMENT_DECAY * firstMoments[i] + (1 - FIRST_MOMENT_DECAY) * gradient[i];
+                secondMoments[i] = SECOND_MOMENT_DECAY * secondMoments[i] + (1 - SECOND_MOMENT_DECAY) * gradient[i] * gradient[i];
+                parameters[i] -= LEARNING_RATE * (firstMoments[i] / firstCorrection) /
+                                 (Math.sqrt(secondMoments[i] / secondCorrection) + EPSILON);
+            }
+            if (epoch % REPORT_INTERVAL == 0 || epoch == epochs) {
+                System.out.printf("epoch %d error = %.6f\n", epoch, meanSquaredError(parameters, scalingConstant));
+            }
+        }
+        return parameters;
+    }
+
+    // the derivative of the mean squared error by each parameter. with s the expected result and r the game
+    // result, a position adds -2 (r - s) s (1 - s) k ln(10) / 400 times each of its feature coefficients
+    private double[] gradient(final double[] parameters,
+                              final double scalingConstant) {
+        final double scale = scalingConstant * LOG_10_OVER_400;
+        final double[] gradient = sumOverPositions((first, last) -> {
+            final double[] partial = new double[parameters.length];
+            for (int position = first; position < last; position++) {
+                final double expected = expectedResult(position, parameters, scalingConstant);
+                final double factor = -2 * (target(position) - expected) * expected * (1 - expected) * scale;
+                this.positions.addFeatures(position, factor, partial);
+            }
+            return partial;
+        }, parameters.length);
+        for (int i = 0; i < gradient.length; i++) {
+            gradient[i] /= this.positions.size();
+        }
+        return gradient;
+    }
+
+    private double expectedResult(final int position,
+                                  final double[] parameters,
+                                  final double scalingConstant) {
+        return 1 / (1 + Math.exp(-scalingConstant * LOG_10_OVER_400 * this.positions.evaluate(position, parameters)));
+    }
+
+    private double target(final int position) {
+        return this.positions.getResult(position) / 2.0;
+    }
+
+    // splits the positions into a range per thread and adds up the arrays the ranges come back with
+    private double[] sumOverPositions(final RangeSum rangeSum,
+                                      final int length) {
+        try {
+            final List<Callable<double[]>> tasks = new ArrayList<>();
+            final int rangeSize = (this.positions.size() + this.numThreads - 1) / this.numThreads;
+            for (int first = 0; first < this.positions.size(); first += rangeSize) {
+                final int rangeFirst = first;
+                final int rangeLast = Math.min(first + rangeSize, this.positions.size());
+                tasks.add(() -> rangeSum.sum(rangeFirst, rangeLast));
+            }
+            final double[] sum = new double[length];
+            for (final Future<double[]> future : this.pool.invokeAll(tasks)) {
+                final double[] partial = future.get();
+                for (int i = 0; i < length; i++) {
+                    sum[i] += partial[i];
+                }
+            }
+            return sum;
+        } catch (final InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private interface RangeSum {
+        double[] sum(int first, int last);
+    }
+
+}
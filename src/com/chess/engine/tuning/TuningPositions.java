@@ -0,0 +1,223 @@
+package com.chess.engine.tuning;
+
+import com.chess.engine.classic.board.BoardUtils;
+import com.chess.engine.classic.board.SearchBoard;
+import com.chess.engine.classic.player.ai.EvaluationWeights;
+import com.chess.engine.classic.player.ai.EvaluationWeights.Weight;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// positions taken from games with the game result, each stored as its features: the material, which is not
+// tuned, and a sparse list of parameter index and coefficient pairs, so that the evaluation of a position is the
+// material plus the sum of each coefficient times its parameter. everything lives in primitive arrays that
+// grow as positions are added, a million positions take a few tens of megabytes.
+//
+// the parameters are the evaluation weights in ordinal order followed by the 64 piece-square bonuses of each
+// piece, white pawn to white king and then black
+public final class TuningPositions {
+
+    public static final int NUM_WEIGHTS = Weight.values().length;
+    public static final int NUM_PARAMETERS = NUM_WEIGHTS + 2 * SearchBoard.KING * BoardUtils.NUM_TILES;
+
+    // results count half points for white
+    public static final int BLACK_WINS = 0;
+    public static final int DRAW = 1;
+    public static final int WHITE_WINS = 2;
+
+    private static final int MAGIC = 0x54505331;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int FEATURES_PER_POSITION = 32;
+
+    private byte[] results;
+    private int[] materialScores;
+    private int[] featureStarts;
+    private short[] featureIndices;
+    private short[] featureCoefficients;
+    private int size;
+    private int numFeatures;
+
+    public TuningPositions() {
+        this(INITIAL_CAPACITY);
+    }
+
+    TuningPositions(final int capacity) {
+        this.results = new byte[capacity];
+        this.materialScores = new int[capacity];
+        this.featureStarts = new int[capacity + 1];
+        this.featureIndices = new short[capacity * FEATURES_PER_POSITION];
+        this.featureCoefficients = new short[capacity * FEATURES_PER_POSITION];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getResult(final int position) {
+        return this.results[position];
+    }
+
+    // the evaluation of the position with the given parameters, from white's point of view
+    public double evaluate(final int position,
+                           final double[] parameters) {
+        double score = this.materialScores[position];
+        for (int i = this.featureStarts[position]; i < this.featureStarts[position + 1]; i++) {
+            score += this.featureCoefficients[i] * parameters[this.featureIndices[i]];
+        }
+        return score;
+    }
+
+    // adds the factor times each feature coefficient of the position to the gradient
+    public void addFeatures(final int position,
+                            final double factor,
+                            final double[] gradient) {
+        for (int i = this.featureStarts[position]; i < this.featureStarts[position + 1]; i++) {
+            gradient[this.featureIndices[i]] += factor * this.featureCoefficients[i];
+        }
+    }
+
+    // the weight coefficients are the ones StandardBoardEvaluator.extractWeightCoefficients() fills in, the
+    // piece-square features are read from the board
+    public void add(final int result,
+                    final SearchBoard board,
+                    final int[] weightCoefficients) {
+        ensureCapacity(NUM_WEIGHTS + BoardUtils.NUM_TILES);
+        for (int weight = 0; weight < NUM_WEIGHTS; weight++) {
+            if (weightCoefficients[weight] != 0) {
+                addFeature(weight, weightCoefficients[weight]);
+            }
+        }
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            final int piece = board.getPiece(square);
+            if (piece != SearchBoard.EMPTY) {
+                addFeature(pieceSquareParameter(piece, square), SearchBoard.colorOf(piece) == SearchBoard.WHITE ? 1 : -1);
+            }
+        }
+        finishPosition(result, board.getMaterial(SearchBoard.WHITE) - board.getMaterial(SearchBoard.BLACK));
+    }
+
+    public void addAll(final TuningPositions positions) {
+        for (int position = 0; position < positions.size; position++) {
+            ensureCapacity(positions.featureStarts[position + 1] - positions.featureStarts[position]);
+            for (int i = positions.featureStarts[position]; i < positions.featureStarts[position + 1]; i++) {
+                addFeature(positions.featureIndices[i], positions.featureCoefficients[i]);
+            }
+            finishPosition(positions.results[position], positions.materialScores[position]);
+        }
+    }
+
+    public static double[] toParameters(final EvaluationWeights weights) {
+        final double[] parameters = new double[NUM_PARAMETERS];
+        for (final Weight weight : Weight.values()) {
+            parameters[weight.ordinal()] = weights.get(weight);
+        }
+        for (int table = 0; table < 2 * SearchBoard.KING; table++) {
+            for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+                parameters[NUM_WEIGHTS + table * BoardUtils.NUM_TILES + square] =
+                        weights.getPieceSquareBonus(pieceCode(table), square);
+            }
+        }
+        return parameters;
+    }
+
+    // the parameters rounded to whole weights
+    public static EvaluationWeights toWeights(final double[] parameters) {
+        final EvaluationWeights.Builder builder = EvaluationWeights.builder(EvaluationWeights.defaults());
+        for (final Weight weight : Weight.values()) {
+            builder.setWeight(weight, (int) Math.round(parameters[weight.ordinal()]));
+        }
+        for (int table = 0; table < 2 * SearchBoard.KING; table++) {
+            for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+                builder.setPieceSquareBonus(pieceCode(table), square,
+                        (int) Math.round(parameters[NUM_WEIGHTS + table * BoardUtils.NUM_TILES + square]));
+            }
+        }
+        return builder.build();
+    }
+
+    public static TuningPositions load(final File positionsFile) throws IOException {
+        try (final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(positionsFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != NUM_PARAMETERS) {
+                throw new IOException("not a positions file for these evaluation parameters : " + positionsFile);
+            }
+            final TuningPositions positions = new TuningPositions();
+            final int size = input.readInt();
+            for (int position = 0; position < size; position++) {
+                final int result = input.readByte();
+                final int materialScore = input.readInt();
+                final int numFeatures = input.readUnsignedShort();
+                positions.ensureCapacity(numFeatures);
+                for (int i = 0; i < numFeatures; i++) {
+                    positions.addFeature(input.readShort(), input.readShort());
+                }
+                positions.finishPosition(result, materialScore);
+            }
+            return positions;
+        }
+    }
+
+    public void save(final File positionsFile) throws IOException {
+        try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(positionsFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(NUM_PARAMETERS);
+            output.writeInt(this.size);
+            for (int position = 0; position < this.size; position++) {
+                output.writeByte(this.results[position]);
+                output.writeInt(this.materialScores[position]);
+                output.writeShort(this.featureStarts[position + 1] - this.featureStarts[position]);
+                for (int i = this.featureStarts[position]; i < this.featureStarts[position + 1]; i++) {
+                    output.writeShort(this.featureIndices[i]);
+                    output.writeShort(this.featureCoefficients[i]);
+                }
+            }
+        }
+    }
+
+    private static int pieceSquareParameter(final int piece,
+                                            final int square) {
+        final int table = SearchBoard.typeOf(piece) - 1 + (SearchBoard.colorOf(piece) == SearchBoard.WHITE ? 0 : SearchBoard.KING);
+        return NUM_WEIGHTS + table * BoardUtils.NUM_TILES + square;
+    }
+
+    private static int pieceCode(final int table) {
+        return table < SearchBoard.KING ? SearchBoard.WHITE | (table + 1) : SearchBoard.BLACK | (table - SearchBoard.KING + 1);
+    }
+
+    private void addFeature(final int index,
+                            final int coefficient) {
+        this.featureIndices[this.numFeatures] = (short) index;
+        this.featureCoefficients[this.numFeatures] = (short) coefficient;
+        this.numFeatures++;
+    }
+
+    private void finishPosition(final int result,
+                                final int materialScore) {
+        this.results[this.size] = (byte) result;
+        this.materialScores[this.size] = materialScore;
+        this.size++;
+        this.featureStarts[this.size] = this.numFeatures;
+    }
+
+    // room for one more position with up to the given number of features
+    private void ensureCapacity(final int numFeatures) {
+        if (this.size == this.results.length) {
+            final int capacity = 2 * this.results.length;
+            this.results = Arrays.copyOf(this.results, capacity);
+            this.materialScores = Arrays.copyOf(this.materialScores, capacity);
+            this.featureStarts = Arrays.copyOf(this.featureStarts, capacity + 1);
+        }
+        if (this.numFeatures + numFeatures > this.featureIndices.length) {
+            final int capacity = Math.max(2 * this.featureIndices.length, this.numFeatures + numFeatures);
+            this.featureIndices = Arrays.copyOf(this.featureIndices, capacity);
+            this.featureCoefficients = Arrays.copyOf(this.featureCoefficients, capacity);
+        }
+    }
+
+}
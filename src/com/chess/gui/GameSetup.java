@@ -14,6 +14,7 @@ class GameSetup extends JDialog {
     private PlayerType whitePlayerType;
     private PlayerType blackPlayerType;
     private JSpinner searchDepthSpinner;
+    private JSpinner moveTimeSpinner;
 
     private static final String HUMAN_TEXT = "Human";
     private static final String COMPUTER_TEXT = "Computer";
@@ -47,6 +48,7 @@ class GameSetup extends JDialog {
 
         myPanel.add(new JLabel("Search"));
         this.searchDepthSpinner = addLabeledSpinner(myPanel, "Search Depth", new SpinnerNumberModel(6, 0, Integer.MAX_VALUE, 1));
+        this.moveTimeSpinner = addLabeledSpinner(myPanel, "Move Time (s, 0 = no limit)", new SpinnerNumberModel(5, 0, Integer.MAX_VALUE, 1));
 
         final JButton cancelButton = new JButton("Cancel");
         final JButton okButton = new JButton("OK");
@@ -108,4 +110,9 @@ class GameSetup extends JDialog {
     int getSearchDepth() {
         return (Integer)this.searchDepthSpinner.getValue();
     }
+
+    // the most the computer may think about a move, or 0 to always search to the full depth
+    long getMoveTimeMillis() {
+        return 1000L * (Integer)this.moveTimeSpinner.getValue();
+    }
 }
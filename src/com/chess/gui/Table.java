@@ -4,8 +4,11 @@ import com.chess.engine.classic.board.*;
 import com.chess.engine.classic.board.Move.MoveFactory;
 import com.chess.engine.classic.pieces.Piece;
 import com.chess.engine.classic.player.Player;
+import com.chess.engine.classic.player.ai.HistoryTable;
 import com.chess.engine.classic.player.ai.StandardBoardEvaluator;
 import com.chess.engine.classic.player.ai.StockAlphaBeta;
+import com.chess.engine.classic.player.ai.TimeControl;
+import com.chess.engine.classic.player.ai.TranspositionTable;
 import com.chess.pgn.FenUtilities;
 import com.chess.pgn.MySqlGamePersistence;
 import com.google.common.collect.Lists;
@@ -36,6 +39,8 @@ public final class Table extends Observable {
     private final BoardPanel boardPanel;
     private final MoveLog moveLog;
     private final GameSetup gameSetup;
+    private final HistoryTable historyTable;
+    private final TranspositionTable transpositionTable;
     private Board chessBoard;
     private Move computerMove;
     private Piece sourceTile;
@@ -71,6 +76,8 @@ public final class Table extends Observable {
         this.moveLog = new MoveLog();
         this.addObserver(new TableGameAIWatcher());
         this.gameSetup = new GameSetup(this.gameFrame, true);
+        this.historyTable = new HistoryTable();
+        this.transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE);
         this.gameFrame.add(this.takenPiecesPanel, BorderLayout.WEST);
         this.gameFrame.add(this.boardPanel, BorderLayout.CENTER);
         this.gameFrame.add(this.gameHistoryPanel, BorderLayout.EAST);
@@ -118,6 +125,16 @@ public final class Table extends Observable {
         return this.gameSetup;
     }
 
+    // kept for the whole game so the engine's move ordering carries over from one of its moves to the next
+    private HistoryTable getHistoryTable() {
+        return this.historyTable;
+    }
+
+    // kept for the whole game as well, each search starts from what the last one stored
+    private TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
     private boolean getHighlightLegalMoves() {
         return this.highlightLegalMoves;
     }
@@ -256,6 +273,8 @@ public final class Table extends Observable {
             this.chessBoard = this.chessBoard.currentPlayer().unMakeMove(lastMove).getToBoard();
         }
         this.computerMove = null;
+        this.historyTable.clear();
+        this.transpositionTable.clear();
         Table.get().getMoveLog().clear();
         Table.get().getGameHistoryPanel().redo(chessBoard, Table.get().getMoveLog());
         Table.get().getTakenPiecesPanel().redo(Table.get().getMoveLog());
@@ -324,7 +343,10 @@ public final class Table extends Observable {
                 bestMove = bookMove;
             }
             else {
-                final StockAlphaBeta strategy = new StockAlphaBeta(Table.get().getGameSetup().getSearchDepth());
+                final long moveTime = Table.get().getGameSetup().getMoveTimeMillis();
+                final StockAlphaBeta strategy = new StockAlphaBeta(Table.get().getGameSetup().getSearchDepth(),
+                        Table.get().getTranspositionTable(), 1, Table.get().getHistoryTable(),
+                        moveTime > 0 ? TimeControl.moveTime(moveTime) : TimeControl.INFINITE);
                 strategy.addObserver(Table.get().getDebugPanel());
                 bestMove = strategy.execute(Table.get().getGameBoard());
             }
@@ -550,15 +572,15 @@ public final class Table extends Observable {
             }
         }
         private void assignTileColor() {
-            if (BoardUtils.INSTANCE.FIRST_ROW.get(this.tileId) ||
-                BoardUtils.INSTANCE.THIRD_ROW.get(this.tileId) ||
-                BoardUtils.INSTANCE.FIFTH_ROW.get(this.tileId) ||
-                BoardUtils.INSTANCE.SEVENTH_ROW.get(this.tileId)) {
+            if (BoardUtils.INSTANCE.FIRST_ROW[this.tileId] ||
+                BoardUtils.INSTANCE.THIRD_ROW[this.tileId] ||
+                BoardUtils.INSTANCE.FIFTH_ROW[this.tileId] ||
+                BoardUtils.INSTANCE.SEVENTH_ROW[this.tileId]) {
                 setBackground(this.tileId % 2 == 0 ? lightTileColor : darkTileColor);
-            } else if(BoardUtils.INSTANCE.SECOND_ROW.get(this.tileId) ||
-                      BoardUtils.INSTANCE.FOURTH_ROW.get(this.tileId) ||
-                      BoardUtils.INSTANCE.SIXTH_ROW.get(this.tileId)  ||
-                      BoardUtils.INSTANCE.EIGHTH_ROW.get(this.tileId)) {
+            } else if(BoardUtils.INSTANCE.SECOND_ROW[this.tileId] ||
+                      BoardUtils.INSTANCE.FOURTH_ROW[this.tileId] ||
+                      BoardUtils.INSTANCE.SIXTH_ROW[this.tileId]  ||
+                      BoardUtils.INSTANCE.EIGHTH_ROW[this.tileId]) {
                 setBackground(this.tileId % 2 != 0 ? lightTileColor : darkTileColor);
             }
         }
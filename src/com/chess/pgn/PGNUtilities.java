@@ -10,6 +10,7 @@ import com.google.common.collect.ImmutableList.Builder;
 import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,10 +33,20 @@ public class PGNUtilities {
     }
 
     public static void persistPGNFile(final File pgnFile) throws IOException {
+        final int[] counts = new int[2];
+        streamPGNFile(pgnFile, game -> {
+            System.out.println("(" +(++counts[0])+") Finished parsing " +game);
+            if(game.isValid()) {
+                MySqlGamePersistence.get().persistGame(game);
+                counts[1]++;
+            }
+        });
+        System.out.println("Finished building book from pgn file: " + pgnFile + " Parsed " +counts[0]+ " games, valid = " +counts[1]);
+    }
 
-        int count = 0;
-        int validCount = 0;
-
+    // hands each game of the file to the consumer as soon as it is read, so a file never has to fit in memory
+    public static void streamPGNFile(final File pgnFile,
+                                     final Consumer<Game> gameConsumer) throws IOException {
         try (final BufferedReader br = new BufferedReader(new FileReader(pgnFile))) {
             String line;
             PGNGameTags.TagsBuilder tagsBuilder = new PGNGameTags.TagsBuilder();
@@ -54,12 +65,7 @@ public class PGNUtilities {
                         gameTextBuilder.append(line.replace(outcome, "")).append(" ");
                         final String gameText = gameTextBuilder.toString().trim();
                         if(!gameText.isEmpty() && gameText.length() > 80) {
-                            final Game game = GameFactory.createGame(tagsBuilder.build(), gameText, outcome);
-                            System.out.println("(" +(++count)+") Finished parsing " +game+ " count = " + (++count));
-                            if(game.isValid()) {
-                                MySqlGamePersistence.get().persistGame(game);
-                                validCount++;
-                            }
+                            gameConsumer.accept(GameFactory.createGame(tagsBuilder.build(), gameText, outcome));
                         }
                         gameTextBuilder = new StringBuilder();
                         tagsBuilder = new PGNGameTags.TagsBuilder();
@@ -69,9 +75,7 @@ public class PGNUtilities {
                     }
                 }
             }
-            br.readLine();
         }
-        System.out.println("Finished building book from pgn file: " + pgnFile + " Parsed " +count+ " games, valid = " +validCount);
     }
 
     public static void writeGameToPGNFile(final File pgnFile,